@@ -0,0 +1,90 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.benchmark;
+
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.predicates.impl.math.compare.LT;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.listener.CountingSolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+import static org.logic2j.engine.model.Var.anyVar;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.and;
+
+/**
+ * Full versus shallow reification of a var bound to a structure holding bound vars, and a generate-and-compare goal
+ * whose predicates only need shallow reification.
+ * Allocation is best compared with the GC profiler: -Djmh.options="-f 1 -prof gc".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DereferenceBenchmark {
+
+  private final Solver solver = new Solver();
+
+  private Var<?> boundVar;
+
+  private UnifyContext boundContext;
+
+  private Object rangeAndCompare;
+
+  @Setup
+  public void setup() {
+    final Var<?> X = anyVar("X");
+    final Var<?> A = anyVar("A");
+    final Var<?> B = anyVar("B");
+    final Struct<?> goal = (Struct<?>) termApi().normalize(Struct.valueOf("g", X, Struct.valueOf("f", A, B)));
+    boundVar = (Var<?>) goal.getArg(0);
+    final Struct<?> f = (Struct<?>) goal.getArg(1);
+    boundContext = new UnifyContext(null, null).unify(f.getArg(0), 1).unify(f.getArg(1), 2).unify(boundVar, f);
+
+    final Var<Integer> Q = intVar("Q");
+    rangeAndCompare = termApi().normalize(and(new IntRange(0, Q, 1000), new LT<>(Q, 500)));
+  }
+
+  @Benchmark
+  public Object reifyStruct() {
+    return boundContext.reify(boundVar);
+  }
+
+  @Benchmark
+  public Object dereferenceStruct() {
+    return boundContext.dereference(boundVar);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int rangeAndCompare() {
+    final CountingSolutionListener listener = new CountingSolutionListener();
+    solver.solveGoal(rangeAndCompare, listener);
+    return listener.count();
+  }
+
+}
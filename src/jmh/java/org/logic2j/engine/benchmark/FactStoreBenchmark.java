@@ -0,0 +1,97 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.benchmark;
+
+import org.logic2j.engine.data.ColumnarFactTable;
+import org.logic2j.engine.data.DataFactProvider;
+import org.logic2j.engine.data.DataFactStore;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.listener.CountingSolutionListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+import static org.logic2j.engine.model.Var.anyVar;
+
+/**
+ * Facts stored as {@link org.logic2j.engine.model.DataFact}s versus by column: lookup with a bound argument
+ * (10'000 solutions), and scan of all facts (1'000'000 solutions).
+ * Allocation is best compared with the GC profiler: -Djmh.options="-f 1 -prof gc".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FactStoreBenchmark {
+
+  private static final int NB_ROWS = 1_000_000;
+
+  @Param({"DATAFACT", "COLUMNAR"})
+  public String storage;
+
+  private Solver solver;
+
+  private Object lookup;
+
+  private Object scan;
+
+  @Setup
+  public void setup() {
+    final DataFactProvider provider;
+    if ("COLUMNAR".equals(storage)) {
+      final ColumnarFactTable table = new ColumnarFactTable("measure", 4);
+      for (int i = 0; i < NB_ROWS; i++) {
+        table.add(i, "sensor" + (i % 100), 1_000_000_000_000L + i, i / 2.0);
+      }
+      provider = table;
+    } else {
+      final DataFactStore store = new DataFactStore();
+      for (int i = 0; i < NB_ROWS; i++) {
+        store.add("measure", i, "sensor" + (i % 100), 1_000_000_000_000L + i, i / 2.0);
+      }
+      provider = store;
+    }
+    solver = new Solver().withDataFactProvider(provider);
+    lookup = termApi().normalize(new Struct<>("measure", anyVar("I"), "sensor42", anyVar("T"), anyVar("V")));
+    scan = termApi().normalize(new Struct<>("measure", anyVar("I"), anyVar("S"), anyVar("T"), anyVar("V")));
+    // Build indexes before measuring
+    lookup();
+    scan();
+  }
+
+  @Benchmark
+  public int lookup() {
+    final CountingSolutionListener listener = new CountingSolutionListener();
+    solver.solveGoal(lookup, listener);
+    return listener.count();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int scan() {
+    final CountingSolutionListener listener = new CountingSolutionListener();
+    solver.solveGoal(scan, listener);
+    return listener.count();
+  }
+
+}
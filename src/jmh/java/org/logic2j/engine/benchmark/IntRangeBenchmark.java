@@ -0,0 +1,75 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.benchmark;
+
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.listener.CountingSolutionListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+import static org.logic2j.engine.model.Var.intVar;
+
+/**
+ * Cost of enumerating all solutions of {@link IntRange}, with a free variable (generation)
+ * or a bound one (check).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntRangeBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int size;
+
+  private final Solver solver = new Solver();
+
+  private Object generating;
+
+  private Object checking;
+
+  @Setup
+  public void setup() {
+    final Var<Integer> X = intVar("X");
+    generating = termApi().normalize(new IntRange(0, X, size));
+    checking = termApi().normalize(new IntRange(0, bind(size / 2), size));
+  }
+
+  @Benchmark
+  public int generate() {
+    final CountingSolutionListener listener = new CountingSolutionListener();
+    solver.solveGoal(generating, listener);
+    return listener.count();
+  }
+
+  @Benchmark
+  public int check() {
+    final CountingSolutionListener listener = new CountingSolutionListener();
+    solver.solveGoal(checking, listener);
+    return listener.count();
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.benchmark;
+
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.listener.CountingSolutionListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.*;
+
+/**
+ * Throughput of solving tiny goals, where the setup of the storage of variables dominates,
+ * with and without {@link Solver#withStatePooling(boolean)}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShortGoalBenchmark {
+
+  @Param({"false", "true"})
+  public boolean pooling;
+
+  private Solver solver;
+
+  private Object trueGoal;
+
+  private Object eqGoal;
+
+  private Object digitGoal;
+
+  @Setup
+  public void setup() {
+    solver = new Solver().withStatePooling(pooling);
+    final Var<Integer> X = intVar("X");
+    trueGoal = termApi().normalize(ttrue);
+    eqGoal = termApi().normalize(eq(X, bind(1)));
+    digitGoal = termApi().normalize(new Digit(intVar("Y")));
+  }
+
+  @Benchmark
+  public int solveTrue() {
+    return solve(trueGoal);
+  }
+
+  @Benchmark
+  public int solveEq() {
+    return solve(eqGoal);
+  }
+
+  @Benchmark
+  public int solveDigit() {
+    return solve(digitGoal);
+  }
+
+  private int solve(Object goal) {
+    final CountingSolutionListener listener = new CountingSolutionListener();
+    solver.solveGoal(goal, listener);
+    return listener.count();
+  }
+
+}
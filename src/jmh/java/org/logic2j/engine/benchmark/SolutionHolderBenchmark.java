@@ -0,0 +1,76 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.benchmark;
+
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.holder.SolutionHolder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.logic2j.engine.model.Var.intVar;
+
+/**
+ * Cost of each retrieval mode of {@link SolutionHolder}, for a goal having the specified number of solutions.
+ * Goal normalization (done by {@link Solver#solve(org.logic2j.engine.model.Term...)}) is included in the measure.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolutionHolderBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int size;
+
+  private final Solver solver = new Solver();
+
+  private final Var<Integer> X = intVar("X");
+
+  @Benchmark
+  public List<Integer> list() {
+    return solver.solve(new IntRange(0, X, size)).var(X).list();
+  }
+
+  @Benchmark
+  public void iterator(Blackhole blackhole) {
+    final Iterator<Integer> iterator = solver.solve(new IntRange(0, X, size)).var(X).iterator();
+    while (iterator.hasNext()) {
+      blackhole.consume(iterator.next());
+    }
+  }
+
+  @Benchmark
+  public long stream() {
+    return solver.solve(new IntRange(0, X, size)).var(X).stream().mapToLong(Integer::longValue).sum();
+  }
+
+  @Benchmark
+  public int count() {
+    return solver.solve(new IntRange(0, X, size)).count();
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.benchmark;
+
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.solver.CompiledGoal;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.listener.CountingSolutionListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.and;
+import static org.logic2j.engine.predicates.Predicates.eq;
+
+/**
+ * End-to-end cost of {@link Solver#solveGoal(Object, org.logic2j.engine.solver.listener.SolutionListener)}
+ * on a normalized goal: a generator of 10 solutions followed by a chain of goalSize equalities,
+ * each solution flowing through the whole chain.
+ * The same goal is also solved from its {@link CompiledGoal}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolverBenchmark {
+
+  @Param({"1", "10", "100"})
+  public int goalSize;
+
+  private final Solver solver = new Solver();
+
+  private Object goal;
+
+  private CompiledGoal compiledGoal;
+
+  @Setup
+  public void setup() {
+    final Term[] goals = new Term[goalSize + 1];
+    Var<Integer> previous = intVar("X0");
+    goals[0] = new Digit(previous);
+    for (int i = 1; i <= goalSize; i++) {
+      final Var<Integer> next = intVar("X" + i);
+      goals[i] = (i % 2 == 0) ? eq(next, previous) : eq(previous, next);
+      previous = next;
+    }
+    // Make the last var bound to a constant, so that only one solution makes it to the end
+    goal = termApi().normalize(and(and(goals), eq(previous, bind(5))));
+    compiledGoal = solver.compileNormalized(goal);
+  }
+
+  @Benchmark
+  public int solveGoal() {
+    final CountingSolutionListener listener = new CountingSolutionListener();
+    solver.solveGoal(goal, listener);
+    return listener.count();
+  }
+
+  @Benchmark
+  public int solveCompiledGoal() {
+    final CountingSolutionListener listener = new CountingSolutionListener();
+    solver.solveGoal(compiledGoal, listener);
+    return listener.count();
+  }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.benchmark;
+
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.unify.GrowthPolicy;
+import org.logic2j.engine.unify.StoreLayout;
+import org.logic2j.engine.unify.UnifyContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+
+/**
+ * Cost of {@link UnifyContext#unify(Object, Object)} and {@link UnifyContext#reify(Object)} on a Struct of
+ * the specified arity, all arguments being free variables on one side and integer literals on the other,
+ * and of dereferencing a chain of that many variables, for each {@link StoreLayout}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnifyBenchmark {
+
+  @Param({"1", "10", "100"})
+  public int arity;
+
+  @Param({"LOOKUP", "PACKED"})
+  public StoreLayout layout;
+
+  private Struct<?> pattern;
+
+  private Struct<?> ground;
+
+  /**
+   * Initial context, at transaction 0: unifying from it again and again rewinds the state of vars.
+   */
+  private UnifyContext initialContext;
+
+  /**
+   * Context where all vars of pattern are bound.
+   */
+  private UnifyContext boundContext;
+
+  /**
+   * Context where a chain of vars is bound to an integer; unifying two free vars binds the second to the first,
+   * so the last var of the chain is the farthest from the value.
+   */
+  private UnifyContext chainedContext;
+
+  private Var<?> chainHead;
+
+  @Setup
+  public void setup() {
+    final Object[] varArgs = new Object[arity];
+    final Object[] literalArgs = new Object[arity];
+    for (int i = 0; i < arity; i++) {
+      varArgs[i] = Var.intVar("X" + i);
+      literalArgs[i] = i;
+    }
+    pattern = (Struct<?>) termApi().normalize(new Struct<>("f", varArgs));
+    ground = (Struct<?>) termApi().normalize(new Struct<>("f", literalArgs));
+    initialContext = new UnifyContext(null, null, null, 2 * arity, GrowthPolicy.DOUBLING, layout);
+    boundContext = initialContext.unify(pattern, ground);
+
+    // The chain uses slots beyond those of pattern, so that it does not interfere
+    final Var<?>[] chain = new Var<?>[arity];
+    for (int i = 0; i < arity; i++) {
+      chain[i] = Var.anyVar("C" + i);
+      chain[i].setIndex(arity + i);
+    }
+    chainedContext = boundContext;
+    // Bind from the far end so that no binding gets shortcut by dereferencing its target
+    for (int i = arity - 2; i >= 0; i--) {
+      chainedContext = chainedContext.unify(chain[i], chain[i + 1]);
+    }
+    chainedContext = chainedContext.unify(chain[arity - 1], 42);
+    chainHead = chain[arity - 1];
+  }
+
+  @Benchmark
+  public UnifyContext unify() {
+    return initialContext.unify(pattern, ground);
+  }
+
+  @Benchmark
+  public Object reify() {
+    // Reify is only valid while no other unification was made from initialContext, this is the case here
+    return boundContext.reify(pattern);
+  }
+
+  @Benchmark
+  public Object dereferenceChain() {
+    return chainedContext.reify(chainHead);
+  }
+
+  @Benchmark
+  public Object unifyAndReify() {
+    return initialContext.unify(pattern, ground).reify(pattern);
+  }
+
+}
@@ -0,0 +1,273 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.clause;
+
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+
+/**
+ * A fact or a rule "head :- body", stored once and resolved many times.
+ * <p/>
+ * A clause has its own copy of its variables, numbered from 0. Every resolution needs fresh variables: instead of
+ * copying the clause, a {@link Frame} reserves a range of variable indexes above those in use
+ * (see {@link UnifyContext#topVarIndex(int)}), and a variable of index i in the clause stands for the variable of
+ * index offset + i. The head is unified with the goal in place; only the parts of the clause that get bound to
+ * variables of the goal, and the body when it has variables, are instantiated.
+ */
+public final class Clause {
+
+  private static final String FUNCTOR_CLAUSE = ":-";
+
+  private final Struct<?> head;
+
+  /**
+   * Null for a fact.
+   */
+  private final Object body;
+
+  private final int nbVars;
+
+  /**
+   * Value of the first argument of the head for indexing, null if it is a variable (or for atoms).
+   */
+  private final Object firstArgKey;
+
+  /**
+   * A rule.
+   *
+   * @param head
+   * @param body The goal to prove for the head to hold, or null for a fact
+   */
+  public Clause(Struct<?> head, Object body) {
+    final Struct<?> normalized = (Struct<?>) termApi().normalize(withOwnVars(new Struct<>(FUNCTOR_CLAUSE, head, (body != null) ? body : "true")));
+    if (!(normalized.getArg(0) instanceof Struct<?> normalizedHead)) {
+      throw new InvalidTermException("Head of a clause must be a Struct, was: \"" + head + '"');
+    }
+    this.head = normalizedHead;
+    this.body = (body != null) ? normalized.getArg(1) : null;
+    this.nbVars = normalized.getIndex();
+    this.firstArgKey = (this.head.getArity() > 0) ? keyOf(this.head.getArg(0)) : null;
+  }
+
+  /**
+   * A fact.
+   *
+   * @param head
+   */
+  public Clause(Struct<?> head) {
+    this(head, null);
+  }
+
+  /**
+   * Copy a term with new variables, so that its numbering is not shared with other terms using the same {@link Var}s.
+   */
+  private static Object withOwnVars(Object term) {
+    return withOwnVars(term, new IdentityHashMap<>());
+  }
+
+  private static Object withOwnVars(Object term, Map<Var<?>, Var<?>> copies) {
+    if (termApi().isFreeVar(term)) {
+      final Var<?> var = (Var<?>) term;
+      return var.isAnon() ? var : copies.computeIfAbsent(var, v -> new Var<>(v.getType(), v.getName()));
+    }
+    if (term instanceof Struct<?> struct && struct.getArity() > 0) {
+      final Object[] args = struct.getArgs().clone();
+      for (int i = 0; i < args.length; i++) {
+        args[i] = withOwnVars(args[i], copies);
+      }
+      final Struct<?> copy = struct.cloneWithNewArguments(args);
+      copy.setIndex(Struct.NO_INDEX);
+      return copy;
+    }
+    return term;
+  }
+
+  /**
+   * Key of a value for first-argument indexing: Structs are keyed by their signature, other values by themselves.
+   *
+   * @param value A dereferenced value
+   * @return The key, or null for a free variable
+   */
+  static Object keyOf(Object value) {
+    if (termApi().isFreeVar(value)) {
+      return null;
+    }
+    if (value instanceof Struct<?> struct) {
+      return new StructKey(struct.getPredicateSignature());
+    }
+    return value;
+  }
+
+  private record StructKey(String signature) {
+  }
+
+  // ---------------------------------------------------------------------------
+  // Resolution
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Reserve fresh variables for one resolution of this clause.
+   *
+   * @param currentVars The context of the goal; the variables are reserved in it, hence in all contexts derived from it
+   * @return The frame of variables
+   */
+  public Frame newFrame(UnifyContext currentVars) {
+    final int offset = (this.nbVars > 0) ? currentVars.topVarIndex(this.nbVars) - this.nbVars : 0;
+    return new Frame(offset);
+  }
+
+  /**
+   * The fresh variables of one resolution of the clause. Var objects are only created when needed.
+   */
+  public final class Frame {
+    private final int offset;
+    private Var<?>[] vars;
+
+    private Frame(int offset) {
+      this.offset = offset;
+    }
+
+    /**
+     * Unify the head of the clause with a goal.
+     *
+     * @param goal
+     * @param currentVars The context in which the frame was created, or derived from it
+     * @return The context after unification, or null if the head does not unify
+     */
+    public UnifyContext unifyHead(Struct<?> goal, UnifyContext currentVars) {
+      if (goal.getPredicateSignature() != head.getPredicateSignature()) { // Names are {@link String#intern()}alized
+        return null;
+      }
+      final Object[] headArgs = head.getArgs();
+      final Object[] goalArgs = goal.getArgs();
+      UnifyContext runningMonad = currentVars;
+      for (int i = 0; i < headArgs.length && runningMonad != null; i++) {
+        runningMonad = unify(headArgs[i], goalArgs[i], runningMonad);
+      }
+      return runningMonad;
+    }
+
+    /**
+     * @return The body with the variables of this frame, null for a fact
+     */
+    public Object body() {
+      return (body != null) ? instantiate(body) : null;
+    }
+
+    private UnifyContext unify(Object clauseTerm, Object goalTerm, UnifyContext currentVars) {
+      if (termApi().isFreeVar(clauseTerm)) {
+        final Var<?> var = (Var<?>) clauseTerm;
+        return var.isAnon() ? currentVars : currentVars.unify(var(var), goalTerm);
+      }
+      if (clauseTerm instanceof Struct<?> struct && struct.getIndex() != 0) {
+        // A Struct with variables: walk it along the goal, instantiate it only if bound to a variable of the goal
+        final Object goalValue = currentVars.dereference(goalTerm);
+        if (goalValue instanceof Struct<?> goalStruct) {
+          if (goalStruct.getPredicateSignature() != struct.getPredicateSignature()) {
+            return null;
+          }
+          final Object[] clauseArgs = struct.getArgs();
+          final Object[] goalArgs = goalStruct.getArgs();
+          UnifyContext runningMonad = currentVars;
+          for (int i = 0; i < clauseArgs.length && runningMonad != null; i++) {
+            runningMonad = unify(clauseArgs[i], goalArgs[i], runningMonad);
+          }
+          return runningMonad;
+        }
+        return termApi().isFreeVar(goalValue) ? currentVars.unify(goalValue, instantiate(struct)) : null;
+      }
+      // Ground
+      return currentVars.unify(clauseTerm, goalTerm);
+    }
+
+    private Object instantiate(Object term) {
+      if (termApi().isFreeVar(term)) {
+        final Var<?> var = (Var<?>) term;
+        return var.isAnon() ? var : var(var);
+      }
+      if (term instanceof Struct<?> struct && struct.getIndex() != 0) {
+        final Object[] args = struct.getArgs();
+        final Object[] instantiated = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+          instantiated[i] = instantiate(args[i]);
+        }
+        return struct.cloneWithNewArguments(instantiated);
+      }
+      // Ground terms are shared
+      return term;
+    }
+
+    private Var<?> var(Var<?> clauseVar) {
+      if (this.vars == null) {
+        this.vars = new Var<?>[nbVars];
+      }
+      final int index = clauseVar.getIndex();
+      Var<?> var = this.vars[index];
+      if (var == null) {
+        var = new Var<>(clauseVar.getType(), clauseVar.getName());
+        var.setIndex(this.offset + index);
+        this.vars[index] = var;
+      }
+      return var;
+    }
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  public Struct<?> getHead() {
+    return head;
+  }
+
+  /**
+   * @return The body, null for a fact
+   */
+  public Object getBody() {
+    return body;
+  }
+
+  public boolean isFact() {
+    return body == null;
+  }
+
+  /**
+   * @return Number of distinct variables of the clause
+   */
+  public int getNbVars() {
+    return nbVars;
+  }
+
+  Object getFirstArgKey() {
+    return firstArgKey;
+  }
+
+  @Override
+  public String toString() {
+    return (body != null) ? head + " :- " + body : head.toString();
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.clause;
+
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * Source of {@link Clause}s the {@link org.logic2j.engine.solver.Solver} resolves goals against, see
+ * {@link org.logic2j.engine.solver.Solver#withClauseProvider(ClauseProvider)}.
+ */
+public interface ClauseProvider {
+
+  /**
+   * Candidate clauses for a goal, in their order of definition. Implementations may return clauses whose head does
+   * not unify with the goal (the solver unifies each of them), but must not omit any.
+   *
+   * @param goal        The goal to solve
+   * @param currentVars To dereference the arguments of the goal, as known at call time
+   * @return Clauses of same functor and arity as the goal
+   */
+  Iterable<Clause> listMatchingClauses(Struct<?> goal, UnifyContext currentVars);
+
+}
@@ -0,0 +1,160 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.clause;
+
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.logic2j.engine.predicates.Predicates.and;
+
+/**
+ * In-memory {@link ClauseProvider}: clauses are grouped by predicate signature (functor/arity), and indexed by the value
+ * of the first argument of their head, so that a goal whose first argument is bound only meets the clauses that
+ * may match it (those with the same value, or a variable, as first argument), still in order of definition.
+ * <p/>
+ * Clauses are expected to be added before solving: adding clauses while solving on other threads is not supported.
+ */
+public class ClauseStore implements ClauseProvider {
+
+  private final Map<String, Procedure> procedures = new HashMap<>();
+
+  // ---------------------------------------------------------------------------
+  // Loading
+  // ---------------------------------------------------------------------------
+
+  public synchronized ClauseStore add(Clause clause) {
+    this.procedures.computeIfAbsent(clause.getHead().getPredicateSignature(), s -> new Procedure()).add(clause);
+    return this;
+  }
+
+  /**
+   * Convenience to add a rule.
+   *
+   * @param head
+   * @param body Goals of the body, a conjunction when more than one; none for a fact
+   * @return this
+   */
+  public ClauseStore add(Struct<?> head, Term... body) {
+    final Object effective = switch (body.length) {
+      case 0 -> null;
+      case 1 -> body[0];
+      default -> and(body);
+    };
+    return add(new Clause(head, effective));
+  }
+
+  // ---------------------------------------------------------------------------
+  // ClauseProvider
+  // ---------------------------------------------------------------------------
+
+  @Override
+  public synchronized Iterable<Clause> listMatchingClauses(Struct<?> goal, UnifyContext currentVars) {
+    final Procedure procedure = this.procedures.get(goal.getPredicateSignature());
+    if (procedure == null) {
+      return Collections.emptyList();
+    }
+    if (goal.getArity() == 0) {
+      return procedure.all();
+    }
+    return procedure.candidates(Clause.keyOf(currentVars.dereference(goal.getArg(0))));
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @return Total number of clauses
+   */
+  public synchronized int size() {
+    int size = 0;
+    for (Procedure procedure : this.procedures.values()) {
+      size += procedure.clauses.size();
+    }
+    return size;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return this.getClass().getSimpleName() + "(predicates=" + procedures.size() + ", clauses=" + size() + ')';
+  }
+
+  // ---------------------------------------------------------------------------
+  // Implementation
+  // ---------------------------------------------------------------------------
+
+  /**
+   * All clauses of one signature, and their first-argument index, built on first lookup after a change.
+   */
+  private static final class Procedure {
+    private final List<Clause> clauses = new ArrayList<>();
+    private Map<Object, List<Clause>> byFirstArg;
+    private List<Clause> withVarFirstArg;
+
+    void add(Clause clause) {
+      this.clauses.add(clause);
+      this.byFirstArg = null;
+      this.withVarFirstArg = null;
+    }
+
+    List<Clause> all() {
+      return this.clauses;
+    }
+
+    /**
+     * @param key Key of the first argument of the goal, null when free
+     */
+    List<Clause> candidates(Object key) {
+      if (key == null) {
+        return all();
+      }
+      if (this.byFirstArg == null) {
+        buildIndex();
+      }
+      return this.byFirstArg.getOrDefault(key, this.withVarFirstArg);
+    }
+
+    /**
+     * For every distinct key, the clauses with that key or a variable, in order of definition.
+     */
+    private void buildIndex() {
+      final Map<Object, List<Clause>> index = new HashMap<>();
+      final List<Clause> withVar = new ArrayList<>();
+      for (Clause clause : this.clauses) {
+        final Object key = clause.getFirstArgKey();
+        if (key == null) {
+          withVar.add(clause);
+          index.values().forEach(list -> list.add(clause));
+        } else {
+          index.computeIfAbsent(key, k -> new ArrayList<>(withVar)).add(clause);
+        }
+      }
+      this.byFirstArg = index;
+      this.withVarFirstArg = withVar;
+    }
+  }
+
+}
@@ -0,0 +1,612 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.data;
+
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.DataFact;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+/**
+ * Facts of one functor and arity stored by column, as a {@link DataFactProvider}.
+ * <p/>
+ * Each column is specialized on the type of its values: Integer, Long and Double values are held in
+ * int[], long[] and double[], Strings are dictionary-encoded (an int code per row); a column with values of mixed
+ * types falls back to boxed objects. Types are preserved, so that unification behaves exactly as with {@link DataFact}s.
+ * <p/>
+ * Bound arguments are matched on the primitive columns without boxing; the first bound argument uses a hash index built
+ * on first use. Goals are unified with rows directly, without materializing {@link DataFact}s
+ * (only {@link #listMatchingDataFacts(String, Object[])} does, for compatibility).
+ * <p/>
+ * Rows are expected to be loaded before solving: adding rows while solving on other threads is not supported.
+ */
+public class ColumnarFactTable implements DataFactProvider {
+
+  /**
+   * How a column is stored.
+   */
+  public enum ColumnType {
+    /**
+     * No value yet
+     */
+    EMPTY,
+    INT,
+    LONG,
+    DOUBLE,
+    /**
+     * Dictionary-encoded Strings
+     */
+    STRING,
+    /**
+     * Boxed values of mixed types
+     */
+    OBJECT
+  }
+
+  private final String functor;
+
+  private final Column[] columns;
+
+  private int size = 0;
+
+  /**
+   * Hash index of rows by value, per column, built on first use.
+   */
+  private final Map<Integer, Map<Object, int[]>> indexes = new HashMap<>();
+
+  /**
+   * @param functor Name of the facts
+   * @param arity   Number of arguments (columns)
+   */
+  public ColumnarFactTable(String functor, int arity) {
+    if (arity < 1) {
+      throw new InvalidTermException("Arity of a ColumnarFactTable must be at least 1, was " + arity);
+    }
+    this.functor = functor.intern();
+    this.columns = new Column[arity];
+    Arrays.setAll(this.columns, i -> new EmptyColumn());
+  }
+
+  // ---------------------------------------------------------------------------
+  // Loading
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @param values One value per column, none can be null
+   * @return this
+   */
+  public synchronized ColumnarFactTable add(Object... values) {
+    if (values.length != this.columns.length) {
+      throw new InvalidTermException("Row of " + values.length + " values cannot be added to " + this);
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) {
+        throw new InvalidTermException("Cannot add a null value at index " + i + " to " + this + ", row was: " + Arrays.asList(values));
+      }
+    }
+    for (int i = 0; i < values.length; i++) {
+      Column column = this.columns[i];
+      if (!column.accepts(values[i])) {
+        column = column.promote(values[i], this.size);
+        this.columns[i] = column;
+      }
+      column.add(values[i]);
+    }
+    for (Map.Entry<Integer, Map<Object, int[]>> index : this.indexes.entrySet()) {
+      addToIndex(index.getValue(), this.columns[index.getKey()].get(this.size), this.size);
+    }
+    this.size++;
+    return this;
+  }
+
+  /**
+   * @param dataFact Must be of same functor and arity
+   * @return this
+   */
+  public ColumnarFactTable add(DataFact dataFact) {
+    if (!this.functor.equals(dataFact.functor())) {
+      throw new InvalidTermException("Cannot add " + dataFact + " to " + this);
+    }
+    final Object[] elements = dataFact.getElements();
+    return add(Arrays.copyOfRange(elements, 1, elements.length));
+  }
+
+  // ---------------------------------------------------------------------------
+  // DataFactProvider
+  // ---------------------------------------------------------------------------
+
+  @Override
+  public synchronized Iterable<DataFact> listMatchingDataFacts(String functor, Object[] pattern) {
+    if (!this.functor.equals(functor) || pattern.length != this.columns.length) {
+      return Collections.emptyList();
+    }
+    final List<DataFact> dataFacts = new ArrayList<>();
+    final RowMatcher matcher = matcher(pattern);
+    for (int row = matcher.first(); row >= 0; row = matcher.next()) {
+      final Object[] elements = new Object[this.columns.length + 1];
+      elements[0] = this.functor;
+      for (int i = 0; i < this.columns.length; i++) {
+        elements[i + 1] = this.columns[i].get(row);
+      }
+      dataFacts.add(new DataFact(elements));
+    }
+    return dataFacts;
+  }
+
+  @Override
+  public boolean mayProvide(String functor, int arity) {
+    return this.functor.equals(functor) && arity == this.columns.length;
+  }
+
+  @Override
+  public int unifyAndNotify(Struct<?> goal, Object[] pattern, UnifyContext currentVars) {
+    if (this.functor != goal.getName() || pattern.length != this.columns.length) { // Names are {@link String#intern()}alized
+      return CONTINUE;
+    }
+    final Object[] goalArgs = goal.getArgs();
+    final SolutionListener listener = currentVars.getSolutionListener();
+    final RowMatcher matcher;
+    synchronized (this) {
+      matcher = matcher(pattern);
+    }
+    for (int row = matcher.first(); row >= 0; row = matcher.next()) {
+      UnifyContext afterUnification = currentVars;
+      for (int i = 0; i < goalArgs.length && afterUnification != null; i++) {
+        if (pattern[i] == null) {
+          // Bound arguments already matched, only unify the others
+          afterUnification = afterUnification.unify(goalArgs[i], this.columns[i].get(row));
+        }
+      }
+      if (afterUnification != null) {
+        final int continuation = listener.onSolution(afterUnification);
+        if (continuation != CONTINUE) {
+          return continuation;
+        }
+      }
+    }
+    return CONTINUE;
+  }
+
+  /**
+   * @return Iteration over the rows matching all the bound values of the pattern
+   */
+  private RowMatcher matcher(Object[] pattern) {
+    int indexed = -1;
+    final List<IntPredicate> filters = new ArrayList<>();
+    for (int i = 0; i < pattern.length; i++) {
+      if (pattern[i] != null) {
+        if (indexed < 0) {
+          indexed = i;
+        } else {
+          filters.add(this.columns[i].matcher(pattern[i]));
+        }
+      }
+    }
+    final int[] candidates;
+    if (indexed >= 0) {
+      final int[] rows = index(indexed).get(pattern[indexed]);
+      candidates = (rows != null) ? rows : new int[0];
+    } else {
+      candidates = null;
+    }
+    return new RowMatcher(candidates, this.size, filters.toArray(new IntPredicate[0]));
+  }
+
+  private Map<Object, int[]> index(int column) {
+    return this.indexes.computeIfAbsent(column, c -> {
+      final Map<Object, int[]> index = new HashMap<>();
+      for (int row = 0; row < this.size; row++) {
+        addToIndex(index, this.columns[c].get(row), row);
+      }
+      return index;
+    });
+  }
+
+  private static void addToIndex(Map<Object, int[]> index, Object value, int row) {
+    // Postings are int[] with their length at [0]
+    int[] rows = index.get(value);
+    if (rows == null) {
+      rows = new int[4];
+    } else if (rows[0] + 1 == rows.length) {
+      rows = Arrays.copyOf(rows, rows.length * 2);
+    }
+    rows[++rows[0]] = row;
+    index.put(value, rows);
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  public String getFunctor() {
+    return functor;
+  }
+
+  public int arity() {
+    return this.columns.length;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public synchronized ColumnType columnType(int column) {
+    return this.columns[column].type();
+  }
+
+  /**
+   * @param row
+   * @return The values of a row, boxed
+   */
+  public synchronized List<Object> row(int row) {
+    final Object[] values = new Object[this.columns.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = this.columns[i].get(row);
+    }
+    return Arrays.asList(values);
+  }
+
+  /**
+   * Unsynchronized access to a value, see {@link FactSegment#write(ColumnarFactTable, java.nio.file.Path)}.
+   */
+  Object valueAt(int column, int row) {
+    return this.columns[column].get(row);
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + '(' + functor + '/' + columns.length + ')';
+  }
+
+  // ---------------------------------------------------------------------------
+  // Implementation
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Iterates rows: either the candidates from an index, or all rows; keeps only those accepted by all filters.
+   */
+  private static final class RowMatcher {
+    private final int[] candidates;
+    private final int end;
+    private final IntPredicate[] filters;
+    private int position;
+
+    RowMatcher(int[] candidates, int size, IntPredicate[] filters) {
+      this.candidates = candidates;
+      this.end = (candidates != null) ? (candidates.length > 0 ? candidates[0] + 1 : 1) : size;
+      this.filters = filters;
+    }
+
+    /**
+     * @return First matching row, or -1
+     */
+    int first() {
+      this.position = (this.candidates != null) ? 1 : 0;
+      return advance();
+    }
+
+    /**
+     * @return Next matching row, or -1
+     */
+    int next() {
+      this.position++;
+      return advance();
+    }
+
+    private int advance() {
+      for (; this.position < this.end; this.position++) {
+        final int row = (this.candidates != null) ? this.candidates[this.position] : this.position;
+        if (accept(row)) {
+          return row;
+        }
+      }
+      return -1;
+    }
+
+    private boolean accept(int row) {
+      for (IntPredicate filter : this.filters) {
+        if (!filter.test(row)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private abstract static class Column {
+    abstract ColumnType type();
+
+    abstract boolean accepts(Object value);
+
+    abstract void add(Object value);
+
+    /**
+     * @return The value of the row, boxed
+     */
+    abstract Object get(int row);
+
+    /**
+     * @return Test of rows equal to value, without boxing
+     */
+    abstract IntPredicate matcher(Object value);
+
+    /**
+     * @return A column able to accept value, holding the existing rows
+     */
+    Column promote(Object value, int size) {
+      final ObjectColumn promoted = new ObjectColumn();
+      for (int row = 0; row < size; row++) {
+        promoted.add(get(row));
+      }
+      return promoted;
+    }
+  }
+
+  private static final class EmptyColumn extends Column {
+    @Override
+    ColumnType type() {
+      return ColumnType.EMPTY;
+    }
+
+    @Override
+    boolean accepts(Object value) {
+      return false;
+    }
+
+    @Override
+    void add(Object value) {
+      throw new IllegalStateException("Empty column must be promoted");
+    }
+
+    @Override
+    Object get(int row) {
+      throw new IndexOutOfBoundsException(row);
+    }
+
+    @Override
+    IntPredicate matcher(Object value) {
+      return row -> false;
+    }
+
+    @Override
+    Column promote(Object value, int size) {
+      if (value instanceof Integer) {
+        return new IntColumn();
+      }
+      if (value instanceof Long) {
+        return new LongColumn();
+      }
+      if (value instanceof Double) {
+        return new DoubleColumn();
+      }
+      if (value instanceof String) {
+        return new StringColumn();
+      }
+      return new ObjectColumn();
+    }
+  }
+
+  private static final class IntColumn extends Column {
+    private int[] values = new int[16];
+    private int size = 0;
+
+    @Override
+    ColumnType type() {
+      return ColumnType.INT;
+    }
+
+    @Override
+    boolean accepts(Object value) {
+      return value instanceof Integer;
+    }
+
+    @Override
+    void add(Object value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = (Integer) value;
+    }
+
+    @Override
+    Object get(int row) {
+      return values[row];
+    }
+
+    @Override
+    IntPredicate matcher(Object value) {
+      if (!(value instanceof Integer boxed)) {
+        return row -> false;
+      }
+      final int expected = boxed;
+      final int[] theValues = values;
+      return row -> theValues[row] == expected;
+    }
+  }
+
+  private static final class LongColumn extends Column {
+    private long[] values = new long[16];
+    private int size = 0;
+
+    @Override
+    ColumnType type() {
+      return ColumnType.LONG;
+    }
+
+    @Override
+    boolean accepts(Object value) {
+      return value instanceof Long;
+    }
+
+    @Override
+    void add(Object value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = (Long) value;
+    }
+
+    @Override
+    Object get(int row) {
+      return values[row];
+    }
+
+    @Override
+    IntPredicate matcher(Object value) {
+      if (!(value instanceof Long boxed)) {
+        return row -> false;
+      }
+      final long expected = boxed;
+      final long[] theValues = values;
+      return row -> theValues[row] == expected;
+    }
+  }
+
+  private static final class DoubleColumn extends Column {
+    private double[] values = new double[16];
+    private int size = 0;
+
+    @Override
+    ColumnType type() {
+      return ColumnType.DOUBLE;
+    }
+
+    @Override
+    boolean accepts(Object value) {
+      return value instanceof Double;
+    }
+
+    @Override
+    void add(Object value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = (Double) value;
+    }
+
+    @Override
+    Object get(int row) {
+      return values[row];
+    }
+
+    @Override
+    IntPredicate matcher(Object value) {
+      if (!(value instanceof Double)) {
+        return row -> false;
+      }
+      // Same semantic as Double.equals()
+      final long expected = Double.doubleToLongBits((Double) value);
+      final double[] theValues = values;
+      return row -> Double.doubleToLongBits(theValues[row]) == expected;
+    }
+  }
+
+  /**
+   * Dictionary-encoded Strings: each distinct String is held once, rows hold its code.
+   */
+  private static final class StringColumn extends Column {
+    private int[] codes = new int[16];
+    private int size = 0;
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codesByValue = new HashMap<>();
+
+    @Override
+    ColumnType type() {
+      return ColumnType.STRING;
+    }
+
+    @Override
+    boolean accepts(Object value) {
+      return value instanceof String;
+    }
+
+    @Override
+    void add(Object value) {
+      if (size == codes.length) {
+        codes = Arrays.copyOf(codes, size * 2);
+      }
+      Integer code = codesByValue.get(value);
+      if (code == null) {
+        code = dictionary.size();
+        // Strings are internalized as in DataFact
+        dictionary.add(((String) value).intern());
+        codesByValue.put(dictionary.get(code), code);
+      }
+      codes[size++] = code;
+    }
+
+    @Override
+    Object get(int row) {
+      return dictionary.get(codes[row]);
+    }
+
+    @Override
+    IntPredicate matcher(Object value) {
+      final Integer code = codesByValue.get(value);
+      if (code == null) {
+        return row -> false;
+      }
+      final int expected = code;
+      final int[] theCodes = codes;
+      return row -> theCodes[row] == expected;
+    }
+  }
+
+  private static final class ObjectColumn extends Column {
+    private final List<Object> values = new ArrayList<>();
+
+    @Override
+    ColumnType type() {
+      return ColumnType.OBJECT;
+    }
+
+    @Override
+    boolean accepts(Object value) {
+      return true;
+    }
+
+    @Override
+    void add(Object value) {
+      values.add((value instanceof CharSequence) ? String.valueOf(value).intern() : value);
+    }
+
+    @Override
+    Object get(int row) {
+      return values.get(row);
+    }
+
+    @Override
+    IntPredicate matcher(Object value) {
+      final List<Object> theValues = values;
+      return row -> theValues.get(row).equals(value);
+    }
+  }
+
+}
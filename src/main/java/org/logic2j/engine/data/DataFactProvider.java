@@ -0,0 +1,80 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.data;
+
+import org.logic2j.engine.model.DataFact;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+/**
+ * Source of {@link DataFact}s the {@link org.logic2j.engine.solver.Solver} unifies goals against, see
+ * {@link org.logic2j.engine.solver.Solver#withDataFactProvider(DataFactProvider)}.
+ */
+public interface DataFactProvider {
+
+  /**
+   * Candidate facts for a goal. Implementations may return more facts than those actually matching
+   * (the solver unifies each of them with the goal), but must not omit any.
+   *
+   * @param functor Name of the goal, {@link String#intern()}alized
+   * @param pattern Values of the arguments of the goal as known at call time, null where not bound
+   * @return Facts of same functor and arity as the goal, that may match the bound arguments
+   */
+  Iterable<DataFact> listMatchingDataFacts(String functor, Object[] pattern);
+
+  /**
+   * Tell whether facts of a signature may exist, allowing the solver to know when a goal has no more alternatives.
+   * The default implementation conservatively answers true.
+   *
+   * @param functor Name of the goal, {@link String#intern()}alized
+   * @param arity
+   * @return false only if this provider has no fact of that signature
+   */
+  default boolean mayProvide(String functor, int arity) {
+    return true;
+  }
+
+  /**
+   * Unify goal with every matching fact and notify the listener of currentVars for each.
+   * The default implementation unifies with the {@link DataFact}s from {@link #listMatchingDataFacts(String, Object[])};
+   * providers that do not store {@link DataFact}s may override to unify without materializing them.
+   *
+   * @param goal        The goal to solve
+   * @param pattern     Values of the arguments of the goal as known at call time, null where not bound
+   * @param currentVars
+   * @return The {@link org.logic2j.engine.solver.Continuation} from the listener
+   */
+  default int unifyAndNotify(Struct<?> goal, Object[] pattern, UnifyContext currentVars) {
+    final SolutionListener listener = currentVars.getSolutionListener();
+    for (final DataFact dataFact : listMatchingDataFacts(goal.getName(), pattern)) {
+      final UnifyContext afterUnification = currentVars.unify(goal, dataFact);
+      if (afterUnification != null) {
+        final int continuation = listener.onSolution(afterUnification);
+        if (continuation != CONTINUE) {
+          return continuation;
+        }
+      }
+    }
+    return CONTINUE;
+  }
+
+}
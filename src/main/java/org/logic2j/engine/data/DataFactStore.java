@@ -0,0 +1,331 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.data;
+
+import org.logic2j.engine.model.DataFact;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory {@link DataFactProvider} holding facts per signature (functor and arity), with hash indexes.
+ * <p/>
+ * Indexes are chosen from which arguments are bound at call time: the combination of bound arguments (the "mask")
+ * selects an index on exactly these arguments, a single-argument index when one argument is bound, or a composite
+ * one when several are. Indexes are built on the first lookup with a given mask, then maintained when facts are added.
+ * Beyond {@link #DEFAULT_MAX_INDEXES} indexes per signature, the existing index covering most of the bound arguments is used.
+ * Lookups with no bound argument scan all facts of the signature.
+ * <p/>
+ * Facts are expected to be loaded before solving: adding facts while solving on other threads is not supported.
+ * Lookups may run concurrently; they take no lock when their index exists already, only building an index locks its signature.
+ */
+public class DataFactStore implements DataFactProvider {
+
+  /**
+   * Maximal number of indexes per signature, by default.
+   */
+  public static final int DEFAULT_MAX_INDEXES = 8;
+
+  /**
+   * Facts with more arguments are stored, but only their first 63 arguments can be indexed.
+   */
+  private static final int MAX_INDEXED_ARGS = 63;
+
+  private final int maxIndexes;
+
+  private final Map<Signature, FactTable> tables = new ConcurrentHashMap<>();
+
+  private final LongAdder indexedLookups = new LongAdder();
+  private final LongAdder scans = new LongAdder();
+
+  public DataFactStore() {
+    this(DEFAULT_MAX_INDEXES);
+  }
+
+  /**
+   * @param maxIndexes Maximal number of indexes built per signature
+   */
+  public DataFactStore(int maxIndexes) {
+    this.maxIndexes = maxIndexes;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Loading
+  // ---------------------------------------------------------------------------
+
+  public DataFactStore add(DataFact dataFact) {
+    final Signature signature = new Signature(dataFact.functor(), dataFact.arity());
+    this.tables.computeIfAbsent(signature, s -> new FactTable(s.arity)).add(dataFact);
+    return this;
+  }
+
+  public DataFactStore addAll(Iterable<DataFact> dataFacts) {
+    for (DataFact dataFact : dataFacts) {
+      add(dataFact);
+    }
+    return this;
+  }
+
+  /**
+   * Convenience to add a fact.
+   *
+   * @param functor
+   * @param arguments
+   * @return this
+   */
+  public DataFactStore add(String functor, Object... arguments) {
+    final Object[] elements = new Object[arguments.length + 1];
+    elements[0] = functor;
+    System.arraycopy(arguments, 0, elements, 1, arguments.length);
+    return add(new DataFact(elements));
+  }
+
+  // ---------------------------------------------------------------------------
+  // DataFactProvider
+  // ---------------------------------------------------------------------------
+
+  @Override
+  public Iterable<DataFact> listMatchingDataFacts(String functor, Object[] pattern) {
+    final FactTable table = this.tables.get(new Signature(functor, pattern.length));
+    if (table == null) {
+      return Collections.emptyList();
+    }
+    long mask = 0;
+    for (int i = 0; i < pattern.length && i < MAX_INDEXED_ARGS; i++) {
+      if (pattern[i] != null) {
+        mask |= 1L << i;
+      }
+    }
+    if (mask == 0) {
+      this.scans.increment();
+      return table.facts;
+    }
+    this.indexedLookups.increment();
+    return table.lookup(mask, pattern, this.maxIndexes);
+  }
+
+  @Override
+  public boolean mayProvide(String functor, int arity) {
+    return this.tables.containsKey(new Signature(functor, arity));
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @return Total number of facts
+   */
+  public int size() {
+    int size = 0;
+    for (FactTable table : this.tables.values()) {
+      size += table.facts.size();
+    }
+    return size;
+  }
+
+  /**
+   * @param functor
+   * @param arity
+   * @return Number of indexes built for that signature
+   */
+  public int indexCount(String functor, int arity) {
+    final FactTable table = this.tables.get(new Signature(functor.intern(), arity));
+    return (table != null) ? table.indexes.size() : 0;
+  }
+
+  /**
+   * @return Number of lookups with at least one bound argument, answered from an index
+   */
+  public long getIndexedLookups() {
+    return indexedLookups.sum();
+  }
+
+  /**
+   * @return Number of lookups with no bound argument, answered by scanning all facts of the signature
+   */
+  public long getScans() {
+    return scans.sum();
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "(signatures=" + tables.size() + ", facts=" + size() + ')';
+  }
+
+  // ---------------------------------------------------------------------------
+  // Implementation
+  // ---------------------------------------------------------------------------
+
+  private record Signature(String functor, int arity) {
+  }
+
+  /**
+   * All facts of one signature, and their indexes. Adding facts and building indexes lock the table; indexes are
+   * published fully built so that lookups read them without locking.
+   */
+  private static final class FactTable {
+    private final int arity;
+    final List<DataFact> facts = new ArrayList<>();
+    final Map<Long, Index> indexes = new ConcurrentHashMap<>();
+
+    FactTable(int arity) {
+      this.arity = arity;
+    }
+
+    synchronized void add(DataFact dataFact) {
+      final int position = this.facts.size();
+      this.facts.add(dataFact);
+      for (Index index : this.indexes.values()) {
+        index.add(dataFact.getElements(), position);
+      }
+    }
+
+    Iterable<DataFact> lookup(long mask, Object[] pattern, int maxIndexes) {
+      Index index = this.indexes.get(mask);
+      if (index == null) {
+        index = indexOnMiss(mask, maxIndexes);
+        if (index == null) {
+          return this.facts;
+        }
+      }
+      final Postings postings = index.get(pattern);
+      return (postings != null) ? postings.facts(this.facts) : Collections.emptyList();
+    }
+
+    /**
+     * @return The index built for mask, or when there are too many indexes, the one covering most of mask, or null
+     */
+    private synchronized Index indexOnMiss(long mask, int maxIndexes) {
+      Index index = this.indexes.get(mask);
+      if (index != null) {
+        // Built by another thread meanwhile
+        return index;
+      }
+      if (this.indexes.size() < maxIndexes) {
+        index = new Index(mask, this.arity);
+        for (int i = 0; i < this.facts.size(); i++) {
+          index.add(this.facts.get(i).getElements(), i);
+        }
+        this.indexes.put(mask, index);
+        return index;
+      }
+      return bestCovering(mask);
+    }
+
+    /**
+     * @return The index on most arguments among those that are all bound in mask, or null
+     */
+    private Index bestCovering(long mask) {
+      Index best = null;
+      for (Index candidate : this.indexes.values()) {
+        if ((candidate.mask & ~mask) == 0 && (best == null || Long.bitCount(candidate.mask) > Long.bitCount(best.mask))) {
+          best = candidate;
+        }
+      }
+      return best;
+    }
+  }
+
+  /**
+   * Hash index on the arguments selected by a mask: the key is the argument itself for a single argument,
+   * or the list of arguments for several.
+   */
+  private static final class Index {
+    final long mask;
+    private final int[] argIndexes;
+    private final Map<Object, Postings> postings = new HashMap<>();
+
+    Index(long mask, int arity) {
+      this.mask = mask;
+      this.argIndexes = new int[Long.bitCount(mask)];
+      int n = 0;
+      for (int i = 0; i < arity && i < MAX_INDEXED_ARGS; i++) {
+        if ((mask & (1L << i)) != 0) {
+          this.argIndexes[n++] = i;
+        }
+      }
+    }
+
+    void add(Object[] elements, int position) {
+      // Elements of a DataFact are prefixed by the functor
+      this.postings.computeIfAbsent(key(elements, 1), k -> new Postings()).add(position);
+    }
+
+    Postings get(Object[] pattern) {
+      return this.postings.get(key(pattern, 0));
+    }
+
+    private Object key(Object[] values, int offset) {
+      if (this.argIndexes.length == 1) {
+        return values[offset + this.argIndexes[0]];
+      }
+      final Object[] key = new Object[this.argIndexes.length];
+      for (int i = 0; i < key.length; i++) {
+        key[i] = values[offset + this.argIndexes[i]];
+      }
+      return Arrays.asList(key);
+    }
+  }
+
+  /**
+   * Growable array of positions of facts.
+   */
+  private static final class Postings {
+    private int[] positions = new int[2];
+    private int size = 0;
+
+    void add(int position) {
+      if (this.size == this.positions.length) {
+        this.positions = Arrays.copyOf(this.positions, this.size * 2);
+      }
+      this.positions[this.size++] = position;
+    }
+
+    Iterable<DataFact> facts(List<DataFact> facts) {
+      final int[] thePositions = this.positions;
+      final int theSize = this.size;
+      return () -> new Iterator<>() {
+        private int i = 0;
+
+        @Override
+        public boolean hasNext() {
+          return i < theSize;
+        }
+
+        @Override
+        public DataFact next() {
+          if (i >= theSize) {
+            throw new NoSuchElementException();
+          }
+          return facts.get(thePositions[i++]);
+        }
+      };
+    }
+  }
+
+}
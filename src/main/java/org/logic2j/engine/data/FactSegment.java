@@ -0,0 +1,673 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.data;
+
+import org.logic2j.engine.data.ColumnarFactTable.ColumnType;
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.DataFact;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+/**
+ * A fact table persisted in a binary file, queried in place through memory mapping, as a {@link DataFactProvider}.
+ * Opening is almost instant whatever the size: nothing is loaded on heap, the pages of the file are read on demand
+ * by the operating system, and shared by all processes of the host that map the same file.
+ * <p/>
+ * Segments are written from a {@link ColumnarFactTable} with {@link #write(ColumnarFactTable, Path)}, with the same
+ * column types except {@link ColumnType#OBJECT}. Each column is stored contiguously (ints, longs, doubles, or codes
+ * into a dictionary of the distinct Strings in UTF-8 byte order), followed by an index: the rows sorted by the value
+ * of the column, which is binary-searched for bound arguments.
+ * <p/>
+ * File layout, all numbers big-endian:
+ * <pre>
+ * "L2JF" version
+ * sections: per column, data [dictionary] index
+ * directory: functor arity rows, per column: type dataOffset dictionaryOffset dictionaryLength indexOffset
+ * directoryOffset "L2JF"
+ * </pre>
+ * Each section is mapped separately, so a column (and its index) is limited to 2 GB.
+ */
+public final class FactSegment implements DataFactProvider, AutoCloseable {
+
+  private static final int MAGIC = 0x4C324A46; // "L2JF"
+
+  private static final int VERSION = 1;
+
+  private static final int TRAILER_LENGTH = 12;
+
+  private final FileChannel channel;
+
+  private final String functor;
+
+  private final int rows;
+
+  private final SegmentColumn[] columns;
+
+  private FactSegment(FileChannel channel, String functor, int rows, SegmentColumn[] columns) {
+    this.channel = channel;
+    this.functor = functor;
+    this.rows = rows;
+    this.columns = columns;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Writing
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Persist a table into a new segment file, replacing any existing one.
+   * The segment is written to a temporary file in the same directory, forced to storage, then atomically moved to path:
+   * readers that mapped the previous file keep reading it unchanged.
+   *
+   * @param table Columns of type {@link ColumnType#OBJECT} are not supported
+   * @param path
+   * @throws IOException
+   */
+  public static void write(ColumnarFactTable table, Path path) throws IOException {
+    final int arity = table.arity();
+    final ColumnType[] types = new ColumnType[arity];
+    for (int c = 0; c < arity; c++) {
+      types[c] = table.columnType(c);
+      if (types[c] == ColumnType.EMPTY) {
+        // Only when there are no rows
+        types[c] = ColumnType.INT;
+      }
+      if (types[c] == ColumnType.OBJECT) {
+        throw new InvalidTermException("Column " + c + " of " + table + " has values of mixed types, cannot be written to a FactSegment");
+      }
+    }
+    // Never rewrite a segment in place: it may be mapped by this or another JVM, that would crash on reading truncated pages
+    final Path target = path.toAbsolutePath();
+    final Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+    boolean moved = false;
+    try {
+      try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        writeSections(table, types, out);
+        out.force(true);
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+      moved = true;
+    } finally {
+      if (!moved) {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+
+  private static void writeSections(ColumnarFactTable table, ColumnType[] types, FileChannel out) throws IOException {
+    final int arity = types.length;
+    final int rows = table.size();
+    final SectionWriter writer = new SectionWriter(out);
+    writer.putInt(MAGIC).putInt(VERSION);
+    final long[][] directory = new long[arity][4];
+    for (int c = 0; c < arity; c++) {
+      final int column = c;
+      directory[c][0] = writer.position();
+      final Comparator<Integer> order;
+      switch (types[c]) {
+        case INT -> {
+          for (int row = 0; row < rows; row++) {
+            writer.putInt((Integer) table.valueAt(column, row));
+          }
+          order = Comparator.comparingInt(row -> (Integer) table.valueAt(column, row));
+        }
+        case LONG -> {
+          for (int row = 0; row < rows; row++) {
+            writer.putLong((Long) table.valueAt(column, row));
+          }
+          order = Comparator.comparingLong(row -> (Long) table.valueAt(column, row));
+        }
+        case DOUBLE -> {
+          for (int row = 0; row < rows; row++) {
+            writer.putDouble((Double) table.valueAt(column, row));
+          }
+          order = Comparator.comparingDouble(row -> (Double) table.valueAt(column, row));
+        }
+        case STRING -> {
+          // Dictionary in UTF-8 byte order, so that codes can be found by binary search on the bytes
+          final Map<String, byte[]> distinct = new HashMap<>();
+          for (int row = 0; row < rows; row++) {
+            distinct.computeIfAbsent((String) table.valueAt(column, row), v -> v.getBytes(StandardCharsets.UTF_8));
+          }
+          final List<byte[]> dictionary = new ArrayList<>(distinct.values());
+          dictionary.sort(Arrays::compareUnsigned);
+          final Map<String, Integer> codeOf = new HashMap<>();
+          for (int code = 0; code < dictionary.size(); code++) {
+            codeOf.put(new String(dictionary.get(code), StandardCharsets.UTF_8), code);
+          }
+          final IntUnaryOperator codes = row -> codeOf.get((String) table.valueAt(column, row));
+          for (int row = 0; row < rows; row++) {
+            writer.putInt(codes.applyAsInt(row));
+          }
+          directory[c][1] = writer.position();
+          writer.putInt(dictionary.size());
+          int offset = 0;
+          for (byte[] bytes : dictionary) {
+            writer.putInt(offset);
+            offset += bytes.length;
+          }
+          writer.putInt(offset);
+          for (byte[] bytes : dictionary) {
+            writer.put(bytes);
+          }
+          directory[c][2] = writer.position() - directory[c][1];
+          order = Comparator.comparingInt(codes::applyAsInt);
+        }
+        default -> throw new InvalidTermException("Column " + c + " of " + table + " cannot be written, type is " + types[c]);
+      }
+      final Integer[] sorted = new Integer[rows];
+      Arrays.setAll(sorted, row -> row);
+      // Stable sort: rows of equal values remain in order
+      Arrays.sort(sorted, order);
+      directory[c][3] = writer.position();
+      for (Integer row : sorted) {
+        writer.putInt(row);
+      }
+    }
+    final long directoryOffset = writer.position();
+    final byte[] functorBytes = table.getFunctor().getBytes(StandardCharsets.UTF_8);
+    writer.putInt(functorBytes.length).put(functorBytes).putInt(arity).putInt(rows);
+    for (int c = 0; c < arity; c++) {
+      writer.put(new byte[]{(byte) types[c].ordinal()});
+      for (long value : directory[c]) {
+        writer.putLong(value);
+      }
+    }
+    writer.putLong(directoryOffset).putInt(MAGIC);
+    writer.flush();
+  }
+
+  /**
+   * Buffered sequential writes to a channel, keeping track of the position.
+   */
+  private static final class SectionWriter {
+    private final FileChannel out;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private long flushed = 0;
+
+    SectionWriter(FileChannel out) {
+      this.out = out;
+    }
+
+    long position() {
+      return flushed + buffer.position();
+    }
+
+    private SectionWriter ensure(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        flush();
+      }
+      return this;
+    }
+
+    SectionWriter putInt(int value) throws IOException {
+      ensure(Integer.BYTES).buffer.putInt(value);
+      return this;
+    }
+
+    SectionWriter putLong(long value) throws IOException {
+      ensure(Long.BYTES).buffer.putLong(value);
+      return this;
+    }
+
+    SectionWriter putDouble(double value) throws IOException {
+      ensure(Double.BYTES).buffer.putDouble(value);
+      return this;
+    }
+
+    SectionWriter put(byte[] bytes) throws IOException {
+      for (int offset = 0; offset < bytes.length; ) {
+        ensure(1);
+        final int length = Math.min(buffer.remaining(), bytes.length - offset);
+        buffer.put(bytes, offset, length);
+        offset += length;
+      }
+      return this;
+    }
+
+    void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        flushed += out.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
+
+  // ---------------------------------------------------------------------------
+  // Opening
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Map a segment file in memory; only its directory is read.
+   *
+   * @param path
+   * @return The segment, to be registered with {@link org.logic2j.engine.solver.Solver#withDataFactProvider(DataFactProvider)}
+   * @throws IOException If the file cannot be read or is not a segment
+   */
+  public static FactSegment open(Path path) throws IOException {
+    final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      final long length = channel.size();
+      if (length < 8 + TRAILER_LENGTH) {
+        throw new IOException("Not a fact segment, too short: " + path);
+      }
+      final ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, length - TRAILER_LENGTH, TRAILER_LENGTH);
+      final long directoryOffset = trailer.getLong();
+      final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 8);
+      if (trailer.getInt() != MAGIC || header.getInt() != MAGIC) {
+        throw new IOException("Not a fact segment: " + path);
+      }
+      final int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported version " + version + " of fact segment: " + path);
+      }
+      final ByteBuffer directory = channel.map(FileChannel.MapMode.READ_ONLY, directoryOffset, length - TRAILER_LENGTH - directoryOffset);
+      final byte[] functorBytes = new byte[directory.getInt()];
+      directory.get(functorBytes);
+      final String functor = new String(functorBytes, StandardCharsets.UTF_8).intern();
+      final int arity = directory.getInt();
+      final int rows = directory.getInt();
+      final SegmentColumn[] columns = new SegmentColumn[arity];
+      for (int c = 0; c < arity; c++) {
+        final ColumnType type = ColumnType.values()[directory.get()];
+        final long dataOffset = directory.getLong();
+        final long dictionaryOffset = directory.getLong();
+        final long dictionaryLength = directory.getLong();
+        final long indexOffset = directory.getLong();
+        final MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) rows * Integer.BYTES);
+        columns[c] = switch (type) {
+          case INT -> new IntSegmentColumn(channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, (long) rows * Integer.BYTES), index);
+          case LONG -> new LongSegmentColumn(channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, (long) rows * Long.BYTES), index);
+          case DOUBLE -> new DoubleSegmentColumn(channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, (long) rows * Double.BYTES), index);
+          case STRING -> new StringSegmentColumn(channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, (long) rows * Integer.BYTES), index,
+              channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset, dictionaryLength));
+          default -> throw new IOException("Unsupported column type " + type + " in fact segment: " + path);
+        };
+      }
+      return new FactSegment(channel, functor, rows, columns);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Close the file; the mapping itself is released when this object is garbage collected.
+   */
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+
+  // ---------------------------------------------------------------------------
+  // DataFactProvider
+  // ---------------------------------------------------------------------------
+
+  @Override
+  public Iterable<DataFact> listMatchingDataFacts(String functor, Object[] pattern) {
+    final List<DataFact> dataFacts = new ArrayList<>();
+    if (!this.functor.equals(functor) || pattern.length != this.columns.length) {
+      return dataFacts;
+    }
+    final RowCursor cursor = cursor(pattern);
+    for (int row = cursor.next(); row >= 0; row = cursor.next()) {
+      final Object[] elements = new Object[this.columns.length + 1];
+      elements[0] = this.functor;
+      for (int i = 0; i < this.columns.length; i++) {
+        elements[i + 1] = this.columns[i].get(row);
+      }
+      dataFacts.add(new DataFact(elements));
+    }
+    return dataFacts;
+  }
+
+  @Override
+  public boolean mayProvide(String functor, int arity) {
+    return this.functor.equals(functor) && arity == this.columns.length;
+  }
+
+  @Override
+  public int unifyAndNotify(Struct<?> goal, Object[] pattern, UnifyContext currentVars) {
+    if (this.functor != goal.getName() || pattern.length != this.columns.length) { // Names are {@link String#intern()}alized
+      return CONTINUE;
+    }
+    final Object[] goalArgs = goal.getArgs();
+    final SolutionListener listener = currentVars.getSolutionListener();
+    final RowCursor cursor = cursor(pattern);
+    for (int row = cursor.next(); row >= 0; row = cursor.next()) {
+      UnifyContext afterUnification = currentVars;
+      for (int i = 0; i < goalArgs.length && afterUnification != null; i++) {
+        if (pattern[i] == null) {
+          afterUnification = afterUnification.unify(goalArgs[i], this.columns[i].get(row));
+        }
+      }
+      if (afterUnification != null) {
+        final int continuation = listener.onSolution(afterUnification);
+        if (continuation != CONTINUE) {
+          return continuation;
+        }
+      }
+    }
+    return CONTINUE;
+  }
+
+  /**
+   * @return Rows matching all bound values of pattern: the first bound column is looked up in its index,
+   * the others are compared
+   */
+  private RowCursor cursor(Object[] pattern) {
+    SegmentColumn indexed = null;
+    IntUnaryOperator indexedProbe = null;
+    final List<IntUnaryOperator> filters = new ArrayList<>();
+    for (int i = 0; i < pattern.length; i++) {
+      if (pattern[i] != null) {
+        final IntUnaryOperator probe = this.columns[i].probe(pattern[i]);
+        if (probe == null) {
+          // Value cannot be in that column
+          return new RowCursor(null, 0, 0, new IntUnaryOperator[0]);
+        }
+        if (indexed == null) {
+          indexed = this.columns[i];
+          indexedProbe = probe;
+        } else {
+          filters.add(probe);
+        }
+      }
+    }
+    final IntUnaryOperator[] theFilters = filters.toArray(new IntUnaryOperator[0]);
+    if (indexed == null) {
+      return new RowCursor(null, 0, this.rows, theFilters);
+    }
+    final int from = indexed.lowerBound(indexedProbe, this.rows, false);
+    final int to = indexed.lowerBound(indexedProbe, this.rows, true);
+    return new RowCursor(indexed.index, from, to, theFilters);
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  public String getFunctor() {
+    return functor;
+  }
+
+  public int arity() {
+    return this.columns.length;
+  }
+
+  public int size() {
+    return rows;
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + '(' + functor + '/' + columns.length + ", rows=" + rows + ')';
+  }
+
+  // ---------------------------------------------------------------------------
+  // Implementation
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Iterates positions [from, to) of an index (or rows directly when there is no index), keeping rows accepted by all filters.
+   */
+  private static final class RowCursor {
+    private final ByteBuffer index;
+    private final int to;
+    private final IntUnaryOperator[] filters;
+    private int position;
+
+    RowCursor(ByteBuffer index, int from, int to, IntUnaryOperator[] filters) {
+      this.index = index;
+      this.position = from;
+      this.to = to;
+      this.filters = filters;
+    }
+
+    /**
+     * @return Next matching row, or -1
+     */
+    int next() {
+      while (this.position < this.to) {
+        final int row = (this.index != null) ? this.index.getInt(this.position * Integer.BYTES) : this.position;
+        this.position++;
+        if (accept(row)) {
+          return row;
+        }
+      }
+      return -1;
+    }
+
+    private boolean accept(int row) {
+      for (IntUnaryOperator filter : this.filters) {
+        if (filter.applyAsInt(row) != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private abstract static class SegmentColumn {
+    final ByteBuffer data;
+    final ByteBuffer index;
+
+    SegmentColumn(ByteBuffer data, ByteBuffer index) {
+      this.data = data;
+      this.index = index;
+    }
+
+    /**
+     * @return The value of the row, boxed
+     */
+    abstract Object get(int row);
+
+    /**
+     * @return Comparison of the value of a row with value (negative, zero or positive), or null if value cannot be in this column
+     */
+    abstract IntUnaryOperator probe(Object value);
+
+    /**
+     * @param strict false for the first position in the index whose row is not less than the probed value,
+     *               true for the first one greater than it
+     */
+    int lowerBound(IntUnaryOperator probe, int rows, boolean strict) {
+      int low = 0;
+      int high = rows;
+      while (low < high) {
+        final int mid = (low + high) >>> 1;
+        final int comparison = probe.applyAsInt(this.index.getInt(mid * Integer.BYTES));
+        if (comparison < 0 || (strict && comparison == 0)) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+
+  private static final class IntSegmentColumn extends SegmentColumn {
+    IntSegmentColumn(ByteBuffer data, ByteBuffer index) {
+      super(data, index);
+    }
+
+    @Override
+    Object get(int row) {
+      return data.getInt(row * Integer.BYTES);
+    }
+
+    @Override
+    IntUnaryOperator probe(Object value) {
+      if (!(value instanceof Integer boxed)) {
+        return null;
+      }
+      final int expected = boxed;
+      return row -> Integer.compare(data.getInt(row * Integer.BYTES), expected);
+    }
+  }
+
+  private static final class LongSegmentColumn extends SegmentColumn {
+    LongSegmentColumn(ByteBuffer data, ByteBuffer index) {
+      super(data, index);
+    }
+
+    @Override
+    Object get(int row) {
+      return data.getLong(row * Long.BYTES);
+    }
+
+    @Override
+    IntUnaryOperator probe(Object value) {
+      if (!(value instanceof Long boxed)) {
+        return null;
+      }
+      final long expected = boxed;
+      return row -> Long.compare(data.getLong(row * Long.BYTES), expected);
+    }
+  }
+
+  private static final class DoubleSegmentColumn extends SegmentColumn {
+    DoubleSegmentColumn(ByteBuffer data, ByteBuffer index) {
+      super(data, index);
+    }
+
+    @Override
+    Object get(int row) {
+      return data.getDouble(row * Double.BYTES);
+    }
+
+    @Override
+    IntUnaryOperator probe(Object value) {
+      if (!(value instanceof Double boxed)) {
+        return null;
+      }
+      // Same order and equality as Double.equals()
+      final double expected = boxed;
+      return row -> Double.compare(data.getDouble(row * Double.BYTES), expected);
+    }
+  }
+
+  /**
+   * Codes into a dictionary of distinct Strings sorted by UTF-8 bytes; decoded Strings are cached on first access.
+   */
+  private static final class StringSegmentColumn extends SegmentColumn {
+    private final ByteBuffer dictionary;
+    private final int count;
+    private final int bytesStart;
+    private final String[] decoded;
+
+    StringSegmentColumn(ByteBuffer data, ByteBuffer index, ByteBuffer dictionary) {
+      super(data, index);
+      this.dictionary = dictionary;
+      this.count = dictionary.getInt(0);
+      this.bytesStart = Integer.BYTES * (this.count + 2);
+      this.decoded = new String[this.count];
+    }
+
+    @Override
+    Object get(int row) {
+      final int code = data.getInt(row * Integer.BYTES);
+      String value = decoded[code];
+      if (value == null) {
+        final byte[] bytes = new byte[entryEnd(code) - entryStart(code)];
+        dictionary.get(bytesStart + entryStart(code), bytes);
+        // Strings are internalized as in DataFact
+        value = new String(bytes, StandardCharsets.UTF_8).intern();
+        decoded[code] = value;
+      }
+      return value;
+    }
+
+    private int entryStart(int code) {
+      return dictionary.getInt(Integer.BYTES * (code + 1));
+    }
+
+    private int entryEnd(int code) {
+      return dictionary.getInt(Integer.BYTES * (code + 2));
+    }
+
+    @Override
+    IntUnaryOperator probe(Object value) {
+      if (!(value instanceof String string)) {
+        return null;
+      }
+      final int code = codeOf(string.getBytes(StandardCharsets.UTF_8));
+      if (code < 0) {
+        return null;
+      }
+      return row -> Integer.compare(data.getInt(row * Integer.BYTES), code);
+    }
+
+    /**
+     * @return Code of the String of these bytes by binary search in the dictionary, or -1
+     */
+    private int codeOf(byte[] bytes) {
+      int low = 0;
+      int high = count - 1;
+      while (low <= high) {
+        final int mid = (low + high) >>> 1;
+        final int comparison = compareEntry(mid, bytes);
+        if (comparison < 0) {
+          low = mid + 1;
+        } else if (comparison > 0) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -1;
+    }
+
+    private int compareEntry(int code, byte[] bytes) {
+      final int start = bytesStart + entryStart(code);
+      final int length = entryEnd(code) - entryStart(code);
+      final int common = Math.min(length, bytes.length);
+      for (int i = 0; i < common; i++) {
+        final int comparison = Byte.compareUnsigned(dictionary.get(start + i), bytes[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(length, bytes.length);
+    }
+  }
+
+}
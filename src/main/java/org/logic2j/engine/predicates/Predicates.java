@@ -23,17 +23,24 @@ import org.logic2j.engine.model.Var;
 import org.logic2j.engine.predicates.impl.Eq;
 import org.logic2j.engine.predicates.impl.Fail;
 import org.logic2j.engine.predicates.impl.True;
+import org.logic2j.engine.predicates.impl.firstorder.Aggregate;
 import org.logic2j.engine.predicates.impl.firstorder.Count;
+import org.logic2j.engine.predicates.impl.firstorder.CountAtLeast;
+import org.logic2j.engine.predicates.impl.firstorder.CountBetween;
 import org.logic2j.engine.predicates.impl.firstorder.Exists;
+import org.logic2j.engine.predicates.impl.firstorder.GroupBy;
 import org.logic2j.engine.predicates.impl.firstorder.Not;
+import org.logic2j.engine.predicates.impl.firstorder.Tabled;
 import org.logic2j.engine.predicates.impl.math.Pred1Tester;
 import org.logic2j.engine.predicates.impl.math.Pred2;
 import org.logic2j.engine.predicates.internal.And;
 import org.logic2j.engine.predicates.internal.Cut;
 import org.logic2j.engine.predicates.internal.Or;
+import org.logic2j.engine.solver.listener.Accumulator;
 
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import static org.logic2j.engine.model.SimpleBindings.bind;
 
@@ -99,10 +106,46 @@ public final class Predicates {
     return new Count(term, bind(number));
   }
 
+  public static CountAtLeast countAtLeast(Term term, Integer min) {
+    return new CountAtLeast(term, bind(min));
+  }
+
+  public static CountBetween countBetween(Term term, Integer min, Integer max) {
+    return new CountBetween(term, bind(min), bind(max));
+  }
+
+  public static Aggregate sum(Term term, Binding<?> value, Binding<?> result) {
+    return new Aggregate("sum", Accumulator::sum, term, value, result);
+  }
+
+  public static Aggregate min(Term term, Binding<?> value, Binding<?> result) {
+    return new Aggregate("min", Accumulator::min, term, value, result);
+  }
+
+  public static Aggregate max(Term term, Binding<?> value, Binding<?> result) {
+    return new Aggregate("max", Accumulator::max, term, value, result);
+  }
+
+  public static Aggregate avg(Term term, Binding<?> value, Binding<Double> result) {
+    return new Aggregate("avg", Accumulator::avg, term, value, result);
+  }
+
+  public static Aggregate collect(Term term, Binding<?> value, Binding<?> result) {
+    return new Aggregate("collect", Accumulator::collect, term, value, result);
+  }
+
+  public static GroupBy groupBy(Term term, Binding<?> key, Binding<?> value, Supplier<Accumulator> aggregation, Binding<?> result) {
+    return new GroupBy(term, key, value, aggregation, result);
+  }
+
   public static Not not(Term term) {
     return new Not(term);
   }
 
+  public static Tabled tabled(Term term) {
+    return new Tabled(term);
+  }
+
   public static <T> Eq eq(Binding<T> t1, Binding<T> t2) {
     return new Eq(t1, t2);
   }
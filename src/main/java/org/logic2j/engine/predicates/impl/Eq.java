@@ -21,14 +21,16 @@ import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.model.Term;
 import org.logic2j.engine.predicates.external.RDBEqualityPredicate;
 import org.logic2j.engine.predicates.impl.math.Pred2;
+import org.logic2j.engine.solver.table.PurePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 
+import java.util.Set;
 import java.util.function.Function;
 
 /**
  * Unification operator "=", used for testing or setting values.
  */
-public class Eq<T> extends Pred2<T, T> implements RDBEqualityPredicate {
+public class Eq<T> extends Pred2<T, T> implements RDBEqualityPredicate, PurePredicate {
   public Eq(Binding<T> t1, Binding<T> t2) {
     super("=", t1, t2);
     setImage(Function.identity());
@@ -51,4 +53,13 @@ public class Eq<T> extends Pred2<T, T> implements RDBEqualityPredicate {
     return super.unification(currentVars, n0, n1);
   }
 
+  @Override
+  protected int domainUnification(UnifyContext currentVars, Object n0, Object n1, Set<Object> domain0, Set<Object> domain1) {
+    if (isFreeVar(n0) && isFreeVar(n1)) {
+      // Binding two vars intersects their domains, no need to enumerate
+      return unifyAndNotify(currentVars, n0, n1);
+    }
+    return super.domainUnification(currentVars, n0, n1, domain0, domain1);
+  }
+
 }
@@ -23,6 +23,7 @@ import static org.logic2j.engine.model.TermApiLocator.termApi;
 import static org.logic2j.engine.solver.Continuation.CONTINUE;
 
 import java.util.Arrays;
+import java.util.Collection;
 import org.logic2j.engine.exception.InvalidTermException;
 import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.model.Constant;
@@ -157,6 +158,21 @@ public abstract class FOPredicate extends Struct {
   }
 
 
+  /**
+   * Restrict the domain of a variable to values, see {@link UnifyContext#restrictDomain(Var, Collection)}, and notify the
+   * solution if any value remains. This is how a {@link org.logic2j.engine.solver.SetAwarePredicate} filters a domain at once.
+   *
+   * @param currentVars
+   * @param var    A free var, typically having a domain
+   * @param values The values of var that satisfy the predicate
+   * @return The result of {@link #notifySolution(UnifyContext)} if any value remains, otherwise CONTINUE.
+   */
+  protected int restrictAndNotify(UnifyContext currentVars, Object var, Collection<?> values) {
+    final UnifyContext restricted = currentVars.restrictDomain((Var<?>) var, values);
+    return notifySolutionIf(restricted != null, restricted);
+  }
+
+
   // --------------------------------------------------------------------------
   // Support methods to help writing predicates
   // --------------------------------------------------------------------------
@@ -251,6 +267,19 @@ public abstract class FOPredicate extends Struct {
     return singletonList((Q) value);
   }
 
+  /**
+   * Value of an argument for predicates that work on scalars: a var is only dereferenced, see
+   * {@link UnifyContext#dereference(Object)}; only a structure still needs to be fully reified.
+   *
+   * @param currentVars
+   * @param argIndex
+   * @return The value of the argument
+   */
+  protected Object scalarArg(UnifyContext currentVars, int argIndex) {
+    final Object value = currentVars.dereference(getArg(argIndex));
+    return (value instanceof Struct<?>) ? currentVars.reify(value) : value;
+  }
+
   /**
    * @param reified Result of {@link UnifyContext#reify(Object)}
    * @return true if reified is not a free {@link Var}, including true when reified is null
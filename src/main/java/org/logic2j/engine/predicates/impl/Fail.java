@@ -18,6 +18,7 @@
 package org.logic2j.engine.predicates.impl;
 
 import org.logic2j.engine.predicates.external.RDBCompatiblePredicate;
+import org.logic2j.engine.solver.table.PurePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 
 import static org.logic2j.engine.solver.Continuation.CONTINUE;
@@ -25,7 +26,7 @@ import static org.logic2j.engine.solver.Continuation.CONTINUE;
 /**
  * Always fail - no solution.
  */
-public class Fail extends FOPredicate implements RDBCompatiblePredicate {
+public class Fail extends FOPredicate implements RDBCompatiblePredicate, PurePredicate {
   public Fail() {
     super("fail");
   }
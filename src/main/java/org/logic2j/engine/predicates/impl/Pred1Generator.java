@@ -25,12 +25,14 @@ import static org.logic2j.engine.solver.Continuation.CONTINUE;
 import org.logic2j.engine.exception.SolverException;
 import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.model.Constant;
+import org.logic2j.engine.solver.SetAwarePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 
 /**
  * Unify one value from a {@link Constant}.
+ * A variable with a domain is restricted to the allowed values, instead of being unified with each.
  */
-public abstract class Pred1Generator<T> extends FOPredicate {
+public abstract class Pred1Generator<T> extends FOPredicate implements SetAwarePredicate {
 
   private final Constant<T> allowedValues;
 
@@ -46,9 +48,12 @@ public abstract class Pred1Generator<T> extends FOPredicate {
 
   @Override
   public int predicateLogic(UnifyContext currentVars) {
-    final Object reified = currentVars.reify(getArg(0));
+    final Object reified = scalarArg(currentVars, 0);
     if (isFreeVar(reified)) {
       // Still a free var, we will attempt to read values from the getter and provide bindings
+      if (allowedValues != null && currentVars.domainOf(reified) != null) {
+        return restrictAndNotify(currentVars, reified, allowedValues.toList());
+      }
 
       if (allowedValues != null) {
         return unifyAndNotify(currentVars, reified, allowedValues);
@@ -18,12 +18,13 @@
 package org.logic2j.engine.predicates.impl;
 
 import org.logic2j.engine.predicates.external.RDBCompatiblePredicate;
+import org.logic2j.engine.solver.table.PurePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 
 /**
  * Always succeeds, provides one solution but does not bind any variables.
  */
-public class True extends FOUniqueSolutionPredicate implements RDBCompatiblePredicate {
+public class True extends FOUniqueSolutionPredicate implements RDBCompatiblePredicate, PurePredicate {
   public True() {
     super("true");
   }
@@ -0,0 +1,66 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.predicates.impl.firstorder;
+
+import org.logic2j.engine.model.Binding;
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.solver.listener.AccumulatingSolutionListener;
+import org.logic2j.engine.solver.listener.Accumulator;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.function.Supplier;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+/**
+ * Succeeds if the aggregation of the values of the second argument, over all solutions to the first-argument goal,
+ * unifies with the third argument. The solutions are folded as they are produced, they are not collected.
+ * Aggregations without meaningful result on no solutions (min, max, avg) then fail.
+ * See factories sum(), min(), max(), avg() and collect() in {@link org.logic2j.engine.predicates.Predicates}.
+ */
+public class Aggregate extends FOPredicate {
+
+  private final Supplier<Accumulator> accumulatorFactory;
+
+  /**
+   * @param theFunctor         Name of the aggregation, such as "sum"
+   * @param accumulatorFactory Creates a new {@link Accumulator} for each invocation
+   * @param theGoal            The goal to solve
+   * @param value              The term whose values are aggregated, usually a var of the goal
+   * @param result             The aggregated value
+   */
+  public Aggregate(String theFunctor, Supplier<Accumulator> accumulatorFactory, Term theGoal, Binding<?> value, Binding<?> result) {
+    super(theFunctor, theGoal, value, result);
+    this.accumulatorFactory = accumulatorFactory;
+  }
+
+  @Override
+  public int predicateLogic(UnifyContext currentVars) {
+    final AccumulatingSolutionListener listener = new AccumulatingSolutionListener(getArg(1), accumulatorFactory.get());
+    currentVars.getSolver().solveGoal(getArg(0), currentVars.withListener(listener));
+
+    final Accumulator accumulator = listener.getAccumulator();
+    if (accumulator.isUndefined()) {
+      return CONTINUE;
+    }
+    return unifyAndNotify(currentVars, accumulator.result(), getArg(2));
+  }
+
+}
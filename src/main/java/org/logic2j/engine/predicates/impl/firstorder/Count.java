@@ -18,18 +18,22 @@
 package org.logic2j.engine.predicates.impl.firstorder;
 
 import org.logic2j.engine.model.Binding;
+import org.logic2j.engine.model.Constant;
 import org.logic2j.engine.model.Term;
 import org.logic2j.engine.predicates.external.RDBCompatiblePredicate;
 import org.logic2j.engine.predicates.impl.FOPredicate;
 import org.logic2j.engine.solver.Solver;
 import org.logic2j.engine.solver.listener.CountingSolutionListener;
+import org.logic2j.engine.solver.table.PurePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 
 /**
  * Succeeds if the specified first-argument goal admits a number of
  * solutions that unifies with the second argument.
+ * When the second argument is bound, enumeration stops as soon as the count exceeds the largest
+ * value it may unify with, see also {@link CountAtLeast} and {@link CountBetween}.
  */
-public class Count extends FOPredicate implements RDBCompatiblePredicate {
+public class Count extends FOPredicate implements RDBCompatiblePredicate, PurePredicate {
 
   public Count(Term theGoal, Binding<Integer> nbSolutions) {
     super("count", theGoal, nbSolutions);
@@ -38,8 +42,9 @@ public class Count extends FOPredicate implements RDBCompatiblePredicate {
   @Override
   public int predicateLogic(UnifyContext currentVars) {
 
-    // Solve against a minimal SolutionListener that counts all solutions to the last.
-    final CountingSolutionListener countingListener = new CountingSolutionListener();
+    // Solve against a minimal SolutionListener that counts all solutions to the last, or up to one more
+    // than the bound value - the count would then never unify.
+    final CountingSolutionListener countingListener = new CountingSolutionListener(countLimit(scalarArg(currentVars, 1)));
     final Solver solver = currentVars.getSolver();
     solver.solveGoal(getArg(0), currentVars.withListener(countingListener));
 
@@ -47,5 +52,26 @@ public class Count extends FOPredicate implements RDBCompatiblePredicate {
     return unifyAndNotify(currentVars, nbr, getArg(1));
   }
 
+  /**
+   * @param expected Value of the second argument
+   * @return Number of solutions after which counting can stop, or Long.MAX_VALUE to count them all
+   */
+  private static long countLimit(Object expected) {
+    if (expected instanceof Constant<?> constant) {
+      long max = -1;
+      for (Object value : constant.toList()) {
+        if (!(value instanceof Number number)) {
+          return Long.MAX_VALUE;
+        }
+        max = Math.max(max, number.longValue());
+      }
+      return max < Long.MAX_VALUE ? max + 1 : Long.MAX_VALUE;
+    }
+    if (expected instanceof Number number) {
+      return Math.max(number.longValue(), 0) + 1;
+    }
+    return Long.MAX_VALUE;
+  }
+
 
 }
@@ -0,0 +1,54 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.predicates.impl.firstorder;
+
+import org.logic2j.engine.model.Binding;
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.predicates.external.RDBCompatiblePredicate;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.solver.listener.CountingSolutionListener;
+import org.logic2j.engine.solver.table.PurePredicate;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * Succeeds if the specified first-argument goal admits at least the number of solutions
+ * specified by the second argument, which must be bound.
+ * Enumeration of the goal stops as soon as that number is reached.
+ */
+public class CountAtLeast extends FOPredicate implements RDBCompatiblePredicate, PurePredicate {
+
+  public CountAtLeast(Term theGoal, Binding<Integer> minSolutions) {
+    super("countAtLeast", theGoal, minSolutions);
+  }
+
+  @Override
+  public int predicateLogic(UnifyContext currentVars) {
+    final Object minValue = scalarArg(currentVars, 1);
+    ensureBindingIsNotAFreeVar(minValue, 1);
+    final int min = toInt(minValue);
+    if (min <= 0) {
+      return notifySolution(currentVars);
+    }
+
+    final CountingSolutionListener countingListener = new CountingSolutionListener(min);
+    currentVars.getSolver().solveGoal(getArg(0), currentVars.withListener(countingListener));
+    return notifySolutionIf(countingListener.count() >= min, currentVars);
+  }
+
+}
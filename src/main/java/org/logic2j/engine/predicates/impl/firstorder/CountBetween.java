@@ -0,0 +1,58 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.predicates.impl.firstorder;
+
+import org.logic2j.engine.model.Binding;
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.predicates.external.RDBCompatiblePredicate;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.solver.listener.CountingSolutionListener;
+import org.logic2j.engine.solver.table.PurePredicate;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * Succeeds if the number of solutions of the specified first-argument goal is within the
+ * second and third arguments (inclusive), which must be bound.
+ * Enumeration of the goal stops as soon as the upper bound is exceeded.
+ */
+public class CountBetween extends FOPredicate implements RDBCompatiblePredicate, PurePredicate {
+
+  public CountBetween(Term theGoal, Binding<Integer> minSolutions, Binding<Integer> maxSolutions) {
+    super("countBetween", theGoal, minSolutions, maxSolutions);
+  }
+
+  @Override
+  public int predicateLogic(UnifyContext currentVars) {
+    final Object minValue = scalarArg(currentVars, 1);
+    ensureBindingIsNotAFreeVar(minValue, 1);
+    final Object maxValue = scalarArg(currentVars, 2);
+    ensureBindingIsNotAFreeVar(maxValue, 2);
+    final int min = toInt(minValue);
+    final int max = toInt(maxValue);
+    if (max < min || max < 0) {
+      return notifySolutionIf(false, currentVars);
+    }
+
+    final CountingSolutionListener countingListener = new CountingSolutionListener(max + 1L);
+    currentVars.getSolver().solveGoal(getArg(0), currentVars.withListener(countingListener));
+    final int nbr = countingListener.count();
+    return notifySolutionIf(nbr >= min && nbr <= max, currentVars);
+  }
+
+}
@@ -24,6 +24,7 @@ import org.logic2j.engine.predicates.external.RDBCompatiblePredicate;
 import org.logic2j.engine.predicates.impl.FOPredicate;
 import org.logic2j.engine.solver.Solver;
 import org.logic2j.engine.solver.listener.ExistsSolutionListener;
+import org.logic2j.engine.solver.table.PurePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 
 /**
@@ -33,7 +34,7 @@ import org.logic2j.engine.unify.UnifyContext;
  * In the 2-arity form, will expect a bound boolean value and prove existence if true or prove inexistence in
  * false, or if the second argument is free, will bind the result of the demonstration.
  */
-public class Exists extends FOPredicate implements RDBCompatiblePredicate {
+public class Exists extends FOPredicate implements RDBCompatiblePredicate, PurePredicate {
 
   /**
    * Succeeds if theGoal provides at least one solution.
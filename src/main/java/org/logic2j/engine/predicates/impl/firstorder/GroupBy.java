@@ -0,0 +1,78 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.predicates.impl.firstorder;
+
+import org.logic2j.engine.model.Binding;
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.solver.listener.Accumulator;
+import org.logic2j.engine.solver.listener.GroupingSolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+/**
+ * Aggregation of the values of the third argument per distinct value of the second argument (the key),
+ * over all solutions to the first-argument goal.
+ * Produces one solution per group, in order of first occurrence of the key, where the key and the
+ * aggregated value unify with the second and the fourth argument.
+ * The solutions to the goal are folded as they are produced, only one {@link Accumulator} per group is kept.
+ */
+public class GroupBy extends FOPredicate {
+
+  private final Supplier<Accumulator> accumulatorFactory;
+
+  /**
+   * @param theGoal            The goal to solve
+   * @param key                The term identifying the group, usually a var of the goal
+   * @param value              The term whose values are aggregated, usually a var of the goal
+   * @param accumulatorFactory Creates a new {@link Accumulator} for each group
+   * @param result             The aggregated value of each group
+   */
+  public GroupBy(Term theGoal, Binding<?> key, Binding<?> value, Supplier<Accumulator> accumulatorFactory, Binding<?> result) {
+    super("groupBy", theGoal, key, value, result);
+    this.accumulatorFactory = accumulatorFactory;
+  }
+
+  @Override
+  public int predicateLogic(UnifyContext currentVars) {
+    final GroupingSolutionListener listener = new GroupingSolutionListener(getArg(1), getArg(2), accumulatorFactory);
+    currentVars.getSolver().solveGoal(getArg(0), currentVars.withListener(listener));
+
+    for (Map.Entry<Object, Accumulator> group : listener.getGroups().entrySet()) {
+      final Accumulator accumulator = group.getValue();
+      if (accumulator.isUndefined()) {
+        continue;
+      }
+      final UnifyContext afterKey = currentVars.unify(group.getKey(), getArg(1));
+      if (afterKey == null) {
+        continue;
+      }
+      final int continuation = unifyAndNotify(afterKey, accumulator.result(), getArg(3));
+      if (continuation != CONTINUE) {
+        return continuation;
+      }
+    }
+    return CONTINUE;
+  }
+
+}
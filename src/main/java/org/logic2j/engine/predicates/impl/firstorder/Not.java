@@ -22,6 +22,7 @@ import org.logic2j.engine.predicates.external.RDBCompatiblePredicate;
 import org.logic2j.engine.predicates.impl.FOPredicate;
 import org.logic2j.engine.solver.Solver;
 import org.logic2j.engine.solver.listener.ExistsSolutionListener;
+import org.logic2j.engine.solver.table.PurePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 
 /**
@@ -29,7 +30,7 @@ import org.logic2j.engine.unify.UnifyContext;
  * the specified goal provides at least one solution (and none other is sought).
  * This actually means "Not exists".
  */
-public class Not extends FOPredicate implements RDBCompatiblePredicate {
+public class Not extends FOPredicate implements RDBCompatiblePredicate, PurePredicate {
   public static final String FUNCTOR = "\\+";
 
   public Not(Term theGoal) {
@@ -0,0 +1,51 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.predicates.impl.firstorder;
+
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.table.AnswerTable;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * Solve the specified goal through the {@link AnswerTable} of the current solving: repeated invocations
+ * with a variant of the same goal (e.g. exists() or not() in several branches) are answered from the table.
+ * The goal must be free of side effects and have a finite number of solutions, see
+ * {@link org.logic2j.engine.solver.table.TabledPredicate}.
+ * When tabling is disabled on the {@link Solver}, the goal is solved normally.
+ */
+public class Tabled extends FOPredicate {
+
+  public Tabled(Term theGoal) {
+    super("tabled", theGoal);
+  }
+
+  @Override
+  public int predicateLogic(UnifyContext currentVars) {
+    final Object goal = getArg(0);
+    final Solver solver = currentVars.getSolver();
+    final AnswerTable table = currentVars.getAnswerTable();
+    if (table == null) {
+      return solver.solveGoal(goal, currentVars);
+    }
+    return table.solve(goal, currentVars, context -> solver.solveGoal(goal, context));
+  }
+
+}
@@ -22,11 +22,12 @@ import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.model.SimpleBindings;
 import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.predicates.impl.Pred1Generator;
+import org.logic2j.engine.solver.table.PurePredicate;
 
 /**
  * Generate digits
  */
-public class Digit extends Pred1Generator<Integer> {
+public class Digit extends Pred1Generator<Integer> implements PurePredicate {
 
   public Digit(Binding<Integer> term) {
     super("digit", term, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
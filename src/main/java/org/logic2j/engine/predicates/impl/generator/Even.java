@@ -20,13 +20,14 @@ package org.logic2j.engine.predicates.impl.generator;
 
 import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.predicates.impl.Pred1Generator;
+import org.logic2j.engine.solver.table.PurePredicate;
 
 import static org.logic2j.engine.model.SimpleBindings.bind;
 
 /**
  * Generate digits
  */
-public class Even extends Pred1Generator<Integer> {
+public class Even extends Pred1Generator<Integer> implements PurePredicate {
 
   public Even(Binding<Integer> term) {
     super("even", term, 0, 2, 4, 6, 8);
@@ -20,11 +20,15 @@ package org.logic2j.engine.predicates.impl.generator;
 
 import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.solver.SetAwarePredicate;
+import org.logic2j.engine.solver.table.PurePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -33,8 +37,9 @@ import static org.logic2j.engine.solver.Continuation.CONTINUE;
 
 /**
  * IntRange(min, middle, max) is true when min <= middle < max.
+ * A middle variable with a domain is restricted at once to the values within range.
  */
-public class IntRange extends FOPredicate {
+public class IntRange extends FOPredicate implements PurePredicate, SetAwarePredicate {
   private static final Logger logger = LoggerFactory.getLogger(IntRange.class);
 
   public IntRange(Binding<Integer> min, final Binding<Integer> middle, Binding<Integer> max) {
@@ -48,20 +53,34 @@ public class IntRange extends FOPredicate {
 
   @Override
   public int predicateLogic(UnifyContext currentVars) {
-    final Object minBound = currentVars.reify(getArg(0));
-    final Object iterating = currentVars.reify(getArg(1));
-    final Object maxBound = currentVars.reify(getArg(2));
+    final Object minBound = currentVars.dereference(getArg(0));
+    final Object iterating = currentVars.dereference(getArg(1));
+    final Object maxBound = currentVars.dereference(getArg(2));
 
+    if (currentVars.domainOf(minBound) != null || currentVars.domainOf(maxBound) != null) {
+      // Bounds are needed as scalars
+      return currentVars.fanOutDomains(minBound, minVars -> minVars.fanOutDomains(maxBound, this::predicateLogic));
+    }
     ensureBindingIsNotAFreeVar(minBound, 0);
     ensureBindingIsNotAFreeVar(maxBound, 2);
 
     final int min = toInt(minBound);
     final int max = toInt(maxBound);
 
+    final Set<Object> domain = currentVars.domainOf(iterating);
+    if (domain != null) {
+      final List<Object> inRange = new ArrayList<>();
+      for (Object val : domain) {
+        if (val instanceof Number number && min <= number.intValue() && number.intValue() < max) {
+          inRange.add(val);
+        }
+      }
+      return restrictAndNotify(currentVars, iterating, inRange);
+    }
     if (isFreeVar(iterating)) {
-      final List<Integer> values = IntStream.range(min, max).boxed().collect(Collectors.toList());
-
-      logger.debug("{} is going to notify solutions: {}", this, values);
+      if (logger.isDebugEnabled()) {
+        logger.debug("{} is going to notify solutions: {}", this, IntStream.range(min, max).boxed().collect(Collectors.toList()));
+      }
       for (int increment = min; increment < max; increment++) {
         final int cont = unifyAndNotify(currentVars, iterating, increment);
         if (cont != CONTINUE) {
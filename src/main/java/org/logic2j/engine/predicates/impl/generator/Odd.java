@@ -20,11 +20,12 @@ package org.logic2j.engine.predicates.impl.generator;
 
 import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.predicates.impl.Pred1Generator;
+import org.logic2j.engine.solver.table.PurePredicate;
 
 /**
  * Generate digits
  */
-public class Odd extends Pred1Generator<Integer> {
+public class Odd extends Pred1Generator<Integer> implements PurePredicate {
 
   public Odd(Binding<Integer> term) {
     super("odd", term, 1, 3, 5, 7, 9);
@@ -22,9 +22,7 @@ import org.logic2j.engine.unify.UnifyContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * Logging.
@@ -57,8 +55,14 @@ public class Log extends FOUniqueSolutionPredicate {
   @Override
   public void sideEffect(UnifyContext currentVars) {
     if (getArity() > 0) {
-      final String str = Arrays.stream(getArgs()).map(currentVars::reify).map(String::valueOf).collect(Collectors.joining(" "));
-      loggingMethod.accept(str);
+      final StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < getArity(); i++) {
+        if (i > 0) {
+          sb.append(' ');
+        }
+        sb.append(currentVars.reify(getArg(i)));
+      }
+      loggingMethod.accept(sb.toString());
     } else {
       // No argument to log
       loggingMethod.accept("");
@@ -19,17 +19,22 @@ package org.logic2j.engine.predicates.impl.math;
 
 import static org.logic2j.engine.solver.Continuation.CONTINUE;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.solver.SetAwarePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 
 /**
  * 1-arguments first-order predicates with a java testing (predicate) function.
  * Can only test constants or variable with value(s), cannot generate data
  * into free variables. For that use {@link org.logic2j.engine.predicates.impl.Pred1Generator}.
+ * A variable with a domain is tested for all its values at once, and restricted to those that pass.
  */
-public class Pred1Tester<T> extends FOPredicate {
+public class Pred1Tester<T> extends FOPredicate implements SetAwarePredicate {
 
   private Predicate<T> test = v -> {
     throw new UnsupportedOperationException("Predicate \"test()\" of " + Pred1Tester.this + " was not defined");
@@ -47,7 +52,18 @@ public class Pred1Tester<T> extends FOPredicate {
 
   @Override
   public final int predicateLogic(UnifyContext currentVars) {
-    final Iterable<T> iter = this.toIterable(currentVars.reify(getArg(0)));
+    final Object value = scalarArg(currentVars, 0);
+    final Set<Object> domain = currentVars.domainOf(value);
+    if (domain != null) {
+      final List<Object> passing = new ArrayList<>();
+      for (Object c0 : domain) {
+        if (testValue(c0)) {
+          passing.add(c0);
+        }
+      }
+      return restrictAndNotify(currentVars, value, passing);
+    }
+    final Iterable<T> iter = this.toIterable(value);
 
     if (iter != null) {
       for (T c0 : iter) {
@@ -64,6 +80,11 @@ public class Pred1Tester<T> extends FOPredicate {
 
   }
 
+  @SuppressWarnings("unchecked") // Values in the domain of the argument are of type T, that of its Binding<T>
+  private boolean testValue(Object value) {
+    return this.test.test((T) value);
+  }
+
   // --------------------------------------------------------------------------
   // Fluent setters
   // --------------------------------------------------------------------------
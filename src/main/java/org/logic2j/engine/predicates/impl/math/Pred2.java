@@ -23,18 +23,23 @@ import static org.logic2j.engine.solver.Continuation.CONTINUE;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.model.Term;
 import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.solver.SetAwarePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 
 /**
  * 2-arguments predicates with a functional relation between the two argument(s),
  * could be a bijection (with 2 functions), or any mapping actually.
+ * When one argument is a variable with a domain and the other is bound, the domain is restricted at once,
+ * see {@link #domainUnification(UnifyContext, Object, Object, Set, Set)}.
  */
-public class Pred2<T, R> extends FOPredicate {
+public class Pred2<T, R> extends FOPredicate implements SetAwarePredicate {
 
   private Function<T, R> image = v -> {
     throw new UnsupportedOperationException("Function \"image()\" of " + Pred2.this + " was not defined");
@@ -65,8 +70,8 @@ public class Pred2<T, R> extends FOPredicate {
 
   @Override
   public final int predicateLogic(UnifyContext currentVars) {
-    final Object n0 = currentVars.reify(getArg(0));
-    final Object n1 = currentVars.reify(getArg(1));
+    final Object n0 = scalarArg(currentVars, 0);
+    final Object n1 = scalarArg(currentVars, 1);
 
     if (this.image == null && isFreeVar(n1)) {
       // If function is not defined, won't need to find solution(s) for image
@@ -78,9 +83,73 @@ public class Pred2<T, R> extends FOPredicate {
       return CONTINUE;
     }
 
+    final Set<Object> domain0 = currentVars.domainOf(n0);
+    final Set<Object> domain1 = currentVars.domainOf(n1);
+    if (domain0 != null || domain1 != null) {
+      return domainUnification(currentVars, n0, n1, domain0, domain1);
+    }
     return unification(currentVars, n0, n1);
   }
 
+  /**
+   * Unification when at least one argument is a variable with a domain. A domain is restricted at once when the other
+   * argument is bound; otherwise the values of one domain are enumerated, since each may have different images.
+   *
+   * @param currentVars
+   * @param n0
+   * @param n1
+   * @param domain0 Domain of n0, or null
+   * @param domain1 Domain of n1, or null
+   * @return The continuation
+   */
+  protected int domainUnification(UnifyContext currentVars, Object n0, Object n1, Set<Object> domain0, Set<Object> domain1) {
+    if (domain0 != null) {
+      if (domain1 != null || isFreeVar(n1)) {
+        return currentVars.fanOutDomains(n0, this::predicateLogic);
+      }
+      // Keep the values of n0 having an image in n1
+      final Set<Object> targets = toSet(n1);
+      final List<Object> kept = new ArrayList<>();
+      for (Object c0 : domain0) {
+        for (R image : imagesOf(c0)) {
+          if (targets.contains(image)) {
+            kept.add(c0);
+            break;
+          }
+        }
+      }
+      return restrictAndNotify(currentVars, n0, kept);
+    }
+    if (isFreeVar(n0)) {
+      return currentVars.fanOutDomains(n1, this::predicateLogic);
+    }
+    // Keep the values of n1 that are images of n0
+    final Set<Object> images = new HashSet<>();
+    for (T c0 : this.<T>toIterable(n0)) {
+      Collections.addAll(images, this.images.apply(c0));
+    }
+    final List<Object> kept = new ArrayList<>();
+    for (Object c1 : domain1) {
+      if (images.contains(c1)) {
+        kept.add(c1);
+      }
+    }
+    return restrictAndNotify(currentVars, n1, kept);
+  }
+
+  private Set<Object> toSet(Object value) {
+    final Set<Object> set = new HashSet<>();
+    for (Object element : this.toIterable(value)) {
+      set.add(element);
+    }
+    return set;
+  }
+
+  @SuppressWarnings("unchecked") // Values in the domain of the first argument are of type T, that of its Binding<T>
+  private R[] imagesOf(Object value) {
+    return this.images.apply((T) value);
+  }
+
   protected int unification(UnifyContext currentVars, Object n0, Object n1) {
     final Iterable<T> iter0 = this.toIterable(n0);
     final Iterable<R> iter1 = this.toIterable(n1);
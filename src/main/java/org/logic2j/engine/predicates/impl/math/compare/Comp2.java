@@ -19,17 +19,24 @@ package org.logic2j.engine.predicates.impl.math.compare;
 
 import static org.logic2j.engine.solver.Continuation.CONTINUE;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.function.BiFunction;
 import org.logic2j.engine.exception.SolverException;
 import org.logic2j.engine.model.Binding;
+import org.logic2j.engine.model.Constant;
 import org.logic2j.engine.predicates.external.RDBComparisonPredicate;
 import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.solver.SetAwarePredicate;
+import org.logic2j.engine.solver.table.PurePredicate;
 import org.logic2j.engine.unify.UnifyContext;
 
 /**
  * 2-arguments comparison.
+ * A variable with a domain compared to a bound value is restricted at once to the values that satisfy the comparison.
  */
-public abstract class Comp2<T> extends FOPredicate implements RDBComparisonPredicate {
+public abstract class Comp2<T> extends FOPredicate implements RDBComparisonPredicate, PurePredicate, SetAwarePredicate {
 
   private BiFunction<T, T, Boolean> check = (v0, v1) -> {
     throw new UnsupportedOperationException("Function \"check()\" of " + Comp2.this + " was not defined");
@@ -46,11 +53,29 @@ public abstract class Comp2<T> extends FOPredicate implements RDBComparisonPredi
 
   @Override
   public final int predicateLogic(UnifyContext currentVars) {
-    final Object n0 = currentVars.reify(getArg(0));
-    final Object n1 = currentVars.reify(getArg(1));
+    final Object n0 = scalarArg(currentVars, 0);
+    final Object n1 = scalarArg(currentVars, 1);
+
+    final Set<Object> domain0 = currentVars.domainOf(n0);
+    final Set<Object> domain1 = currentVars.domainOf(n1);
+    if (domain0 != null && domain1 != null) {
+      return currentVars.fanOutDomains(n0, this::predicateLogic);
+    }
+    if (domain0 != null) {
+      ensureBindingIsNotAFreeVar(n1, 1);
+      return restrictAndNotify(currentVars, n0, satisfying(domain0, n1, false));
+    }
+    if (domain1 != null) {
+      ensureBindingIsNotAFreeVar(n0, 0);
+      return restrictAndNotify(currentVars, n1, satisfying(domain1, n0, true));
+    }
 
     ensureBindingIsNotAFreeVar(n0, 0);
     ensureBindingIsNotAFreeVar(n1, 1);
+    if (!(n0 instanceof Constant) && !(n1 instanceof Constant)) {
+      // Two scalars: compare them directly, no need to iterate
+      return notifySolutionIf(checkValues(n0, n1), currentVars);
+    }
 
     final Iterable<T> iter0 = this.toIterable(n0);
     final Iterable<T> iter1 = this.toIterable(n1);
@@ -79,6 +104,34 @@ public abstract class Comp2<T> extends FOPredicate implements RDBComparisonPredi
     throw new SolverException("Should not be here we require bound vars");
   }
 
+  /**
+   * Apply the check to values bound to the arguments.
+   */
+  @SuppressWarnings("unchecked") // Values bound to the arguments are of type T, that of their Binding<T>
+  private boolean checkValues(Object v0, Object v1) {
+    return check.apply((T) v0, (T) v1);
+  }
+
+  /**
+   * @param domain
+   * @param other    The bound argument
+   * @param reversed True if the domain is that of the second argument
+   * @return The values of domain that satisfy the comparison with any value of other
+   */
+  private List<Object> satisfying(Set<Object> domain, Object other, boolean reversed) {
+    final Iterable<T> others = this.toIterable(other);
+    final List<Object> result = new ArrayList<>();
+    for (Object value : domain) {
+      for (T o : others) {
+        if (reversed ? checkValues(o, value) : checkValues(value, o)) {
+          result.add(value);
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
   // --------------------------------------------------------------------------
   // Fluent setters
   // --------------------------------------------------------------------------
@@ -19,11 +19,12 @@ package org.logic2j.engine.predicates.impl.math.function;
 
 import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.predicates.impl.math.Pred2;
+import org.logic2j.engine.solver.table.PurePredicate;
 
 /**
  * Absolute value. Interesting because this is not a bijection.
  */
-public class Abs<T extends Number> extends Pred2<T, T> {
+public class Abs<T extends Number> extends Pred2<T, T> implements PurePredicate {
 
   private static final String PREDICATE_NAME = "abs";
 
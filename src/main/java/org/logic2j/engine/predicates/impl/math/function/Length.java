@@ -20,11 +20,12 @@ package org.logic2j.engine.predicates.impl.math.function;
 import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.predicates.external.RDBFunctionPredicate;
 import org.logic2j.engine.predicates.impl.math.Pred2;
+import org.logic2j.engine.solver.table.PurePredicate;
 
 /**
  * Length of a character sequence.
  */
-public class Length<T extends CharSequence, R extends Number> extends Pred2<T, R> implements RDBFunctionPredicate {
+public class Length<T extends CharSequence, R extends Number> extends Pred2<T, R> implements RDBFunctionPredicate, PurePredicate {
   private static final String PREDICATE_NAME = "length";
 
 
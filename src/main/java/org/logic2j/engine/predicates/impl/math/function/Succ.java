@@ -20,13 +20,14 @@ package org.logic2j.engine.predicates.impl.math.function;
 import org.logic2j.engine.model.Binding;
 import org.logic2j.engine.model.Var;
 import org.logic2j.engine.predicates.impl.math.Pred2;
+import org.logic2j.engine.solver.table.PurePredicate;
 
 import static org.logic2j.engine.model.SimpleBindings.bind;
 
 /**
  * Successor value.
  */
-public class Succ<T extends Number> extends Pred2<T, T> {
+public class Succ<T extends Number> extends Pred2<T, T> implements PurePredicate {
   private static final String PREDICATE_NAME = "succ";
 
 
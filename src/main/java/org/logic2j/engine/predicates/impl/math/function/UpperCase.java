@@ -23,11 +23,12 @@ import org.logic2j.engine.model.SimpleBindings;
 import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.predicates.external.RDBFunctionPredicate;
 import org.logic2j.engine.predicates.impl.math.Pred2;
+import org.logic2j.engine.solver.table.PurePredicate;
 
 /**
  * Convert to lowercase (in the English locale)
  */
-public class UpperCase<T extends CharSequence, R extends CharSequence> extends Pred2<T, R> implements RDBFunctionPredicate {
+public class UpperCase<T extends CharSequence, R extends CharSequence> extends Pred2<T, R> implements RDBFunctionPredicate, PurePredicate {
   private static final String PREDICATE_NAME = "uc";
 
 
@@ -21,6 +21,7 @@ import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.model.Term;
 import org.logic2j.engine.predicates.external.RDBCompatiblePredicate;
 import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.listener.ConjunctionListener;
 import org.logic2j.engine.solver.listener.SolutionListener;
 import org.logic2j.engine.unify.UnifyContext;
 import org.slf4j.Logger;
@@ -33,10 +34,26 @@ import org.slf4j.LoggerFactory;
 public class And extends SolverPredicate implements RDBCompatiblePredicate {
   private static final Logger logger = LoggerFactory.getLogger(And.class);
 
+  /**
+   * When the solver runs with {@link Solver#isPrecompiledAnd()}, the listener handling the solutions to the first goal,
+   * see {@link #chain()}.
+   */
+  private volatile SolutionListener chain = null;
+
   public And(Term... conjunctions) {
     super(FUNCTOR_COMMA, (Object[]) conjunctions);
   }
 
+  /**
+   * The chain of listeners is specific to the goals of this instance, a clone with other goals must build its own.
+   */
+  @Override
+  public Struct<Void> cloneWithNewArguments(Object[] newArgs) {
+    final And clone = (And) super.cloneWithNewArguments(newArgs);
+    clone.chain = null;
+    return clone;
+  }
+
   @Override
   public int predicateLogic(UnifyContext currentVars, int cutLevel) {
     return andLogic(this, currentVars, cutLevel);
@@ -52,6 +69,8 @@ public class And extends SolverPredicate implements RDBCompatiblePredicate {
    * <p/>
    * Note that instantiating all these listeners could be costly - if we found a way to have a cache (e.g. storing them
    * at parse-time in Clauses) it could improve performance.
+   * This is what happens when the solver runs with {@link Solver#isPrecompiledAnd()} and the goal is an instance of {@link And}:
+   * see {@link #precompiledAndLogic(UnifyContext, int)}.
    *
    * @param goal
    * @param currentVars
@@ -59,6 +78,9 @@ public class And extends SolverPredicate implements RDBCompatiblePredicate {
    * @return
    */
   public static int andLogic(Struct<?> goal, UnifyContext currentVars, final int cutLevel) {
+    if (goal instanceof And and && currentVars.getSolver().isPrecompiledAnd()) {
+      return and.precompiledAndLogic(currentVars, cutLevel);
+    }
     final int arity = goal.getArity();
 
     final SolutionListener[] andingListeners = new SolutionListener[arity];
@@ -96,4 +118,36 @@ public class And extends SolverPredicate implements RDBCompatiblePredicate {
     return solver.solveInternalRecursive(lhs, currentVars.withListener(andingListeners[0]), cutLevel);
   }
 
+
+  /**
+   * Same algorithm as {@link #andLogic(Struct, UnifyContext, int)} but the chain of listeners is built once and kept in this
+   * instance, then shared by all solvings of this conjunction whatever their downstream listener and cut level:
+   * these are not held by the chain but by the context, see {@link UnifyContext#enterConjunction(SolutionListener, int)}.
+   *
+   * @param currentVars
+   * @param cutLevel
+   * @return
+   */
+  private int precompiledAndLogic(UnifyContext currentVars, int cutLevel) {
+    if (getArity() == 1) {
+      return currentVars.getSolver().solveInternalRecursive(getArg(0), currentVars, cutLevel);
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Handling precompiled AND, arity={}, will now solve lhs={}", getArity(), currentVars.reify(getArg(0)));
+    }
+    return currentVars.getSolver().solveInternalRecursive(getArg(0), currentVars.enterConjunction(chain(), cutLevel), cutLevel);
+  }
+
+  /**
+   * @return The listener handling the solutions to the first goal of this conjunction, built on first use
+   */
+  SolutionListener chain() {
+    SolutionListener first = this.chain;
+    if (first == null) {
+      first = ConjunctionListener.chain(getArgs(), (goal, currentVars, cutLevel) -> currentVars.getSolver().solveInternalRecursive(goal, currentVars, cutLevel));
+      this.chain = first;
+    }
+    return first;
+  }
+
 }
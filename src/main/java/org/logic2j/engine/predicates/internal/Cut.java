@@ -18,6 +18,7 @@
 package org.logic2j.engine.predicates.internal;
 
 import org.logic2j.engine.solver.Continuation;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
 import org.logic2j.engine.unify.UnifyContext;
 
 /**
@@ -54,6 +55,10 @@ public class Cut extends SolverPredicate {
    * @return Usually will return cutLevel >= 1, meaning caller must stop searching for alternatives.
    */
   public static int cutLogic(UnifyContext currentVars, int cutLevel) {
+    final SolveMetrics metrics = currentVars.getMetrics();
+    if (metrics != null) {
+      metrics.countCut();
+    }
     // Cut IS a valid solution in itself. We do not bind any variable but call a single solution.
     final int downstreamContinuation = currentVars.getSolutionListener().onSolution(currentVars);
     // When return from the solution above, this means we backtrack ! We must tell our caller that CUT was executed!
@@ -21,6 +21,7 @@ import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.model.Term;
 import org.logic2j.engine.predicates.external.RDBCompatiblePredicate;
 import org.logic2j.engine.solver.Continuation;
+import org.logic2j.engine.solver.ParallelOr;
 import org.logic2j.engine.solver.Solver;
 import org.logic2j.engine.unify.UnifyContext;
 import org.slf4j.Logger;
@@ -49,6 +50,10 @@ public class Or extends SolverPredicate implements RDBCompatiblePredicate {
   public static int orLogic(Struct<?> goalStruct, UnifyContext currentVars, int cutLevel) {
     final int arity = goalStruct.getArity();
     final Solver solver = currentVars.getSolver();
+    final ParallelOr parallelOr = solver.getParallelOr();
+    if (parallelOr != null && parallelOr.accepts(goalStruct)) {
+      return parallelOr.solve(goalStruct, currentVars);
+    }
     for (int i = 0; i < arity; i++) {
       // Solve all the elements of the "OR", in sequence.
       // For a binary OR, this means solving the left-hand-side and then the right-hand-side
@@ -0,0 +1,196 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver;
+
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.exception.Logic2jException;
+import org.logic2j.engine.exception.SolverException;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.solver.listener.RowSolutionListener;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+
+/**
+ * Solve one compiled goal for many rows of values of its input variables, see
+ * {@link Solver#solveBatch(CompiledGoal, Var[], Iterator, RowSolutionListener)}.
+ * <p/>
+ * Each worker keeps one storage of variables for all its rows: the inputs of a row are bound from the initial
+ * context (transaction 0), which discards the bindings of the previous row as a side effect, without any reset.
+ */
+final class BatchSolving {
+
+  private final Solver solver;
+
+  private final CompiledGoal compiledGoal;
+
+  /**
+   * The input variables as found in the normalized goal.
+   */
+  private final Var<?>[] inputVars;
+
+  private final RowSolutionListener listener;
+
+  BatchSolving(Solver solver, CompiledGoal compiledGoal, Var<?>[] inputs, RowSolutionListener listener) {
+    this.solver = solver;
+    this.compiledGoal = compiledGoal;
+    this.listener = listener;
+    this.inputVars = new Var<?>[inputs.length];
+    for (int i = 0; i < inputs.length; i++) {
+      final Var<?> var = termApi().findVar(compiledGoal.getGoal(), inputs[i].getName());
+      if (var == null) {
+        throw new InvalidTermException("Input variable \"" + inputs[i] + "\" not found in goal \"" + compiledGoal.getGoal() + '"');
+      }
+      this.inputVars[i] = var;
+    }
+  }
+
+  /**
+   * Solve all rows on the calling thread.
+   *
+   * @return Number of rows solved
+   */
+  long solve(Iterator<Object[]> rows) {
+    return new Worker(new RowSource(rows)).run();
+  }
+
+  /**
+   * Solve rows on parallelism workers; the listener is invoked concurrently.
+   *
+   * @return Number of rows solved
+   */
+  long solve(Iterator<Object[]> rows, ExecutorService executor, int parallelism) {
+    final RowSource source = new RowSource(rows);
+    final List<Future<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < parallelism; i++) {
+      futures.add(executor.submit(() -> new Worker(source).run()));
+    }
+    long nbRows = 0;
+    try {
+      for (Future<Long> future : futures) {
+        nbRows += future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolverException("Interrupted while solving batch of " + compiledGoal.getGoal(), e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Logic2jException cause) {
+        throw cause;
+      }
+      throw new SolverException("Solver failed for batch of \"" + compiledGoal.getGoal() + "\" with : " + e.getCause(), e.getCause());
+    } finally {
+      source.close();
+      futures.forEach(future -> future.cancel(true));
+    }
+    return nbRows;
+  }
+
+  /**
+   * Rows pulled by workers, numbered in order of iteration.
+   */
+  private static final class RowSource {
+    private final Iterator<Object[]> rows;
+    private long nextIndex = 0;
+    private boolean closed = false;
+
+    RowSource(Iterator<Object[]> rows) {
+      this.rows = rows;
+    }
+
+    /**
+     * @return The index of the row now held in row[0], or -1 when there is no more row
+     */
+    synchronized long next(Object[][] row) {
+      if (this.closed || !this.rows.hasNext()) {
+        return -1;
+      }
+      row[0] = this.rows.next();
+      return this.nextIndex++;
+    }
+
+    synchronized void close() {
+      this.closed = true;
+    }
+  }
+
+  private final class Worker implements SolutionListener {
+    private final RowSource source;
+    private long rowIndex;
+
+    Worker(RowSource source) {
+      this.source = source;
+    }
+
+    long run() {
+      final SolveMetrics metrics = solver.isProfiling() ? new SolveMetrics() : null;
+      final UnifyContext initialContext = solver.newInitialContext(this, metrics, compiledGoal.getNbVars());
+      final Object[][] holder = new Object[1][];
+      long nbRows = 0;
+      try {
+        for (this.rowIndex = source.next(holder); this.rowIndex >= 0; this.rowIndex = source.next(holder)) {
+          solveRow(initialContext, holder[0], metrics);
+          nbRows++;
+        }
+      } catch (Logic2jException e) {
+        source.close();
+        throw e;
+      } catch (RuntimeException e) {
+        source.close();
+        throw new SolverException("Solver failed for batch of \"" + compiledGoal.getGoal() + "\" at row " + this.rowIndex + " with : " + e, e);
+      } finally {
+        if (metrics != null) {
+          solver.publishMetrics(compiledGoal.getGoal(), metrics);
+        }
+      }
+      return nbRows;
+    }
+
+    private void solveRow(UnifyContext initialContext, Object[] row, SolveMetrics metrics) {
+      if (row.length != inputVars.length) {
+        throw new InvalidTermException("Row " + this.rowIndex + " has " + row.length + " values for " + inputVars.length + " input variables");
+      }
+      UnifyContext rowVars = solver.withAnswerTable(initialContext, metrics);
+      for (int i = 0; i < row.length && rowVars != null; i++) {
+        // Null leaves the input free
+        if (row[i] != null) {
+          rowVars = rowVars.unify(inputVars[i], row[i]);
+        }
+      }
+      if (rowVars != null) {
+        solver.solveGoal(compiledGoal, rowVars);
+      }
+    }
+
+    @Override
+    public int onSolution(UnifyContext currentVars) {
+      final int continuation = listener.onSolution(this.rowIndex, currentVars);
+      return Continuation.isRegularContinueOrAbort(continuation) ? continuation : Continuation.USER_ABORT;
+    }
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver;
+
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * A goal compiled by {@link Solver#compile(org.logic2j.engine.model.Term...)} into a tree of pre-resolved plan nodes:
+ * the dispatching of each sub-goal (AND, OR, CUT, CALL, Java predicate, or resolution against clauses and data)
+ * is decided once at compilation time instead of at every inference.
+ * Solving a compiled goal yields exactly the same solutions, in the same order, as solving the goal itself.
+ * <p/>
+ * A CompiledGoal is immutable and can be solved any number of times, concurrently, by the {@link Solver}
+ * that compiled it, see {@link Solver#solve(CompiledGoal)} and {@link Solver#solveGoal(CompiledGoal, org.logic2j.engine.solver.listener.SolutionListener)}.
+ */
+public final class CompiledGoal {
+
+  /**
+   * The normalized goal.
+   */
+  private final Object goal;
+
+  private final PlanNode plan;
+
+  CompiledGoal(Object goal, PlanNode plan) {
+    this.goal = goal;
+    this.plan = plan;
+  }
+
+  /**
+   * @return The normalized goal that was compiled, this is where to find its variables.
+   */
+  public Object getGoal() {
+    return goal;
+  }
+
+  /**
+   * @return Number of distinct variables of the goal, they are stored in slots 0..n-1.
+   */
+  public int getNbVars() {
+    return (goal instanceof Struct<?> struct) ? struct.getIndex() : 0;
+  }
+
+  PlanNode getPlan() {
+    return plan;
+  }
+
+  /**
+   * Solve from a context where part of the variables may have been bound already, see {@link Solver#solveGoal(CompiledGoal, UnifyContext)}.
+   *
+   * @param currentVars
+   * @return A {@link Continuation} or exceptionally another int value (in case of cut).
+   */
+  public int solve(UnifyContext currentVars) {
+    return currentVars.getSolver().solveGoal(this, currentVars);
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + '(' + plan + ')';
+  }
+}
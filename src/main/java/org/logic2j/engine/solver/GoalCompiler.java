@@ -0,0 +1,106 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver;
+
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.predicates.internal.*;
+
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+
+/**
+ * Turns a normalized goal into a tree of {@link PlanNode}s, applying the same dispatching rules,
+ * in the same order, as {@link Solver#solveInternalRecursive(Object, org.logic2j.engine.unify.UnifyContext, int)}.
+ */
+class GoalCompiler {
+
+  private final Solver solver;
+
+  GoalCompiler(Solver solver) {
+    this.solver = solver;
+  }
+
+  @SuppressWarnings("StringEquality")
+  PlanNode compile(Object goalTerm) {
+    final Struct<?> goalStruct;
+    if (goalTerm instanceof String) {
+      goalStruct = new Struct<>((String) goalTerm);
+    } else {
+      goalStruct = (Struct<?>) goalTerm;
+    }
+    final String functor = goalStruct.getName();
+
+    if (goalStruct instanceof And) {
+      return new PlanNode.AndNode(goalStruct, compileArgs(goalStruct));
+    }
+    if (goalStruct instanceof Or) {
+      return new PlanNode.OrNode(goalStruct, compileArgs(goalStruct));
+    }
+    if (goalStruct instanceof Cut) {
+      return new PlanNode.CutNode(goalStruct);
+    }
+    if (goalStruct instanceof Call) {
+      return compileCall(goalStruct);
+    }
+    if (goalStruct instanceof SolverPredicate solverPredicate) {
+      return new PlanNode.SolverPredicateNode(solverPredicate);
+    }
+    // Names are {@link String#intern()}alized so OK to check by reference
+    if (Struct.FUNCTOR_COMMA == functor) {
+      return new PlanNode.AndNode(goalStruct, compileArgs(goalStruct));
+    }
+    if (solver.isInternalOr() && Struct.FUNCTOR_SEMICOLON == functor) {
+      return new PlanNode.OrNode(goalStruct, compileArgs(goalStruct));
+    }
+    if (Struct.FUNCTOR_CALL == functor) {
+      return compileCall(goalStruct);
+    }
+    if (Struct.FUNCTOR_CUT == functor) {
+      return new PlanNode.CutNode(goalStruct);
+    }
+    if (solver.isJava(goalStruct)) {
+      return new PlanNode.JavaNode(solver, goalStruct);
+    }
+    return new PlanNode.ResolutionNode(solver, goalTerm);
+  }
+
+  private PlanNode[] compileArgs(Struct<?> goalStruct) {
+    final Object[] args = goalStruct.getArgs();
+    final PlanNode[] nodes = new PlanNode[args.length];
+    for (int i = 0; i < args.length; i++) {
+      nodes[i] = compile(args[i]);
+    }
+    return nodes;
+  }
+
+  /**
+   * When the called goal is known statically (not a variable) we compile it, otherwise it will be reified
+   * and solved dynamically.
+   */
+  private PlanNode compileCall(Struct<?> goalStruct) {
+    if (goalStruct.getArity() == 1) {
+      final Object callTerm = goalStruct.getArg(0);
+      if (callTerm instanceof Struct<?> && !termApi().isFreeVar(callTerm)) {
+        return compile(callTerm);
+      }
+    }
+    return new PlanNode.CallNode(goalStruct);
+  }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver;
+
+import org.logic2j.engine.exception.Logic2jException;
+import org.logic2j.engine.exception.SolverException;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.predicates.internal.Cut;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Solve the branches of a disjunction concurrently, see {@link Solver#withParallelOr(ExecutorService, Ordering)}.
+ * <p/>
+ * Each branch is solved on the executor from a {@link UnifyContext#fork()} of the context of the disjunction, i.e.
+ * against its own copy of the bindings. Its solutions are reified and queued back to the calling thread, which unifies
+ * them with the branch in the context of the disjunction and notifies the listener: listeners are only ever invoked
+ * from the calling thread. When the listener aborts, the other branches are cancelled: their threads are interrupted,
+ * and stop at their next inference, see {@link #isBranchCancelled()}.
+ * <p/>
+ * Each solution hence costs a {@link UnifyContext#reify(Object)} of the branch on the worker, proportional to the size of
+ * its values, then a unification of the branch with that copy on the calling thread, proportional to the same size. The
+ * copy cannot be avoided, since bindings of the fork live in a storage of variables that the worker keeps modifying.
+ * Each branch also starts with its fork, a full copy of the storage of variables, O(capacity).
+ * This pays off for branches whose solving costs more than their solutions are large.
+ * <p/>
+ * Disjunctions that contain a cut ("!") as one of their goals are solved sequentially, since a cut must prevent
+ * the branches after it. So are disjunctions nested in a branch already running on the executor, to avoid
+ * exhausting a bounded executor with threads waiting for each other.
+ */
+public final class ParallelOr {
+
+  /**
+   * Order in which the solutions of the branches are notified.
+   */
+  public enum Ordering {
+    /**
+     * Same order as sequential solving: all solutions of the first branch, then of the second, etc.
+     * Solutions of later branches are computed concurrently but held until their turn.
+     */
+    DETERMINISTIC,
+    /**
+     * As soon as produced, by whichever branch.
+     */
+    UNORDERED
+  }
+
+  /**
+   * Number of solutions a branch can produce ahead of their notification, before waiting.
+   */
+  private static final int QUEUE_CAPACITY = 256;
+
+  private static final ThreadLocal<Boolean> IN_BRANCH = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+  private final ExecutorService executor;
+
+  private final Ordering ordering;
+
+  ParallelOr(ExecutorService executor, Ordering ordering) {
+    this.executor = executor;
+    this.ordering = ordering;
+  }
+
+  public Ordering getOrdering() {
+    return ordering;
+  }
+
+  /**
+   * @param disjunction
+   * @return true if the branches of disjunction can be solved concurrently
+   */
+  public boolean accepts(Struct<?> disjunction) {
+    if (disjunction.getArity() < 2 || IN_BRANCH.get()) {
+      return false;
+    }
+    for (Object branch : disjunction.getArgs()) {
+      if (containsCut(branch)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if term has a cut that applies to the enclosing clause, i.e. not nested in call()
+   */
+  private static boolean containsCut(Object term) {
+    if (term instanceof String atom) {
+      return Struct.FUNCTOR_CUT == atom; // Names are {@link String#intern()}alized
+    }
+    if (!(term instanceof Struct<?> struct)) {
+      return false;
+    }
+    final String functor = struct.getName();
+    if (struct instanceof Cut || Struct.FUNCTOR_CUT == functor) {
+      return true;
+    }
+    if (Struct.FUNCTOR_COMMA == functor || Struct.FUNCTOR_SEMICOLON == functor) {
+      for (Object arg : struct.getArgs()) {
+        if (containsCut(arg)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Solve a disjunction accepted by {@link #accepts(Struct)}, with the same result as
+   * {@link org.logic2j.engine.predicates.internal.Or#orLogic(Struct, UnifyContext, int)}.
+   *
+   * @param disjunction
+   * @param currentVars
+   * @return A {@link Continuation}
+   */
+  public int solve(Struct<?> disjunction, UnifyContext currentVars) {
+    if (currentVars.hasDomains()) {
+      // Solutions of branches are reified, which does not convey how they restricted domains: branches receive values
+      return currentVars.fanOutDomains(disjunction, vars -> solveBranches(disjunction, vars));
+    }
+    return solveBranches(disjunction, currentVars);
+  }
+
+  private int solveBranches(Struct<?> disjunction, UnifyContext currentVars) {
+    final Solver solver = currentVars.getSolver();
+    final Object[] branches = disjunction.getArgs();
+    final int nbBranches = branches.length;
+    final AtomicBoolean cancelled = new AtomicBoolean(false);
+    final List<BlockingQueue<Message>> queues = new ArrayList<>();
+    final BlockingQueue<Message> shared = (this.ordering == Ordering.UNORDERED) ? new ArrayBlockingQueue<>(QUEUE_CAPACITY) : null;
+    final List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < nbBranches; i++) {
+        final BlockingQueue<Message> queue = (shared != null) ? shared : new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        queues.add(queue);
+        final Object branch = branches[i];
+        final int index = i;
+        final SolutionListener forwarder = branchVars -> {
+          if (cancelled.get()) {
+            return Continuation.USER_ABORT;
+          }
+          // The solution is copied out of the bindings of the fork, which keep changing
+          final Message message = new Message(index, branchVars.reify(branch), branchVars.topVarIndex(0), null);
+          return put(queue, message) ? Continuation.CONTINUE : Continuation.USER_ABORT;
+        };
+        // Forked now, while the bindings of currentVars are those of the disjunction
+        final UnifyContext fork = solver.forkBranchContext(currentVars, forwarder);
+        futures.add(this.executor.submit(() -> solveBranch(solver, branch, index, fork, queue, cancelled)));
+      }
+      final SolutionListener listener = currentVars.getSolutionListener();
+      int remaining = nbBranches;
+      int current = 0;
+      while (remaining > 0) {
+        final Message message = queues.get(current).take();
+        if (message.solution == null) {
+          // End of a branch
+          if (message.failure != null) {
+            throw rethrow(message.failure, disjunction);
+          }
+          remaining--;
+          if (shared == null) {
+            current++;
+          }
+          continue;
+        }
+        final UnifyContext afterMerge = currentVars.unify(branches[message.branch], message.solution);
+        if (afterMerge == null) {
+          continue;
+        }
+        // Variables created while solving the branch must not be reused by further inferences
+        afterMerge.topVarIndex(Math.max(0, message.topVarIndex - afterMerge.topVarIndex(0)));
+        if (listener.onSolution(afterMerge) != Continuation.CONTINUE) {
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolverException("Interrupted while solving " + disjunction, e);
+    } finally {
+      cancelled.set(true);
+      // Interrupts branches waiting for room in their queue, or still solving, see isBranchCancelled()
+      futures.forEach(future -> future.cancel(true));
+    }
+    return Continuation.CONTINUE;
+  }
+
+  private static void solveBranch(Solver solver, Object branch, int index, UnifyContext fork, BlockingQueue<Message> queue,
+                                  AtomicBoolean cancelled) {
+    IN_BRANCH.set(Boolean.TRUE);
+    Throwable failure = null;
+    try {
+      solver.solveGoal(branch, fork);
+    } catch (RuntimeException | Error e) {
+      failure = e;
+    } finally {
+      IN_BRANCH.set(Boolean.FALSE);
+      // When interrupted other than by cancellation, e.g. by shutdown of the executor, the calling thread still waits for the end
+      final boolean interrupted = Thread.interrupted();
+      if (interrupted && failure == null) {
+        failure = new SolverException("Interrupted while solving " + branch);
+      }
+      if (!cancelled.get()) {
+        // Cancellation from now on interrupts the put
+        put(queue, new Message(index, null, 0, failure));
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * @return false if interrupted, i.e. cancelled, while waiting for room in the queue
+   */
+  private static boolean put(BlockingQueue<Message> queue, Message message) {
+    try {
+      queue.put(message);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Checked by the {@link Solver} before each inference when disjunctions are solved concurrently.
+   *
+   * @return true if the current thread solves a branch that was cancelled, see {@link java.util.concurrent.Future#cancel(boolean)}
+   */
+  static boolean isBranchCancelled() {
+    // Cheap test first: the thread-local is only read when interrupted
+    return Thread.currentThread().isInterrupted() && IN_BRANCH.get();
+  }
+
+  private static RuntimeException rethrow(Throwable failure, Struct<?> disjunction) {
+    if (failure instanceof Logic2jException e) {
+      return e;
+    }
+    if (failure instanceof Error e) {
+      throw e;
+    }
+    return new SolverException("Solver failed for a branch of \"" + disjunction + "\" with : " + failure, failure);
+  }
+
+  /**
+   * A solution of a branch, or the end of a branch when solution is null.
+   */
+  private record Message(int branch, Object solution, int topVarIndex, Throwable failure) {
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + '(' + ordering + ')';
+  }
+
+}
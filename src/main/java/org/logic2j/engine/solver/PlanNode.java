@@ -0,0 +1,221 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver;
+
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.predicates.internal.Call;
+import org.logic2j.engine.predicates.internal.Cut;
+import org.logic2j.engine.predicates.internal.SolverPredicate;
+import org.logic2j.engine.solver.listener.ConjunctionListener;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+import org.logic2j.engine.unify.UnifyContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * A node of a {@link CompiledGoal}: one sub-goal whose way of solving was decided at compilation time.
+ * Nodes are immutable (except caches) and can be executed concurrently.
+ */
+abstract class PlanNode {
+  private static final Logger logger = LoggerFactory.getLogger(PlanNode.class);
+
+  /**
+   * The goal this node was compiled from.
+   */
+  final Object goal;
+
+  PlanNode(Object goal) {
+    this.goal = goal;
+  }
+
+  /**
+   * Solve this node, equivalent to {@link Solver#solveInternalRecursive(Object, UnifyContext, int)} on the original goal.
+   *
+   * @param currentVars
+   * @param cutLevel
+   * @return A {@link Continuation} or exceptionally another int value (in case of cut).
+   */
+  final int solve(UnifyContext currentVars, int cutLevel) {
+    final SolveMetrics metrics = currentVars.getMetrics();
+    if (metrics != null) {
+      metrics.countInference();
+    }
+    if (currentVars.getSolver().isSolvingCancelled()) {
+      return Continuation.USER_ABORT;
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("-->> Executing plan node {}, reifiedGoal = {}, cutLevel={}", this.getClass().getSimpleName(), currentVars.reify(goal), cutLevel);
+    }
+    return execute(currentVars, cutLevel);
+  }
+
+  abstract int execute(UnifyContext currentVars, int cutLevel);
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + '(' + goal + ')';
+  }
+
+
+  // ---------------------------------------------------------------------------
+  // Implementations
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Conjunction, same algorithm as {@link org.logic2j.engine.predicates.internal.And#andLogic(Struct, UnifyContext, int)}
+   * with a chain of listeners built once, see {@link ConjunctionListener}.
+   */
+  static final class AndNode extends PlanNode {
+    private final PlanNode[] children;
+    private final SolutionListener chain;
+
+    AndNode(Object goal, PlanNode[] children) {
+      super(goal);
+      this.children = children;
+      this.chain = (children.length > 1) ? ConjunctionListener.chain(children, PlanNode::solve) : null;
+    }
+
+    @Override
+    int execute(UnifyContext currentVars, int cutLevel) {
+      if (children.length == 1) {
+        return children[0].solve(currentVars, cutLevel);
+      }
+      return children[0].solve(currentVars.enterConjunction(this.chain, cutLevel), cutLevel);
+    }
+
+    @Override
+    public String toString() {
+      return "AndNode" + Arrays.toString(children);
+    }
+  }
+
+  /**
+   * Disjunction, same algorithm as {@link org.logic2j.engine.predicates.internal.Or#orLogic(Struct, UnifyContext, int)}.
+   */
+  static final class OrNode extends PlanNode {
+    private final PlanNode[] children;
+
+    OrNode(Object goal, PlanNode[] children) {
+      super(goal);
+      this.children = children;
+    }
+
+    @Override
+    int execute(UnifyContext currentVars, int cutLevel) {
+      final ParallelOr parallelOr = currentVars.getSolver().getParallelOr();
+      if (parallelOr != null && goal instanceof Struct<?> disjunction && parallelOr.accepts(disjunction)) {
+        return parallelOr.solve(disjunction, currentVars);
+      }
+      for (PlanNode child : children) {
+        final int result = child.solve(currentVars, cutLevel);
+        if (result != Continuation.CONTINUE) {
+          break;
+        }
+      }
+      return Continuation.CONTINUE;
+    }
+
+    @Override
+    public String toString() {
+      return "OrNode" + Arrays.toString(children);
+    }
+  }
+
+  static final class CutNode extends PlanNode {
+    CutNode(Object goal) {
+      super(goal);
+    }
+
+    @Override
+    int execute(UnifyContext currentVars, int cutLevel) {
+      return Cut.cutLogic(currentVars, cutLevel);
+    }
+  }
+
+  /**
+   * Call of a goal only known at execution time (a variable).
+   */
+  static final class CallNode extends PlanNode {
+    CallNode(Struct<?> goal) {
+      super(goal);
+    }
+
+    @Override
+    int execute(UnifyContext currentVars, int cutLevel) {
+      return Call.callLogic((Struct<?>) goal, currentVars, cutLevel);
+    }
+  }
+
+  /**
+   * Any other {@link SolverPredicate}, invoked directly.
+   */
+  static final class SolverPredicateNode extends PlanNode {
+    private final SolverPredicate predicate;
+
+    SolverPredicateNode(SolverPredicate predicate) {
+      super(predicate);
+      this.predicate = predicate;
+    }
+
+    @Override
+    int execute(UnifyContext currentVars, int cutLevel) {
+      return predicate.predicateLogic(currentVars, cutLevel);
+    }
+  }
+
+  /**
+   * Predicate implemented in Java, see {@link Solver#invokeJava(Struct, UnifyContext)}.
+   */
+  static final class JavaNode extends PlanNode {
+    private final Solver solver;
+    private final Struct<?> predicate;
+
+    JavaNode(Solver solver, Struct<?> predicate) {
+      super(predicate);
+      this.solver = solver;
+      this.predicate = predicate;
+    }
+
+    @Override
+    int execute(UnifyContext currentVars, int cutLevel) {
+      return solver.invokeJava(predicate, currentVars);
+    }
+  }
+
+  /**
+   * Goal to be solved against clauses and data, see {@link Solver#solveAgainstProviders(Object, UnifyContext, int)}.
+   */
+  static final class ResolutionNode extends PlanNode {
+    private final Solver solver;
+
+    ResolutionNode(Solver solver, Object goal) {
+      super(goal);
+      this.solver = solver;
+    }
+
+    @Override
+    int execute(UnifyContext currentVars, int cutLevel) {
+      return solver.solveAgainstProviders(goal, currentVars, cutLevel);
+    }
+  }
+
+}
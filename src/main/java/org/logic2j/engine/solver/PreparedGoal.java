@@ -0,0 +1,114 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.engine.solver;
+
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.solver.holder.GoalHolder;
+import org.logic2j.engine.solver.listener.SolutionListener;
+
+import java.util.Arrays;
+
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+
+/**
+ * A goal prepared by {@link Solver#prepare(org.logic2j.engine.model.Term, Var[])}, the equivalent of a JDBC PreparedStatement:
+ * the goal is normalized and compiled once, and its parameters are variables that are bound to values directly in the
+ * storage of variables before every solving, instead of prepending Eq/2 predicates and normalizing again as
+ * {@link GoalHolder#withBoundVar(Var, org.logic2j.engine.model.Constant)} does.
+ * <p/>
+ * A PreparedGoal is immutable and can be solved any number of times, concurrently, with different values.
+ */
+public final class PreparedGoal {
+
+  private final Solver solver;
+
+  private final CompiledGoal compiledGoal;
+
+  /**
+   * The parameters as found in the normalized goal.
+   */
+  private final Var<?>[] parameters;
+
+  PreparedGoal(Solver solver, CompiledGoal compiledGoal, Var<?>[] parameters) {
+    this.solver = solver;
+    this.compiledGoal = compiledGoal;
+    this.parameters = new Var<?>[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      final Var<?> var = termApi().findVar(compiledGoal.getGoal(), parameters[i].getName());
+      if (var == null) {
+        throw new InvalidTermException("Parameter \"" + parameters[i] + "\" not found in goal \"" + compiledGoal.getGoal() + '"');
+      }
+      this.parameters[i] = var;
+    }
+  }
+
+  /**
+   * Higher-level solver, delaying execution.
+   *
+   * @param values Values of the parameters, in the order they were prepared; a null value leaves its parameter free,
+   *               a {@link org.logic2j.engine.model.Constant} of several values becomes its domain, see {@link Solver#isSetAtATimeBoundVars()}
+   * @return The {@link GoalHolder} that delays execution until you tell what you want to extract.
+   */
+  public GoalHolder solve(Object... values) {
+    checkValues(values);
+    return new GoalHolder(solver, this, values.clone(), null);
+  }
+
+  /**
+   * Solve with the parameters bound to values.
+   *
+   * @param solutionListener
+   * @param values Values of the parameters, in the order they were prepared; a null value leaves its parameter free
+   * @return A {@link Continuation} or exceptionally another int value (in case of cut)
+   */
+  public int solveGoal(SolutionListener solutionListener, Object... values) {
+    return solver.solveGoal(this, values, solutionListener);
+  }
+
+  void checkValues(Object[] values) {
+    if (values.length != parameters.length) {
+      throw new InvalidTermException("Goal \"" + compiledGoal.getGoal() + "\" has " + parameters.length + " parameters, got " + values.length
+          + " values");
+    }
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  public CompiledGoal getCompiledGoal() {
+    return compiledGoal;
+  }
+
+  /**
+   * @return The parameters, as variables of the normalized goal
+   */
+  public Var<?>[] getParameters() {
+    return parameters.clone();
+  }
+
+  Var<?>[] parameters() {
+    return parameters;
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + '(' + compiledGoal.getGoal() + ", " + Arrays.toString(parameters) + ')';
+  }
+}
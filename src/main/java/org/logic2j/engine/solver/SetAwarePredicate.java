@@ -0,0 +1,28 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.engine.solver;
+
+/**
+ * Marks a {@link org.logic2j.engine.predicates.impl.FOPredicate} that can be invoked while variables of its arguments range over
+ * a domain (a set of values, see {@link org.logic2j.engine.unify.UnifyContext#restrictDomain(org.logic2j.engine.model.Var, java.util.Collection)}):
+ * it processes the whole domain at once, typically restricting it, and enumerates values itself only where it needs scalars,
+ * see {@link org.logic2j.engine.unify.UnifyContext#fanOutDomains(Object, java.util.function.ToIntFunction)}.
+ * Other predicates are invoked once per value of the domains of the variables of their arguments.
+ */
+public interface SetAwarePredicate {
+}
@@ -18,17 +18,36 @@
 package org.logic2j.engine.solver;
 
 
+import org.logic2j.engine.clause.Clause;
+import org.logic2j.engine.clause.ClauseProvider;
+import org.logic2j.engine.data.DataFactProvider;
 import org.logic2j.engine.exception.InvalidTermException;
 import org.logic2j.engine.exception.Logic2jException;
 import org.logic2j.engine.exception.SolverException;
+import org.logic2j.engine.model.Constant;
 import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.model.Term;
+import org.logic2j.engine.model.Var;
 import org.logic2j.engine.predicates.impl.FOPredicate;
 import org.logic2j.engine.predicates.internal.*;
 import org.logic2j.engine.solver.holder.GoalHolder;
+import org.logic2j.engine.solver.listener.RowSolutionListener;
 import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+import org.logic2j.engine.solver.metrics.SolveMetricsSink;
+import org.logic2j.engine.solver.table.AnswerTable;
+import org.logic2j.engine.solver.table.GoalResultCache;
+import org.logic2j.engine.solver.table.PurePredicate;
+import org.logic2j.engine.solver.table.TabledPredicate;
+import org.logic2j.engine.unify.GrowthPolicy;
+import org.logic2j.engine.unify.StoreLayout;
 import org.logic2j.engine.unify.UnifyContext;
-import org.logic2j.engine.util.ProfilingInfo;
+import org.logic2j.engine.unify.UnifyStatePool;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import static org.logic2j.engine.model.TermApiLocator.termApi;
 import static org.logic2j.engine.predicates.Predicates.and;
@@ -40,8 +59,9 @@ import static org.logic2j.engine.predicates.Predicates.and;
  * ";" (OR)
  * "call(X)"
  * "!" (CUT)
- * ( possibly in the future, ":-" (RULE) )
- * All other predicates are delegated in implementations of {@link FOPredicate#predicateLogic(UnifyContext)}.
+ * Predicates implemented in Java are delegated in implementations of {@link FOPredicate#predicateLogic(UnifyContext)}.
+ * All other goals are resolved against the clauses ("head :- body" rules, and facts) of {@link ClauseProvider}s,
+ * then unified with the facts of {@link DataFactProvider}s.
  */
 public class Solver {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(Solver.class);
@@ -51,6 +71,76 @@ public class Solver {
    */
   private static final int INITIAL_CUT_LEVEL = 1;
 
+  /**
+   * Default number of extra variable slots, beyond the variables of the goal.
+   */
+  public static final int DEFAULT_STORE_HEADROOM = 32;
+
+  /**
+   * Suggested maximal number of goals memoized per solving when enabling tabling, see {@link #withTableCapacity(int)}.
+   */
+  public static final int DEFAULT_TABLE_CAPACITY = 1024;
+
+  /**
+   * Where to publish the {@link SolveMetrics} of each solving, null when not profiling.
+   */
+  private SolveMetricsSink metricsSink = null;
+
+  /**
+   * Do conjunctions reuse their chain of listeners, see {@link #withPrecompiledAnd(boolean)}.
+   */
+  private boolean precompiledAnd = false;
+
+  /**
+   * Do we reuse storages of variables across solvings, see {@link #withStatePooling(boolean)}.
+   */
+  private boolean statePooling = false;
+
+  /**
+   * Are multi-valued bound vars solved set-at-a-time, see {@link #withSetAtATimeBoundVars(boolean)}.
+   */
+  private boolean setAtATimeBoundVars = false;
+
+  /**
+   * Number of variable slots allocated in addition to the number of vars of the goal, see {@link #withStoreHeadroom(int)}.
+   */
+  private int storeHeadroom = DEFAULT_STORE_HEADROOM;
+
+  /**
+   * How the storage of variables grows, see {@link #withStoreGrowthPolicy(GrowthPolicy)}.
+   */
+  private GrowthPolicy storeGrowthPolicy = GrowthPolicy.DOUBLING;
+
+  /**
+   * Memory layout of the storage of variables, see {@link #withStoreLayout(StoreLayout)}.
+   */
+  private StoreLayout storeLayout = StoreLayout.LOOKUP;
+
+  /**
+   * Maximal number of entries of the {@link AnswerTable} of each solving, 0 to disable tabling.
+   */
+  private int tableCapacity = 0;
+
+  /**
+   * Results of ground goals of {@link PurePredicate}s across solvings, null when not caching.
+   */
+  private GoalResultCache resultCache = null;
+
+  /**
+   * Solves disjunctions concurrently, null to solve them sequentially, see {@link #withParallelOr(ExecutorService, ParallelOr.Ordering)}.
+   */
+  private ParallelOr parallelOr = null;
+
+  /**
+   * Where rules are looked up, see {@link #withClauseProvider(ClauseProvider)}.
+   */
+  private final List<ClauseProvider> clauseProviders = new ArrayList<>();
+
+  /**
+   * Where goals that are not predicates are looked up, see {@link #withDataFactProvider(DataFactProvider)}.
+   */
+  private final List<DataFactProvider> dataFactProviders = new ArrayList<>();
+
 
   /**
    * Do we solve the ";" (OR) predicate internally here or via using the external predicate?
@@ -61,10 +151,207 @@ public class Solver {
   } // FIXME Still dubious re. use of internal or and its behaviour with Cut. See note in logic2j overloaded method
 
   /**
-   * Do we acquire profiling information (number of inferences, etc.)
+   * Do we acquire profiling information (number of inferences, etc.), see {@link SolveMetrics}.
+   * By default, only when a {@link SolveMetricsSink} was registered.
    */
   protected boolean isProfiling() {
-    return false;
+    return this.metricsSink != null;
+  }
+
+  /**
+   * Enable profiling: each solving session will collect its {@link SolveMetrics} and publish them
+   * to the sink when completed.
+   *
+   * @param sink Where to publish metrics, or null to disable profiling
+   * @return this
+   */
+  public Solver withMetricsSink(SolveMetricsSink sink) {
+    this.metricsSink = sink;
+    return this;
+  }
+
+  /**
+   * Do conjunctions ({@link And}) build their chain of {@link SolutionListener}s once and reuse it across solutions and solvings,
+   * instead of allocating it at every invocation. See {@link And#andLogic(Struct, UnifyContext, int)}.
+   * The listener and cut level are still held by the {@link UnifyContext}: each solution to a goal of the conjunction is
+   * passed to the next goal on a copy of its context, see {@link UnifyContext#withListener(SolutionListener)}.
+   *
+   * @return true when enabled with {@link #withPrecompiledAnd(boolean)}
+   */
+  public boolean isPrecompiledAnd() {
+    return this.precompiledAnd;
+  }
+
+  /**
+   * Enable or disable the reuse of precompiled listener chains for conjunctions, see {@link #isPrecompiledAnd()}.
+   *
+   * @param precompiledAnd
+   * @return this
+   */
+  public Solver withPrecompiledAnd(boolean precompiledAnd) {
+    this.precompiledAnd = precompiledAnd;
+    return this;
+  }
+
+  /**
+   * Enable or disable the reuse of the storage of variables across solvings, from a per-thread pool, see {@link UnifyStatePool}.
+   * This saves allocating and initializing the storage for every solving, which dominates the cost of short goals.
+   * When enabled, no {@link UnifyContext} must be used after solving has returned (e.g. kept by a {@link SolutionListener}).
+   *
+   * @param statePooling
+   * @return this
+   */
+  public Solver withStatePooling(boolean statePooling) {
+    this.statePooling = statePooling;
+    return this;
+  }
+
+  /**
+   * Do vars bound to several values with {@link GoalHolder#withBoundVar(Var, org.logic2j.engine.model.Constant)} or
+   * {@link PreparedGoal#solve(Object...)} range over a domain, so that the goal is solved once for the whole set of values,
+   * instead of once per value. See {@link SetAwarePredicate}.
+   * <p/>
+   * This changes the order of solutions: values of the domain are no longer enumerated first, but only where a goal needs
+   * them. For example, with X bound to several values, "digit(Y), X &lt; Y" is ordered by Y first, then by X.
+   * Goals solved against clause or data providers receive the values one at a time, so that providers can use their indexes.
+   *
+   * @return false unless enabled with {@link #withSetAtATimeBoundVars(boolean)}
+   */
+  public boolean isSetAtATimeBoundVars() {
+    return this.setAtATimeBoundVars;
+  }
+
+  /**
+   * Enable or disable solving multi-valued bound vars set-at-a-time, see {@link #isSetAtATimeBoundVars()}.
+   * When disabled (the default), the goal is solved once per value.
+   *
+   * @param setAtATimeBoundVars
+   * @return this
+   */
+  public Solver withSetAtATimeBoundVars(boolean setAtATimeBoundVars) {
+    this.setAtATimeBoundVars = setAtATimeBoundVars;
+    return this;
+  }
+
+  /**
+   * The storage of variables of each solving is sized to the number of variables of the goal, plus this headroom
+   * for variables created during solving.
+   *
+   * @param storeHeadroom Number of extra slots, defaults to {@link #DEFAULT_STORE_HEADROOM}
+   * @return this
+   */
+  public Solver withStoreHeadroom(int storeHeadroom) {
+    if (storeHeadroom < 0) {
+      throw new IllegalArgumentException("Headroom cannot be negative: " + storeHeadroom);
+    }
+    this.storeHeadroom = storeHeadroom;
+    return this;
+  }
+
+  /**
+   * How the storage of variables grows when the initial capacity is exceeded. Each growth is counted in
+   * {@link SolveMetrics#getResizes()}.
+   *
+   * @param storeGrowthPolicy Defaults to {@link GrowthPolicy#DOUBLING}
+   * @return this
+   */
+  public Solver withStoreGrowthPolicy(GrowthPolicy storeGrowthPolicy) {
+    this.storeGrowthPolicy = storeGrowthPolicy;
+    return this;
+  }
+
+  /**
+   * Choose the memory layout of the storage of variables. {@link StoreLayout#PACKED} keeps the state of a variable in a
+   * single long, which pays off with long chains of variables.
+   *
+   * @param storeLayout Defaults to {@link StoreLayout#LOOKUP}
+   * @return this
+   */
+  public Solver withStoreLayout(StoreLayout storeLayout) {
+    this.storeLayout = storeLayout;
+    return this;
+  }
+
+  /**
+   * Bound the memory used for tabling: each solving memoizes the solutions of {@link TabledPredicate}s (and goals wrapped
+   * in tabled()) in an {@link AnswerTable} holding at most that number of goals, the least recently used are evicted.
+   *
+   * @param tableCapacity Maximal number of entries, e.g. {@link #DEFAULT_TABLE_CAPACITY}; defaults to 0 which disables tabling
+   * @return this
+   */
+  public Solver withTableCapacity(int tableCapacity) {
+    if (tableCapacity < 0) {
+      throw new IllegalArgumentException("Table capacity cannot be negative: " + tableCapacity);
+    }
+    this.tableCapacity = tableCapacity;
+    return this;
+  }
+
+  /**
+   * Reuse the results of ground goals of {@link PurePredicate}s across solvings. The cache may be shared by several
+   * solvers; the application must invalidate it when the data or clauses the cached goals depend on change.
+   *
+   * @param resultCache The cache, or null to disable caching (the default)
+   * @return this
+   */
+  public Solver withResultCache(GoalResultCache resultCache) {
+    this.resultCache = resultCache;
+    return this;
+  }
+
+  /**
+   * @return The cache of results of pure goals, or null when not caching
+   */
+  public GoalResultCache getResultCache() {
+    return this.resultCache;
+  }
+
+  /**
+   * Solve the branches of disjunctions (";", OR) concurrently on an executor, see {@link ParallelOr}. This pays off when
+   * branches are independent and expensive, e.g. lookups through costly Java predicates.
+   * Branches must not depend on side effects of each other, and the predicates and providers they use must be thread-safe.
+   *
+   * @param executor Where branches are solved, e.g. {@link java.util.concurrent.Executors#newVirtualThreadPerTaskExecutor()};
+   *                 null to solve disjunctions sequentially (the default)
+   * @param ordering Order of notification of the solutions of the branches
+   * @return this
+   */
+  public Solver withParallelOr(ExecutorService executor, ParallelOr.Ordering ordering) {
+    this.parallelOr = (executor != null) ? new ParallelOr(executor, ordering) : null;
+    return this;
+  }
+
+  /**
+   * @return How disjunctions are solved concurrently, or null when they are solved sequentially
+   */
+  public ParallelOr getParallelOr() {
+    return this.parallelOr;
+  }
+
+  /**
+   * Register a source of {@link Clause}s: goals that are neither core nor Java predicates will be resolved against
+   * the rules and facts it provides, e.g. from a {@link org.logic2j.engine.clause.ClauseStore}, before data facts.
+   * Providers are queried in order of registration.
+   *
+   * @param clauseProvider
+   * @return this
+   */
+  public Solver withClauseProvider(ClauseProvider clauseProvider) {
+    this.clauseProviders.add(clauseProvider);
+    return this;
+  }
+
+  /**
+   * Register a source of {@link org.logic2j.engine.model.DataFact}s: goals that are neither core nor Java predicates will be unified
+   * against the facts it provides, e.g. from a {@link org.logic2j.engine.data.DataFactStore}.
+   * Providers are queried in order of registration.
+   *
+   * @param dataFactProvider
+   * @return this
+   */
+  public Solver withDataFactProvider(DataFactProvider dataFactProvider) {
+    this.dataFactProviders.add(dataFactProvider);
+    return this;
   }
 
   /**
@@ -79,6 +366,112 @@ public class Solver {
     return new GoalHolder(this, normalized, null);
   }
 
+  /**
+   * Higher-level solver for a goal compiled with {@link #compile(Term...)}, delaying execution.
+   *
+   * @param compiledGoal
+   * @return The {@link GoalHolder} that delays execution until you tell what you want to extract.
+   */
+  public GoalHolder solve(CompiledGoal compiledGoal) {
+    return new GoalHolder(this, compiledGoal, null);
+  }
+
+  /**
+   * Normalize and compile a goal (the conjunction of goals) into an executable plan, see {@link CompiledGoal}.
+   * The plan is immutable and can be solved many times, concurrently, with {@link #solve(CompiledGoal)}
+   * or {@link #solveGoal(CompiledGoal, SolutionListener)}.
+   *
+   * @param goals
+   * @return The compiled goal
+   */
+  public CompiledGoal compile(Term... goals) {
+    final Term effective = goals.length == 1 ? goals[0] : and(goals);
+    return compileNormalized(termApi().normalize(effective));
+  }
+
+  /**
+   * Compile a goal that is already normalized.
+   *
+   * @param normalizedGoal
+   * @return The compiled goal
+   */
+  public CompiledGoal compileNormalized(Object normalizedGoal) {
+    checkSolvable(normalizedGoal);
+    return new CompiledGoal(normalizedGoal, new GoalCompiler(this).compile(normalizedGoal));
+  }
+
+  /**
+   * Prepare a goal to be solved many times with different values of its parameters, see {@link PreparedGoal}.
+   *
+   * @param goal
+   * @param parameters Variables of the goal (found by name) to be bound at every solving
+   * @return The prepared goal
+   */
+  public PreparedGoal prepare(Term goal, Var<?>... parameters) {
+    return prepare(compile(goal), parameters);
+  }
+
+  /**
+   * Prepare a goal already compiled, see {@link #prepare(Term, Var[])}.
+   *
+   * @param compiledGoal
+   * @param parameters
+   * @return The prepared goal
+   */
+  public PreparedGoal prepare(CompiledGoal compiledGoal, Var<?>... parameters) {
+    return new PreparedGoal(this, compiledGoal, parameters);
+  }
+
+  /**
+   * Solve the same goal for many rows of values of its input variables, in a single pass: the goal is compiled once,
+   * and one storage of variables is reused for all rows. See {@link #solveBatch(CompiledGoal, Var[], Iterator, RowSolutionListener)}.
+   *
+   * @param goal
+   * @param inputs
+   * @param rows
+   * @param listener
+   * @return Number of rows solved
+   */
+  public long solveBatch(Term goal, Var<?>[] inputs, Iterator<Object[]> rows, RowSolutionListener listener) {
+    return solveBatch(compile(goal), inputs, rows, listener);
+  }
+
+  /**
+   * Solve a compiled goal for every row of values of its input variables, on the calling thread.
+   * This is the equivalent of solving the goal with the inputs bound, once per row, but without normalizing, compiling,
+   * and allocating a storage of variables every time.
+   *
+   * @param compiledGoal
+   * @param inputs   Variables of the goal (found by name) bound to the values of each row
+   * @param rows     Values of the inputs, in the order of inputs; a null value leaves its variable free
+   * @param listener Receives the solutions of every row, tagged with the index of the row
+   * @return Number of rows solved
+   */
+  public long solveBatch(CompiledGoal compiledGoal, Var<?>[] inputs, Iterator<Object[]> rows, RowSolutionListener listener) {
+    return new BatchSolving(this, compiledGoal, inputs, listener).solve(rows);
+  }
+
+  /**
+   * Same as {@link #solveBatch(CompiledGoal, Var[], Iterator, RowSolutionListener)} but splitting rows across worker threads,
+   * each with its own storage of variables. Rows are pulled from the iterator by one worker at a time, and the solutions
+   * of different rows are notified concurrently, in no particular order: the listener must be thread-safe.
+   *
+   * @param compiledGoal
+   * @param inputs
+   * @param rows
+   * @param listener
+   * @param executor    Where workers run
+   * @param parallelism Number of workers
+   * @return Number of rows solved
+   */
+  public long solveBatch(CompiledGoal compiledGoal, Var<?>[] inputs, Iterator<Object[]> rows, RowSolutionListener listener,
+                         ExecutorService executor, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+    }
+    return new BatchSolving(this, compiledGoal, inputs, listener).solve(rows, executor, parallelism);
+  }
+
   /**
    * This is the naive, simplest entry point for solving a goal, when all variable have to be initially free.
    *
@@ -90,20 +483,162 @@ public class Solver {
     if (termApi().isFreeVar(goal)) {
       throw new InvalidTermException("Cannot solve the goal \"" + goal + "\", the variable is not bound to a value");
     }
-    final UnifyContext initialContext = new UnifyContext(this, solutionListener);
-    if (goal instanceof Struct) {
+    return solveFromInitialContext(goal, null, null, null, solutionListener);
+  }
+
+  /**
+   * Same as {@link #solveGoal(Object, SolutionListener)} but executing a compiled plan, with identical semantics.
+   *
+   * @param compiledGoal
+   * @param solutionListener
+   * @return A {@link Continuation} or exceptionally another int value (in case of cut)
+   */
+  public int solveGoal(CompiledGoal compiledGoal, SolutionListener solutionListener) {
+    return solveFromInitialContext(compiledGoal.getGoal(), compiledGoal, null, null, solutionListener);
+  }
+
+  /**
+   * Solve a prepared goal, its parameters being bound to values in the initial storage of variables.
+   *
+   * @param preparedGoal
+   * @param values Values of the parameters; a null value leaves its parameter free
+   * @param solutionListener
+   * @return A {@link Continuation} or exceptionally another int value (in case of cut)
+   */
+  public int solveGoal(PreparedGoal preparedGoal, Object[] values, SolutionListener solutionListener) {
+    preparedGoal.checkValues(values);
+    final CompiledGoal compiledGoal = preparedGoal.getCompiledGoal();
+    return solveFromInitialContext(compiledGoal.getGoal(), compiledGoal, preparedGoal.parameters(), values, solutionListener);
+  }
+
+  /**
+   * Solve a normalized goal, some of its variables being bound to values in the initial storage of variables.
+   * A value that is a {@link org.logic2j.engine.model.Constant} of several values becomes the domain of its variable,
+   * see {@link #isSetAtATimeBoundVars()}.
+   *
+   * @param goal
+   * @param vars   Variables of the goal, as found in it
+   * @param values Values of the vars; a null value leaves its var free
+   * @param solutionListener
+   * @return A {@link Continuation} or exceptionally another int value (in case of cut)
+   */
+  public int solveGoal(Object goal, Var<?>[] vars, Object[] values, SolutionListener solutionListener) {
+    if (vars.length != values.length) {
+      throw new InvalidTermException("Goal \"" + goal + "\" has " + vars.length + " variables to bind, got " + values.length + " values");
+    }
+    return solveFromInitialContext(goal, null, vars, values, solutionListener);
+  }
+
+  private int solveFromInitialContext(Object goal, CompiledGoal compiledGoal, Var<?>[] parameters, Object[] values,
+                                      SolutionListener solutionListener) {
+    final SolveMetrics metrics = isProfiling() ? new SolveMetrics() : null;
+    // The normalized goal knows how many vars it has, size the storage for them
+    final int nbVars = (goal instanceof Struct<?> struct) ? struct.getIndex() : 0;
+    final int capacity = nbVars + this.storeHeadroom;
+    // Solutions are notified with the values of the domains of bound vars, if any is left
+    final SolutionListener listener = (parameters != null) ? currentVars -> currentVars.fanOutDomains(null, solutionListener::onSolution)
+        : solutionListener;
+    final UnifyContext initialContext;
+    if (this.statePooling) {
+      initialContext = UnifyStatePool.acquire(this, listener, metrics, capacity, this.storeGrowthPolicy, this.storeLayout);
       // We will need to clone Clauses during resolution, hence the base index
       // for any new var must be higher than any of the currently used vars.
-      initialContext.topVarIndex(((Struct<?>) goal).getIndex());
+      initialContext.topVarIndex(nbVars);
+    } else {
+      initialContext = newInitialContext(listener, metrics, nbVars);
     }
+    UnifyContext solvingContext = withAnswerTable(initialContext, metrics);
     try {
-      return solveGoal(goal, initialContext);
+      if (parameters != null) {
+        solvingContext = bindParameters(solvingContext, parameters, values);
+        if (solvingContext == null) {
+          // A value does not unify with its parameter: no solution
+          return Continuation.CONTINUE;
+        }
+        if (!this.setAtATimeBoundVars) {
+          return solvingContext.fanOutDomains(null, context -> solveBound(goal, compiledGoal, context));
+        }
+      }
+      return solveBound(goal, compiledGoal, solvingContext);
     } catch (Logic2jException e) {
       // "Functional" exception thrown during solving will just be forwarded
       throw e;
     } catch (RuntimeException e) {
       // Anything not a Logic2jException will be encapsulated
       throw new SolverException("Solver failed for goal \"" + goal + " with : " + e, e);
+    } finally {
+      if (metrics != null) {
+        publishMetrics(goal, metrics);
+      }
+      if (this.statePooling) {
+        UnifyStatePool.release(initialContext);
+      }
+    }
+  }
+
+  private int solveBound(Object goal, CompiledGoal compiledGoal, UnifyContext currentVars) {
+    return (compiledGoal != null) ? solveGoal(compiledGoal, currentVars) : solveGoal(goal, currentVars);
+  }
+
+  private static UnifyContext bindParameters(UnifyContext initialContext, Var<?>[] parameters, Object[] values) {
+    UnifyContext currentVars = initialContext;
+    for (int i = 0; i < parameters.length && currentVars != null; i++) {
+      // Null leaves the parameter free
+      if (values[i] instanceof Constant<?> constant) {
+        currentVars = currentVars.restrictDomain(parameters[i], constant.toList());
+      } else if (values[i] != null) {
+        currentVars = currentVars.unify(parameters[i], values[i]);
+      }
+    }
+    return currentVars;
+  }
+
+  /**
+   * Create the context of a new solving, with a new storage of variables configured as this solver is.
+   *
+   * @param solutionListener
+   * @param metrics Where to collect instrumentation, or null
+   * @param nbVars  Number of variables of the goal
+   * @return The initial context, with all variables free
+   */
+  UnifyContext newInitialContext(SolutionListener solutionListener, SolveMetrics metrics, int nbVars) {
+    final UnifyContext initialContext = new UnifyContext(this, solutionListener, metrics, nbVars + this.storeHeadroom, this.storeGrowthPolicy,
+        this.storeLayout);
+    // We will need to clone Clauses during resolution, hence the base index
+    // for any new var must be higher than any of the currently used vars.
+    initialContext.topVarIndex(nbVars);
+    return initialContext;
+  }
+
+  UnifyContext withAnswerTable(UnifyContext context, SolveMetrics metrics) {
+    return (this.tableCapacity > 0) ? context.withAnswerTable(new AnswerTable(this.tableCapacity, metrics)) : context;
+  }
+
+  /**
+   * Create the context to solve a branch of a disjunction on another thread, see {@link ParallelOr}: a {@link UnifyContext#fork()}
+   * of the context of the disjunction, with its own table of memoized goals.
+   *
+   * @param currentVars The context of the disjunction
+   * @param solutionListener
+   * @return The context
+   */
+  UnifyContext forkBranchContext(UnifyContext currentVars, SolutionListener solutionListener) {
+    return withAnswerTable(currentVars.fork().withListener(solutionListener), null);
+  }
+
+  /**
+   * Publish the metrics of a completed solving.
+   *
+   * @param goal
+   * @param metrics
+   */
+  protected void publishMetrics(Object goal, SolveMetrics metrics) {
+    metrics.stop();
+    if (logger.isDebugEnabled()) {
+      logger.debug("Solved {}: {}", goal, metrics);
+    }
+    if (this.metricsSink != null) {
+      this.metricsSink.onSolveCompleted(goal, metrics);
     }
   }
 
@@ -115,12 +650,37 @@ public class Solver {
    * @return A {@link Continuation} or exceptionally another int value (in case of cut).
    */
   public int solveGoal(Object goal, UnifyContext currentVars) {
+    checkSolvable(goal);
+    return countAbort(solveInternalRecursive(goal, currentVars, INITIAL_CUT_LEVEL), currentVars);
+  }
+
+  /**
+   * Same as {@link #solveGoal(Object, UnifyContext)} but executing a compiled plan.
+   *
+   * @param compiledGoal
+   * @param currentVars
+   * @return A {@link Continuation} or exceptionally another int value (in case of cut).
+   */
+  public int solveGoal(CompiledGoal compiledGoal, UnifyContext currentVars) {
+    return countAbort(compiledGoal.getPlan().solve(currentVars, INITIAL_CUT_LEVEL), currentVars);
+  }
+
+  private void checkSolvable(Object goal) {
     // Check if we will have to deal with DataFacts in this session of solving.
     // This slightly improves performance - we can bypass calling the method that deals with that
     if (goal instanceof Struct<?> && !((Struct<?>) goal).hasIndex()) {
       throw new InvalidTermException("Struct must be normalized before it can be solved: \"" + goal + "\" - call TermApi.normalize()");
     }
-    return solveInternalRecursive(goal, currentVars, INITIAL_CUT_LEVEL);
+  }
+
+  private static int countAbort(int result, UnifyContext currentVars) {
+    if (result == Continuation.USER_ABORT) {
+      final SolveMetrics metrics = currentVars.getMetrics();
+      if (metrics != null) {
+        metrics.countAbort();
+      }
+    }
+    return result;
   }
 
 
@@ -135,13 +695,14 @@ public class Solver {
    */
   @SuppressWarnings("StringEquality")
   public int solveInternalRecursive(final Object goalTerm, final UnifyContext currentVars, final int cutLevel) {
-    final long inferenceCounter = ProfilingInfo.nbInferences;
+    final SolveMetrics metrics = currentVars.getMetrics();
+    final long inferenceCounter = (metrics != null) ? metrics.countInference() : 0;
     if (logger.isDebugEnabled()) {
       logger.debug("-->> Entering solveRecursive#{}, reifiedGoal = {}", inferenceCounter, currentVars.reify(goalTerm));
       logger.debug("     cutLevel={}", cutLevel);
     }
-    if (isProfiling()) {
-      ProfilingInfo.nbInferences++;
+    if (isSolvingCancelled()) {
+      return Continuation.USER_ABORT;
     }
     int result;
 
@@ -207,18 +768,7 @@ public class Solver {
     //---------------------------------------------------------------------------
 
     else {
-      //---------------------------------------------------------------------------
-      // Regular prolog inference rule: goal :- subGoal
-      // Note: logic to handle the CUT goal here (incrementing cutLevel)
-      //---------------------------------------------------------------------------
-      result = solveAgainstClauseProviders(goalTerm, currentVars, cutLevel + 1);
-
-      //---------------------------------------------------------------------------
-      // Solve against data facts
-      //---------------------------------------------------------------------------
-      if (result == Continuation.CONTINUE) {
-        result = solveAgainstDataProviders(goalTerm, currentVars);
-      }
+      result = solveAgainstProviders(goalTerm, currentVars, cutLevel);
     }
     if (logger.isDebugEnabled()) {
       logger.debug("<<-- Exiting  solveRecursive#" + inferenceCounter + ", reifiedGoal = {}, result={}", currentVars.reify(goalTerm), result);
@@ -226,22 +776,222 @@ public class Solver {
     return result;
   }
 
+  /**
+   * Checked before each inference, by {@link #solveInternalRecursive(Object, UnifyContext, int)} and by the nodes of a
+   * {@link CompiledGoal}.
+   *
+   * @return true if the current thread solves a branch of a disjunction whose solutions are no longer needed,
+   * see {@link ParallelOr}
+   */
+  boolean isSolvingCancelled() {
+    return this.parallelOr != null && ParallelOr.isBranchCancelled();
+  }
+
+  /**
+   * Solve a goal that is neither a core nor a Java predicate: against clauses then data.
+   *
+   * @param goalTerm
+   * @param currentVars
+   * @param cutLevel
+   * @return
+   */
+  protected int solveAgainstProviders(Object goalTerm, UnifyContext currentVars, int cutLevel) {
+    if (currentVars.hasDomains() && currentVars.hasDomainIn(goalTerm)) {
+      // Providers index values: a var with a domain would look free to them, and cause a full scan. Probe once per value.
+      return currentVars.fanOutDomains(goalTerm, context -> solveAgainstProviders(goalTerm, context, cutLevel));
+    }
+    //---------------------------------------------------------------------------
+    // Regular prolog inference rule: goal :- subGoal
+    // Note: logic to handle the CUT goal here (incrementing cutLevel)
+    //---------------------------------------------------------------------------
+    final int clauseCutLevel = cutLevel + 1;
+    final int result = solveAgainstClauseProviders(goalTerm, currentVars, clauseCutLevel);
+    if (result == clauseCutLevel) {
+      // Cut executed in the body of a clause: no other alternative for that goal, not even data facts
+      return Continuation.CONTINUE;
+    }
+    if (result != Continuation.CONTINUE) {
+      return result;
+    }
+    //---------------------------------------------------------------------------
+    // Solve against data facts
+    //---------------------------------------------------------------------------
+    return solveAgainstDataProviders(goalTerm, currentVars);
+  }
+
+  /**
+   * The body of the last clause of a goal, to solve in place of the goal, see {@link #solveAgainstClauseProviders(Object, UnifyContext, int)}.
+   */
+  private static final class TailCall {
+    private Object goal;
+    private UnifyContext vars;
+  }
+
   protected boolean isJava(Struct<?> goalStruct) {
     return goalStruct instanceof FOPredicate;
   }
 
   protected int invokeJava(Struct<?> goal, UnifyContext currentVars) {
     final FOPredicate javaPredicate = (FOPredicate) goal;
+    if (currentVars.hasDomains()) {
+      if (javaPredicate instanceof SetAwarePredicate) {
+        // Not memoized: a var with a domain looks free in the reified goal
+        return javaPredicate.predicateLogic(currentVars);
+      }
+      return currentVars.fanOutDomains(goal, context -> invokeCached(javaPredicate, context));
+    }
+    return invokeCached(javaPredicate, currentVars);
+  }
+
+  private int invokeCached(FOPredicate javaPredicate, UnifyContext currentVars) {
+    if (this.resultCache != null && javaPredicate instanceof PurePredicate) {
+      return this.resultCache.solve(javaPredicate, currentVars, context -> invokeTabled(javaPredicate, context));
+    }
+    return invokeTabled(javaPredicate, currentVars);
+  }
+
+  private static int invokeTabled(FOPredicate javaPredicate, UnifyContext currentVars) {
+    if (javaPredicate instanceof TabledPredicate && currentVars.getAnswerTable() != null) {
+      return currentVars.getAnswerTable().solve(javaPredicate, currentVars, javaPredicate::predicateLogic);
+    }
     // The result will be the continuation code or CUT level
     return javaPredicate.predicateLogic(currentVars);
   }
 
 
+  /**
+   * Resolve a goal against the clauses of all providers: unify the head of each candidate clause, then solve its body.
+   * <p/>
+   * Last-call optimization: when the last alternative of a goal is a clause whose body is a single goal also solved
+   * against providers, that goal is solved in place of the current one in a loop, instead of recursively, so that
+   * tail-recursive rules such as "walk(cons(H, T)) :- walk(T)" run in constant stack depth.
+   * Bodies that are conjunctions are solved recursively: the last goal is solved on each solution to the others.
+   *
+   * @param goalTerm
+   * @param currentVars
+   * @param cutLevel
+   * @return A {@link Continuation}, or cutLevel when a cut was executed in a body, or when the goal has no alternative left
+   * after the goal solved in place of its last clause, not even data facts
+   */
   protected int solveAgainstClauseProviders(final Object goalTerm, UnifyContext currentVars, final int cutLevel) {
+    final TailCall tailCall = new TailCall();
+    int result = solveAgainstClauses(goalTerm, currentVars, cutLevel, tailCall);
+    while (tailCall.goal != null) {
+      final Object goal = tailCall.goal;
+      final UnifyContext vars = tailCall.vars;
+      tailCall.goal = null;
+      tailCall.vars = null;
+      final SolveMetrics metrics = vars.getMetrics();
+      if (metrics != null) {
+        metrics.countInference();
+      }
+      if (isSolvingCancelled()) {
+        return Continuation.USER_ABORT;
+      }
+      if (vars.hasDomains() && vars.hasDomainIn(goal)) {
+        // Probe the providers once per value, see solveAgainstProviders(); the cut level is that of the goal
+        result = vars.fanOutDomains(goal, context -> solveAgainstProviders(goal, context, cutLevel - 1));
+      } else {
+        result = solveAgainstClauses(goal, vars, cutLevel, tailCall);
+        if (result == Continuation.CONTINUE && tailCall.goal == null) {
+          result = solveAgainstDataProviders(goal, vars);
+        }
+      }
+      if (result == Continuation.CONTINUE && tailCall.goal == null) {
+        // The original goal had no alternative left: as if cut, do not look for its data facts
+        return cutLevel;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param tailCall Receives the body of the last alternative instead of solving it, if it is eligible to last-call optimization
+   * @return A {@link Continuation}, or the cut level of a cut executed in a body
+   */
+  private int solveAgainstClauses(final Object goalTerm, UnifyContext currentVars, final int cutLevel, TailCall tailCall) {
+    if (this.clauseProviders.isEmpty()) {
+      return Continuation.CONTINUE;
+    }
+    final Struct<?> goalStruct = (goalTerm instanceof String atom) ? new Struct<>(atom) : (Struct<?>) goalTerm;
+    final SolutionListener listener = currentVars.getSolutionListener();
+    for (int p = 0; p < this.clauseProviders.size(); p++) {
+      final Iterator<Clause> candidates = this.clauseProviders.get(p).listMatchingClauses(goalStruct, currentVars).iterator();
+      while (candidates.hasNext()) {
+        final Clause clause = candidates.next();
+        final Clause.Frame frame = clause.newFrame(currentVars);
+        final UnifyContext afterHead = frame.unifyHead(goalStruct, currentVars);
+        if (afterHead == null) {
+          continue;
+        }
+        final int result;
+        if (clause.isFact()) {
+          result = listener.onSolution(afterHead);
+        } else {
+          final Object body = frame.body();
+          if (!candidates.hasNext() && isSolvedAgainstProviders(body) && isLastAlternative(goalStruct, currentVars, p)) {
+            tailCall.goal = body;
+            tailCall.vars = afterHead;
+            return Continuation.CONTINUE;
+          }
+          result = solveInternalRecursive(body, afterHead, cutLevel);
+        }
+        if (result != Continuation.CONTINUE) {
+          // Abort, or cut
+          return result;
+        }
+      }
+    }
     return Continuation.CONTINUE;
   }
 
+  /**
+   * @return true if no provider after the p-th clause provider may have alternatives for goal
+   */
+  private boolean isLastAlternative(Struct<?> goal, UnifyContext currentVars, int p) {
+    for (int i = p + 1; i < this.clauseProviders.size(); i++) {
+      if (this.clauseProviders.get(i).listMatchingClauses(goal, currentVars).iterator().hasNext()) {
+        return false;
+      }
+    }
+    for (final DataFactProvider provider : this.dataFactProviders) {
+      if (provider.mayProvide(goal.getName(), goal.getArity())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if goal would be solved by {@link #solveAgainstProviders(Object, UnifyContext, int)}
+   */
+  private boolean isSolvedAgainstProviders(Object goal) {
+    if (!(goal instanceof Struct<?> struct) || goal instanceof SolverPredicate || isJava(struct)) {
+      return false;
+    }
+    final String functor = struct.getName();
+    // Names are {@link String#intern()}alized so OK to check by reference
+    return functor != Struct.FUNCTOR_COMMA && functor != Struct.FUNCTOR_SEMICOLON && functor != Struct.FUNCTOR_CALL && functor != Struct.FUNCTOR_CUT;
+  }
+
   protected int solveAgainstDataProviders(final Object goalTerm, final UnifyContext currentVars) {
+    if (this.dataFactProviders.isEmpty() || !(goalTerm instanceof Struct<?> goalStruct) || goalStruct.getArity() == 0) {
+      return Continuation.CONTINUE;
+    }
+    // Values of the arguments bound at call time allow providers to use their indexes
+    final Object[] args = goalStruct.getArgs();
+    final Object[] pattern = new Object[args.length];
+    for (int i = 0; i < args.length; i++) {
+      final Object value = currentVars.dereference(args[i]);
+      // Compound values are left to unification
+      pattern[i] = (termApi().isFreeVar(value) || value instanceof Struct<?>) ? null : value;
+    }
+    for (final DataFactProvider provider : this.dataFactProviders) {
+      final int continuation = provider.unifyAndNotify(goalStruct, pattern, currentVars);
+      if (continuation != Continuation.CONTINUE) {
+        return continuation;
+      }
+    }
     return Continuation.CONTINUE;
   }
 
@@ -20,9 +20,13 @@ package org.logic2j.engine.solver.holder;
 import org.logic2j.api.result.ResultsHolder;
 import org.logic2j.engine.exception.InvalidTermException;
 import org.logic2j.engine.model.Constant;
+import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.model.Term;
 import org.logic2j.engine.model.Var;
 import org.logic2j.engine.predicates.impl.Eq;
+import org.logic2j.engine.solver.CompiledGoal;
+import org.logic2j.engine.solver.ParallelOr;
+import org.logic2j.engine.solver.PreparedGoal;
 import org.logic2j.engine.solver.Solver;
 import org.logic2j.engine.solver.extractor.ObjectFactory;
 import org.logic2j.engine.solver.listener.CountingSolutionListener;
@@ -30,6 +34,7 @@ import org.logic2j.engine.solver.listener.ExistsSolutionListener;
 import org.logic2j.engine.solver.listener.SolutionListener;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -55,27 +60,181 @@ public class GoalHolder implements ResultsHolder<Object> {
   private final BiFunction<Object, Class, Object> termToSolutionFunction;
   private final LinkedHashMap<Var, Constant> varBindings;
 
+  /**
+   * When solving a compiled goal, the plan to execute for the {@link #effectiveGoal()}, null otherwise.
+   */
+  private CompiledGoal effectiveCompiledGoal;
+
+  /**
+   * True when the goal was provided as a {@link CompiledGoal}.
+   */
+  private final boolean compiled;
+
+  /**
+   * When solving a {@link PreparedGoal}, the goal and the values of its parameters, null otherwise.
+   */
+  private PreparedGoal preparedGoal;
+  private final Object[] parameterValues;
+
+  /**
+   * The vars bound with {@link #withBoundVar(Var, Constant)} as found in the goal, when they are bound directly in the storage
+   * of variables; null before solving, or when they are bound by Eq/2 predicates.
+   */
+  private Var<?>[] directlyBoundVars;
+
+  /**
+   * When solving a compiled goal with {@link #directlyBoundVars}, the goal prepared with the parameters of the
+   * {@link #preparedGoal} if any, then these vars; null until first solved.
+   */
+  private PreparedGoal directlyBoundGoal;
+
   public GoalHolder(Solver solver, Object theGoal, BiFunction<Object, Class, Object> termToSolutionFunction) {
     this.solver = solver;
     this.goal = theGoal;
     this.effectiveGoal = null;
     this.termToSolutionFunction = termToSolutionFunction;
     this.varBindings = new LinkedHashMap<>();
+    this.effectiveCompiledGoal = null;
+    this.compiled = false;
+    this.preparedGoal = null;
+    this.parameterValues = null;
+  }
+
+  /**
+   * Hold a goal that was compiled with {@link Solver#compile(Term...)}.
+   *
+   * @param solver
+   * @param compiledGoal
+   * @param termToSolutionFunction
+   */
+  public GoalHolder(Solver solver, CompiledGoal compiledGoal, BiFunction<Object, Class, Object> termToSolutionFunction) {
+    this.solver = solver;
+    this.goal = compiledGoal.getGoal();
+    this.effectiveGoal = null;
+    this.termToSolutionFunction = termToSolutionFunction;
+    this.varBindings = new LinkedHashMap<>();
+    this.effectiveCompiledGoal = compiledGoal;
+    this.compiled = true;
+    this.preparedGoal = null;
+    this.parameterValues = null;
+  }
+
+  /**
+   * Hold a goal that was prepared with {@link Solver#prepare(Term, Var[])}, with the values of its parameters.
+   *
+   * @param solver
+   * @param preparedGoal
+   * @param parameterValues
+   * @param termToSolutionFunction
+   */
+  public GoalHolder(Solver solver, PreparedGoal preparedGoal, Object[] parameterValues, BiFunction<Object, Class, Object> termToSolutionFunction) {
+    this.solver = solver;
+    this.goal = preparedGoal.getCompiledGoal().getGoal();
+    this.effectiveGoal = null;
+    this.termToSolutionFunction = termToSolutionFunction;
+    this.varBindings = new LinkedHashMap<>();
+    this.effectiveCompiledGoal = preparedGoal.getCompiledGoal();
+    this.compiled = true;
+    this.preparedGoal = preparedGoal;
+    this.parameterValues = parameterValues;
   }
 
   /**
-   * Entry point for solving, in case we have variable bound to values, we will prepend the goal with
-   * Eq/2 predicates that will bind the variables to the specified values.
+   * Entry point for solving, in case we have variable bound to values, we will bind them directly in the storage
+   * of variables, or else prepend the goal with Eq/2 predicates that will bind the variables to the specified values.
    * We do not make this method public since implementing SolutionListener requires to know the gutts
    * of the {@link org.logic2j.engine.unify.UnifyContext}.
    *
    * @param listener Callback for each solution
    * @return Continuation
    */
-  private int solve(SolutionListener listener) {
+  int solve(SolutionListener listener) {
+    if (!varBindings.isEmpty() && bindsVarsDirectly()) {
+      return solveBindingVarsDirectly(listener);
+    }
+    if (preparedGoal != null) {
+      return solver.solveGoal(effectivePreparedGoal(), parameterValues, listener);
+    }
+    if (compiled) {
+      return solver.solveGoal(effectiveCompiledGoal(), listener);
+    }
     return solver.solveGoal(effectiveGoal(), listener);
   }
 
+  /**
+   * @return The compiled plan of the {@link #effectiveGoal()}: the original one if no var is bound, otherwise
+   * the effective goal needs to be compiled again.
+   */
+  private CompiledGoal effectiveCompiledGoal() {
+    final Object effective = effectiveGoal();
+    if (effectiveCompiledGoal.getGoal() != effective) {
+      effectiveCompiledGoal = solver.compileNormalized(effective);
+    }
+    return effectiveCompiledGoal;
+  }
+
+  /**
+   * @return True if all vars bound with {@link #withBoundVar(Var, Constant)} are found in the goal: they can be bound directly in the
+   * storage of variables, and then range over the domain of their values, see {@link Solver#isSetAtATimeBoundVars()}.
+   * Otherwise the goal is prepended with Eq/2 predicates, see {@link #effectiveGoal()}.
+   */
+  private boolean bindsVarsDirectly() {
+    if (directlyBoundVars != null) {
+      return true;
+    }
+    if (!(getGoal() instanceof Struct<?>)) {
+      return false;
+    }
+    final Var<?>[] found = new Var<?>[varBindings.size()];
+    int i = 0;
+    for (Var<?> var : varBindings.keySet()) {
+      found[i] = termApi().findVar(getGoal(), var.getName());
+      if (found[i++] == null) {
+        return false;
+      }
+    }
+    directlyBoundVars = found;
+    return true;
+  }
+
+  /**
+   * @return True if solving again produces the same solutions in the same order, this is not the case when
+   * disjunctions are solved concurrently with {@link ParallelOr.Ordering#UNORDERED}.
+   */
+  boolean solvesInSameOrder() {
+    final ParallelOr parallelOr = solver.getParallelOr();
+    return parallelOr == null || parallelOr.getOrdering() == ParallelOr.Ordering.DETERMINISTIC;
+  }
+
+  private int solveBindingVarsDirectly(SolutionListener listener) {
+    final Constant<?>[] bindings = varBindings.values().toArray(new Constant<?>[0]);
+    if (!compiled) {
+      return solver.solveGoal(getGoal(), directlyBoundVars, bindings, listener);
+    }
+    // Bind the parameters of the prepared goal first, if any, then our vars
+    if (directlyBoundGoal == null) {
+      final Var<?>[] parameters = (preparedGoal != null) ? preparedGoal.getParameters() : new Var<?>[0];
+      final Var<?>[] vars = Arrays.copyOf(parameters, parameters.length + directlyBoundVars.length);
+      System.arraycopy(directlyBoundVars, 0, vars, parameters.length, directlyBoundVars.length);
+      directlyBoundGoal = solver.prepare(effectiveCompiledGoal, vars);
+    }
+    final Object[] parameterValues = (preparedGoal != null) ? this.parameterValues : new Object[0];
+    final Object[] values = Arrays.copyOf(parameterValues, parameterValues.length + bindings.length);
+    System.arraycopy(bindings, 0, values, parameterValues.length, bindings.length);
+    return solver.solveGoal(directlyBoundGoal, values, listener);
+  }
+
+  /**
+   * @return The prepared goal, prepared again on the {@link #effectiveCompiledGoal()} if vars are bound.
+   */
+  private PreparedGoal effectivePreparedGoal() {
+    final CompiledGoal effective = effectiveCompiledGoal();
+    if (preparedGoal.getCompiledGoal() != effective) {
+      preparedGoal = solver.prepare(effective, preparedGoal.getParameters());
+    }
+    return preparedGoal;
+  }
+
   /**
    * Based on the existence of bindings of free vars to constants, see {@link #withBoundVar(Var, Constant)},
    * modify the predefined goal to add Eq/2 predicates to bind the free vars to real values.
@@ -86,7 +245,7 @@ public class GoalHolder implements ResultsHolder<Object> {
     if (effectiveGoal != null) {
       return effectiveGoal;
     }
-    if (varBindings.isEmpty()) {
+    if (varBindings.isEmpty() || bindsVarsDirectly()) {
       effectiveGoal = getGoal();
     } else {
       if (!(getGoal() instanceof Term)) {
@@ -270,8 +429,20 @@ public class GoalHolder implements ResultsHolder<Object> {
   }
 
 
+  /**
+   * Bind a var of the goal to a value, or to several values: the goal is then solved for each of them.
+   * With {@link Solver#isSetAtATimeBoundVars()}, the var ranges over the domain of the values instead, which changes the order
+   * of solutions: e.g. with X bound to several values, "digit(Y), X &lt; Y" is ordered by Y first, then by X.
+   *
+   * @param var
+   * @param binding
+   * @return this
+   */
   public <T> GoalHolder withBoundVar(Var<T> var, Constant<T> binding) {
     varBindings.put(var, binding);
+    directlyBoundVars = null;
+    directlyBoundGoal = null;
+    effectiveGoal = null;
     return this;
   }
 
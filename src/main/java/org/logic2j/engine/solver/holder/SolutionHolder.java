@@ -21,7 +21,7 @@ import org.logic2j.api.result.ResultsHolder;
 import org.logic2j.engine.exception.SolverException;
 import org.logic2j.engine.model.Var;
 import org.logic2j.engine.solver.extractor.*;
-import org.logic2j.engine.solver.listener.IterableSolutionListener;
+import org.logic2j.engine.solver.listener.DistinctSolutionListener;
 import org.logic2j.engine.solver.listener.MultiVarSolutionListener;
 import org.logic2j.engine.solver.listener.RangeSolutionListener;
 import org.logic2j.engine.solver.listener.SingleVarSolutionListener;
@@ -31,6 +31,8 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.logic2j.engine.model.TermApiLocator.termApi;
 
@@ -52,6 +54,11 @@ public class SolutionHolder<T> implements ResultsHolder<T> {
 
   private long maxNbr = Long.MAX_VALUE - 1; // Keep possibility to add one because the RangeSolutionListener "fetch" property
 
+  /**
+   * Only retain distinct solutions, see {@link #distinct()}.
+   */
+  private boolean distinct = false;
+
   // I think this could be clarified a little - those are impl of the same interface, but one is generic the other not
   private final SingleVarExtractor<T> singleVarExtractor;
 
@@ -211,16 +218,39 @@ public class SolutionHolder<T> implements ResultsHolder<T> {
 
 
   /**
-   * Launches the solver.
+   * Launches the solver. Duplicates are dropped as solutions are produced, see {@link DistinctSolutionListener}.
    *
-   * @return a distinct Set of solutions in a HashSet.
-   * @note This is an inefficient implementation: all solutions are gathered first using List(), and then added individually
-   * into a HashSet. A much better approach would be to calculate the "distinct" feature where
-   * SolutionExtractor.extractSolution() is called, ie in one of the various
+   * @return a distinct Set of solutions, in order of first occurrence.
    */
   @Override
   public Set<T> set() {
-    return new HashSet<>(list());
+    final DistinctSolutionListener<T> listener = new DistinctSolutionListener<>(effectiveExtractor());
+    solveWithRanges(listener, this.minNbr, this.maxNbr, this.maxNbr + 1);
+    return new LinkedHashSet<>(listener.getResults());
+  }
+
+  /**
+   * Launches the solver to count distinct solutions, without keeping them.
+   *
+   * @return The number of distinct solutions.
+   * @throws ArithmeticException If there are more than {@link Integer#MAX_VALUE} distinct solutions
+   */
+  public int distinctCount() {
+    final DistinctSolutionListener<T> listener = new DistinctSolutionListener<>(effectiveExtractor(), false);
+    solveWithRanges(listener, this.minNbr, this.maxNbr, this.maxNbr + 1);
+    return Math.toIntExact(listener.getNbSolutions());
+  }
+
+  /**
+   * Only retain distinct solutions in {@link #list()}, {@link #array(Object[])}, {@link #first()}, {@link #single()}
+   * and {@link #unique()}. Cardinality constraints then apply to distinct solutions.
+   *
+   * @return this instance
+   * @note Does not apply to #iterator() and #stream(), use {@link Stream#distinct()}.
+   */
+  public SolutionHolder<T> distinct() {
+    this.distinct = true;
+    return this;
   }
 
 
@@ -237,72 +267,42 @@ public class SolutionHolder<T> implements ResultsHolder<T> {
 
 
   /**
-   * Launch the prolog engine in a separate thread to produce solutions while the main caller can consume
-   * from this {@link Iterator} at its own pace.
-   * This uses the {@link IterableSolutionListener}.
+   * Launch the solver in a virtual thread to produce solutions while the caller consumes them
+   * from this {@link Iterator} at its own pace, see {@link SolutionIterator}.
+   * Close the iterator when not consuming all solutions, this aborts the solving.
    * Note: there is no bounds checking when using iterator()
    *
    * @return An iterator for all solutions.
    */
   @Override
-  public Iterator<T> iterator() {
-    final SolutionExtractor<?> effectiveExtractor;
-    if (SolutionHolder.this.singleVarExtractor != null) {
-      effectiveExtractor = SolutionHolder.this.singleVarExtractor;
-    } else {
-      effectiveExtractor = SolutionHolder.this.multiVarExtractor;
-    }
-    final IterableSolutionListener listener = new IterableSolutionListener(effectiveExtractor);
-
-    final Runnable prologSolverThread = () -> {
-      logger.debug("Started producer (prolog solver engine) thread");
-      // Start solving in a parallel thread, and rush to first solution (that will be called back in the listener)
-      // and will wait for the main thread to extract it
-      SolutionHolder.this.goalHolder.getSolver().solveGoal(SolutionHolder.this.goalHolder.effectiveGoal(), listener);
-      logger.debug("Producer (prolog solver engine) thread finishes");
-      // Last solution was extracted. Producer's callback won't now be called anymore - so to
-      // prevent the consumer for listening forever for the next solution that won't come...
-      // We wait from a last notify from our client
-      listener.clientToEngineInterface().waitUntilAvailable();
-      // And we tell it we are aborting. No solution transferred for this last "hang up" message
-      listener.engineToClientInterface().wakeUp();
-      // Notice the 2 lines above are exactly the sames as those in the listener's onSolution()
-    };
-    new Thread(prologSolverThread).start();
-
-    return new Iterator<>() {
-
-      private Object solution;
-
-      @Override
-      public boolean hasNext() {
-        // Now ask engine to run...
-        listener.clientToEngineInterface().wakeUp();
-        // And wait for a solution. Store it in any case we need it in next()
-        this.solution = listener.engineToClientInterface().waitUntilAvailable();
-        // Did it get one?
-        return this.solution != null;
-      }
-
-      @Override
-      public T next() {
-        if (this.solution == null) {
-          throw new NoSuchElementException(
-                  "Program error: next() called when either hasNext() did not return true previously, or next() was called more than once");
-        }
-        final Object toReturn = this.solution;
-        // Indicate that we have just "consumed" the solution, and any subsequent call to next() without first calling hasNext()
-        // will fail.
-        this.solution = null;
-        return (T) toReturn;
-      }
-
-      @Override
-      public void remove() {
-        throw new SolverException("iterator() provides a read-only Term iterator, cannot remove elements");
-      }
-
-    };
+  public SolutionIterator<T> iterator() {
+    return iterator(SolutionIterator.DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Same as {@link #iterator()} with control over how many solutions are handed over at once.
+   *
+   * @param maxBatchSize Maximal number of solutions handed over at once; 1 minimizes latency, larger values favour throughput.
+   * @return An iterator for all solutions.
+   */
+  public SolutionIterator<T> iterator(int maxBatchSize) {
+    return new SolutionIterator<>(this.goalHolder::solve, effectiveExtractor(), maxBatchSize);
+  }
+
+  /**
+   * Launches the solver lazily, when a terminal operation is invoked on the stream.
+   * Operations that traverse all solutions (forEach, collect, count...) run the solver on the calling thread.
+   * Short-circuiting operations (findFirst, anyMatch, limit...) pull solutions one at a time: the first ones are also
+   * produced on the calling thread, see {@link SolutionSpliterator}. Beyond those they are produced as with {@link #iterator()}:
+   * close the stream, typically with try-with-resources, to abort the solving when not all solutions are consumed.
+   * Note: there is no bounds checking when using stream()
+   *
+   * @return A sequential, ordered stream of solutions.
+   */
+  public Stream<T> stream() {
+    final SolutionSpliterator<T> spliterator = new SolutionSpliterator<>(this.goalHolder::solve, effectiveExtractor(),
+        SolutionIterator.DEFAULT_MAX_BATCH_SIZE, this.goalHolder.solvesInSameOrder());
+    return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
   }
 
   // ---------------------------------------------------------------------------
@@ -370,13 +370,30 @@ public class SolutionHolder<T> implements ResultsHolder<T> {
   // Support methods
   // ---------------------------------------------------------------------------
 
-  private void initListenerRangesAndSolve(long minCount, long maxCount, long maxFetch) {
+  @SuppressWarnings("unchecked")
+  private SolutionExtractor<T> effectiveExtractor() {
     if (this.singleVarExtractor != null) {
-      this.rangeListener = new SingleVarSolutionListener(this.singleVarExtractor);
+      return this.singleVarExtractor;
+    }
+    assert this.multiVarExtractor != null : "neither single nor multiple var extractor";
+    return this.multiVarExtractor;
+  }
+
+  private void initListenerRangesAndSolve(long minCount, long maxCount, long maxFetch) {
+    final RangeSolutionListener<?> listener;
+    if (this.distinct) {
+      listener = new DistinctSolutionListener<>(effectiveExtractor());
+    } else if (this.singleVarExtractor != null) {
+      listener = new SingleVarSolutionListener<>(this.singleVarExtractor);
     } else {
       assert this.multiVarExtractor != null : "neither single nor multiple var extractor";
-      this.rangeListener = new MultiVarSolutionListener(this.multiVarExtractor);
+      listener = new MultiVarSolutionListener<>(effectiveExtractor());
     }
+    solveWithRanges(listener, minCount, maxCount, maxFetch);
+  }
+
+  private void solveWithRanges(RangeSolutionListener<?> listener, long minCount, long maxCount, long maxFetch) {
+    this.rangeListener = listener;
     this.rangeListener.setMinCount(minCount);
     this.rangeListener.setMaxCount(maxCount);
     this.rangeListener.setMaxFetch(maxFetch);
@@ -384,7 +401,7 @@ public class SolutionHolder<T> implements ResultsHolder<T> {
   }
 
   private void solveAndCheckRanges() {
-    this.goalHolder.getSolver().solveGoal(this.goalHolder.effectiveGoal(), this.rangeListener);
+    this.goalHolder.solve(this.rangeListener);
     this.rangeListener.checkRange();
   }
 
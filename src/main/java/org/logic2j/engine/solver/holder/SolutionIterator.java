@@ -0,0 +1,261 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.holder;
+
+import org.logic2j.engine.exception.SolverException;
+import org.logic2j.engine.solver.extractor.SolutionExtractor;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Cleaner;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+import static org.logic2j.engine.solver.Continuation.USER_ABORT;
+
+/**
+ * Iterate over solutions while the solver produces them in a virtual thread.
+ * Solutions are handed over in batches through a bounded queue: the first batch holds one solution so that the first
+ * one arrives without delay, then batches double in size up to a maximum. The producer only blocks when the queue is full,
+ * hence it never runs ahead of the consumer by more than a few batches.
+ * <p/>
+ * Closing this iterator before its end aborts the solving, see {@link #close()}. An iterator that is neither exhausted
+ * nor closed is closed once it becomes unreachable; better close it explicitly with try-with-resources.
+ * An exception thrown while solving is rethrown to the consumer by {@link #hasNext()} or {@link #next()}.
+ */
+public final class SolutionIterator<T> implements Iterator<T>, AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(SolutionIterator.class);
+
+  /**
+   * Default maximal number of solutions handed over at once.
+   */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+  /**
+   * Number of batches the producer may be ahead of the consumer.
+   */
+  private static final int QUEUE_CAPACITY = 4;
+
+  private static final Cleaner cleaner = Cleaner.create();
+
+  /**
+   * Marks the end of solutions in the queue.
+   */
+  private static final Object[] END = new Object[0];
+
+  private final Channel channel;
+
+  private final Cleaner.Cleanable cleanable;
+
+  private Object[] batch = new Object[0];
+
+  private int batchIndex = 0;
+
+  private boolean ended = false;
+
+  /**
+   * Start solving.
+   *
+   * @param solving      Launches the solving with the listener specified, see {@link GoalHolder#solve(SolutionListener)}
+   * @param extractor    To extract each solution to hand over
+   * @param maxBatchSize Maximal number of solutions handed over at once
+   */
+  SolutionIterator(Consumer<SolutionListener> solving, SolutionExtractor<?> extractor, int maxBatchSize) {
+    this(solving, extractor, maxBatchSize, 0);
+  }
+
+  /**
+   * Start solving, ignoring the first solutions.
+   *
+   * @param solving      Launches the solving with the listener specified, see {@link GoalHolder#solve(SolutionListener)}
+   * @param extractor    To extract each solution to hand over
+   * @param maxBatchSize Maximal number of solutions handed over at once
+   * @param nbSkipped    Number of first solutions not to hand over, already consumed from a previous solving
+   */
+  SolutionIterator(Consumer<SolutionListener> solving, SolutionExtractor<?> extractor, int maxBatchSize, long nbSkipped) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be positive, was " + maxBatchSize);
+    }
+    this.channel = new Channel(extractor, maxBatchSize, nbSkipped);
+    // The producer must not reference this iterator, otherwise it would never become unreachable
+    final Channel producerChannel = this.channel;
+    this.channel.producer = Thread.ofVirtual().name("logic2j-solution-producer").start(() -> producerChannel.produce(solving));
+    this.cleanable = cleaner.register(this, channel::cancel);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (batchIndex < batch.length) {
+      return true;
+    }
+    if (ended) {
+      return false;
+    }
+    final Object[] nextBatch = channel.take();
+    if (nextBatch == END) {
+      ended = true;
+      batch = END;
+      batchIndex = 0;
+      cleanable.clean();
+      channel.rethrowFailure();
+      return false;
+    }
+    batch = nextBatch;
+    batchIndex = 0;
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more solutions");
+    }
+    final Object solution = batch[batchIndex];
+    batch[batchIndex++] = null; // Don't retain solutions already returned
+    return (T) solution;
+  }
+
+  /**
+   * Stop iterating: the solving is aborted as soon as it produces its next solution, and no more solutions are returned.
+   * May be invoked several times.
+   */
+  @Override
+  public void close() {
+    ended = true;
+    batch = END;
+    batchIndex = 0;
+    cleanable.clean();
+  }
+
+  /**
+   * State shared between the producer (solver) and the consumer (this iterator).
+   */
+  private static final class Channel implements SolutionListener {
+    private final SolutionExtractor<?> extractor;
+    private final int maxBatchSize;
+    private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private volatile boolean cancelled = false;
+    private volatile Throwable failure = null;
+    private volatile Thread producer;
+
+    // Only accessed by the producer
+    private Object[] pending = new Object[1];
+    private int nbPending = 0;
+    private long nbToSkip;
+
+    Channel(SolutionExtractor<?> extractor, int maxBatchSize, long nbSkipped) {
+      this.extractor = extractor;
+      this.maxBatchSize = maxBatchSize;
+      this.nbToSkip = nbSkipped;
+    }
+
+    void produce(Consumer<SolutionListener> solving) {
+      logger.debug("Started producer of solutions");
+      try {
+        solving.accept(this);
+      } catch (Throwable e) {
+        if (!cancelled) {
+          failure = e;
+        }
+      }
+      // Solutions produced before any failure are still delivered
+      try {
+        if (!cancelled && nbPending > 0) {
+          put(Arrays.copyOf(pending, nbPending));
+        }
+        if (!cancelled) {
+          put(END);
+        }
+      } catch (InterruptedException e) {
+        // Cancelled, no consumer anymore
+      }
+      logger.debug("Producer of solutions finishes");
+    }
+
+    @Override
+    public int onSolution(UnifyContext currentVars) {
+      if (cancelled) {
+        return USER_ABORT;
+      }
+      if (nbToSkip > 0) {
+        nbToSkip--;
+        return CONTINUE;
+      }
+      pending[nbPending++] = extractor.extractSolution(currentVars);
+      if (nbPending == pending.length) {
+        try {
+          put(pending);
+        } catch (InterruptedException e) {
+          return USER_ABORT;
+        }
+        // Grow batches to reduce handovers, the first ones are small for a short latency
+        pending = new Object[Math.min(pending.length * 2, maxBatchSize)];
+        nbPending = 0;
+      }
+      return cancelled ? USER_ABORT : CONTINUE;
+    }
+
+    private void put(Object[] batch) throws InterruptedException {
+      queue.put(batch);
+    }
+
+    Object[] take() {
+      try {
+        return queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SolverException("Interrupted while waiting for the next solution", e);
+      }
+    }
+
+    void rethrowFailure() {
+      final Throwable e = failure;
+      if (e instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e instanceof Error error) {
+        throw error;
+      }
+      if (e != null) {
+        throw new SolverException("Failure while producing solutions: " + e, e);
+      }
+    }
+
+    void cancel() {
+      if (!cancelled) {
+        cancelled = true;
+        final Thread thread = producer;
+        if (thread != null && thread.isAlive()) {
+          // Unblock the producer if it is waiting for room in the queue
+          thread.interrupt();
+        }
+        queue.clear();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.engine.solver.holder;
+
+import org.logic2j.engine.solver.extractor.SolutionExtractor;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+import static org.logic2j.engine.solver.Continuation.USER_ABORT;
+
+/**
+ * Lazily produce solutions for a {@link java.util.stream.Stream}, see {@link SolutionHolder#stream()}.
+ * <p/>
+ * Traversing all solutions ({@link #forEachRemaining(Consumer)}, used by forEach, collect, count, reduce...)
+ * runs the solver on the calling thread, each solution being pushed to the stream as soon as it is found.
+ * <p/>
+ * Short-circuiting operations (findFirst, anyMatch, limit...) pull solutions one at a time with {@link #tryAdvance(Consumer)}
+ * and never tell when they stop pulling. The solver cannot be suspended, so the first solutions are obtained by solving
+ * on the calling thread into a window of solutions, then aborting with {@link org.logic2j.engine.solver.Continuation#USER_ABORT}.
+ * When the window is consumed the goal is solved again, skipping the solutions already consumed, into a window twice as large.
+ * Nothing is left running when the stream is abandoned, but goals with side effects see them repeated.
+ * Beyond windows of the maximal batch size, or when solving again would not produce solutions in the same order,
+ * solutions come from a {@link SolutionIterator}, whose solving is aborted when the stream is closed.
+ */
+final class SolutionSpliterator<T> implements Spliterator<T>, AutoCloseable {
+
+  private final Consumer<SolutionListener> solving;
+
+  private final SolutionExtractor<?> extractor;
+
+  private final int maxBatchSize;
+
+  /**
+   * Solving again produces the same solutions in the same order, see {@link GoalHolder#solvesInSameOrder()}.
+   */
+  private final boolean replayable;
+
+  /**
+   * Number of solutions handed over to the stream.
+   */
+  private long nbDelivered = 0;
+
+  /**
+   * Solutions of the current window, solved on the calling thread.
+   */
+  private Object[] window = new Object[0];
+
+  private int windowSize = 0;
+
+  private int windowIndex = 0;
+
+  private boolean exhausted = false;
+
+  /**
+   * Only when pulling beyond the windows solved on the calling thread.
+   */
+  private SolutionIterator<T> cursor = null;
+
+  SolutionSpliterator(Consumer<SolutionListener> solving, SolutionExtractor<?> extractor, int maxBatchSize, boolean replayable) {
+    this.solving = solving;
+    this.extractor = extractor;
+    this.maxBatchSize = maxBatchSize;
+    this.replayable = replayable;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    if (cursor == null && windowIndex == windowSize) {
+      if (exhausted) {
+        return false;
+      }
+      if (replayable && window.length < maxBatchSize) {
+        solveWindow(window.length == 0 ? 1 : Math.min(window.length * 2, maxBatchSize));
+        if (windowSize == 0) {
+          return false;
+        }
+      } else {
+        cursor = new SolutionIterator<>(solving, extractor, maxBatchSize, nbDelivered);
+      }
+    }
+    if (cursor != null) {
+      if (!cursor.hasNext()) {
+        return false;
+      }
+      action.accept(cursor.next());
+      return true;
+    }
+    action.accept(nextOfWindow());
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void forEachRemaining(Consumer<? super T> action) {
+    if (cursor != null) {
+      // Already pulling, continue from there
+      cursor.forEachRemaining(action);
+      return;
+    }
+    while (windowIndex < windowSize) {
+      action.accept(nextOfWindow());
+    }
+    if (exhausted) {
+      return;
+    }
+    exhausted = true;
+    final long nbSkipped = nbDelivered;
+    solving.accept(new SolutionListener() {
+      private long nbSeen = 0;
+
+      @Override
+      public int onSolution(UnifyContext currentVars) {
+        if (nbSeen++ >= nbSkipped) {
+          action.accept((T) extractor.extractSolution(currentVars));
+        }
+        return CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Solve on the calling thread the solutions following those already delivered, at most capacity of them.
+   */
+  private void solveWindow(int capacity) {
+    final Object[] solutions = new Object[capacity];
+    final long nbSkipped = nbDelivered;
+    final int[] nbSolutions = {0};
+    solving.accept(new SolutionListener() {
+      private long nbSeen = 0;
+
+      @Override
+      public int onSolution(UnifyContext currentVars) {
+        if (nbSeen++ < nbSkipped) {
+          return CONTINUE;
+        }
+        solutions[nbSolutions[0]++] = extractor.extractSolution(currentVars);
+        return nbSolutions[0] == capacity ? USER_ABORT : CONTINUE;
+      }
+    });
+    window = solutions;
+    windowSize = nbSolutions[0];
+    windowIndex = 0;
+    exhausted = windowSize < capacity;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T nextOfWindow() {
+    final Object solution = window[windowIndex];
+    window[windowIndex++] = null; // Don't retain solutions already returned
+    nbDelivered++;
+    return (T) solution;
+  }
+
+  @Override
+  public Spliterator<T> trySplit() {
+    // Solving is sequential
+    return null;
+  }
+
+  @Override
+  public long estimateSize() {
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED;
+  }
+
+  @Override
+  public void close() {
+    exhausted = true;
+    windowSize = windowIndex = 0;
+    if (cursor != null) {
+      cursor.close();
+    }
+  }
+
+}
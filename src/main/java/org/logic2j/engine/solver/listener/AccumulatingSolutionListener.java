@@ -0,0 +1,54 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.listener;
+
+import org.logic2j.engine.unify.UnifyContext;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+/**
+ * A {@link SolutionListener} that folds the value of a term over all solutions into an {@link Accumulator},
+ * without keeping the solutions.
+ */
+public class AccumulatingSolutionListener implements SolutionListener {
+
+  private final Object valueTerm;
+
+  private final Accumulator accumulator;
+
+  /**
+   * @param valueTerm   The term (usually a var of the goal) whose value is accumulated
+   * @param accumulator
+   */
+  public AccumulatingSolutionListener(Object valueTerm, Accumulator accumulator) {
+    this.valueTerm = valueTerm;
+    this.accumulator = accumulator;
+  }
+
+  @Override
+  public int onSolution(UnifyContext currentVars) {
+    accumulator.accept(currentVars.reify(valueTerm));
+    return CONTINUE;
+  }
+
+  public Accumulator getAccumulator() {
+    return accumulator;
+  }
+
+}
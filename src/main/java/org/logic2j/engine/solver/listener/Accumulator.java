@@ -0,0 +1,275 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.listener;
+
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.exception.SolverException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental fold of the values of solutions, see {@link AccumulatingSolutionListener}.
+ * Numeric accumulators work on primitives: integral values are summed or compared as longs, others as doubles;
+ * nothing is retained except the current result.
+ * An accumulator is stateful and must be used for a single fold.
+ */
+public abstract class Accumulator {
+
+  /**
+   * @param value The value of the next solution, reified
+   */
+  public abstract void accept(Object value);
+
+  /**
+   * @return true if no value was accepted, and the aggregation has no meaningful result (min, max, avg).
+   */
+  public abstract boolean isUndefined();
+
+  /**
+   * @return The aggregated value; only valid when not {@link #isUndefined()}.
+   */
+  public abstract Object result();
+
+  // ---------------------------------------------------------------------------
+  // Factories
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @return Number of values; 0 if none
+   */
+  public static Accumulator count() {
+    return new Count();
+  }
+
+  /**
+   * @return Sum of numbers; an Integer when all values were Integers and the sum fits, a Long if all were integral,
+   * a Double otherwise; 0 if none
+   */
+  public static Accumulator sum() {
+    return new Sum();
+  }
+
+  /**
+   * @return Average of numbers as a Double; undefined if none
+   */
+  public static Accumulator avg() {
+    return new Avg();
+  }
+
+  /**
+   * @return The smallest of numbers, or of {@link Comparable} values; undefined if none
+   */
+  public static Accumulator min() {
+    return new Extremum(-1);
+  }
+
+  /**
+   * @return The largest of numbers, or of {@link Comparable} values; undefined if none
+   */
+  public static Accumulator max() {
+    return new Extremum(1);
+  }
+
+  /**
+   * @return All values in a List, in order of solutions; the empty List if none
+   */
+  public static Accumulator collect() {
+    return new Collect();
+  }
+
+  private static Number toNumber(Object value) {
+    if (value instanceof Number number) {
+      return number;
+    }
+    throw new SolverException("Cannot aggregate non-numeric value \"" + value + '"');
+  }
+
+  private static boolean isIntegral(Number number) {
+    return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Implementations
+  // ---------------------------------------------------------------------------
+
+  private static final class Count extends Accumulator {
+    private int count = 0;
+
+    @Override
+    public void accept(Object value) {
+      count++;
+    }
+
+    @Override
+    public boolean isUndefined() {
+      return false;
+    }
+
+    @Override
+    public Object result() {
+      return count;
+    }
+  }
+
+  private static class Sum extends Accumulator {
+    long longSum = 0;
+    double doubleSum = 0;
+    boolean integral = true;
+    boolean allInts = true;
+    long count = 0;
+
+    @Override
+    public void accept(Object value) {
+      final Number number = toNumber(value);
+      count++;
+      if (integral && isIntegral(number)) {
+        allInts &= number instanceof Integer;
+        try {
+          longSum = Math.addExact(longSum, number.longValue());
+          return;
+        } catch (ArithmeticException e) {
+          // Overflow, continue with doubles
+        }
+      }
+      if (integral) {
+        // Switch to floating point once and for all
+        integral = false;
+        doubleSum = longSum;
+        longSum = 0;
+      }
+      doubleSum += number.doubleValue();
+    }
+
+    @Override
+    public boolean isUndefined() {
+      return false;
+    }
+
+    @Override
+    public Object result() {
+      if (!integral) {
+        return doubleSum;
+      }
+      if (allInts && longSum >= Integer.MIN_VALUE && longSum <= Integer.MAX_VALUE) {
+        return (int) longSum;
+      }
+      return longSum;
+    }
+  }
+
+  private static final class Avg extends Sum {
+    @Override
+    public boolean isUndefined() {
+      return count == 0;
+    }
+
+    @Override
+    public Object result() {
+      return (integral ? (double) longSum : doubleSum) / count;
+    }
+  }
+
+  private static final class Extremum extends Accumulator {
+    /**
+     * -1 for min, +1 for max
+     */
+    private final int sign;
+    private Object best = null;
+    private long bestLong;
+    private double bestDouble;
+    private boolean defined = false;
+
+    Extremum(int sign) {
+      this.sign = sign;
+    }
+
+    @Override
+    public void accept(Object value) {
+      if (!defined) {
+        keep(value);
+        return;
+      }
+      final int comparison;
+      if (value instanceof Number number && best instanceof Number) {
+        if (isIntegral(number) && best instanceof Number bestNumber && isIntegral(bestNumber)) {
+          comparison = Long.compare(number.longValue(), bestLong);
+        } else {
+          comparison = Double.compare(number.doubleValue(), bestDouble);
+        }
+      } else if (value instanceof Comparable<?> comparable) {
+        try {
+          comparison = compareTo(comparable, best);
+        } catch (ClassCastException e) {
+          throw new InvalidTermException("Cannot compare values of different types to find the " + (sign < 0 ? "min" : "max") + ": \"" + value + "\" and \""
+              + best + '"', e);
+        }
+      } else {
+        throw new SolverException("Cannot compare value \"" + value + "\" to find the " + (sign < 0 ? "min" : "max"));
+      }
+      if (comparison * sign > 0) {
+        keep(value);
+      }
+    }
+
+    @SuppressWarnings("unchecked") // Values of different types throw ClassCastException, reported by the caller
+    private static int compareTo(Comparable<?> comparable, Object other) {
+      return ((Comparable<Object>) comparable).compareTo(other);
+    }
+
+    private void keep(Object value) {
+      best = value;
+      defined = true;
+      if (value instanceof Number number) {
+        bestLong = number.longValue();
+        bestDouble = number.doubleValue();
+      }
+    }
+
+    @Override
+    public boolean isUndefined() {
+      return !defined;
+    }
+
+    @Override
+    public Object result() {
+      return best;
+    }
+  }
+
+  private static final class Collect extends Accumulator {
+    private final List<Object> values = new ArrayList<>();
+
+    @Override
+    public void accept(Object value) {
+      values.add(value);
+    }
+
+    @Override
+    public boolean isUndefined() {
+      return false;
+    }
+
+    @Override
+    public Object result() {
+      return values;
+    }
+  }
+
+}
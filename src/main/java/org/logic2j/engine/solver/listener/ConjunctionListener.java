@@ -0,0 +1,89 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.engine.solver.listener;
+
+import org.logic2j.engine.unify.UnifyContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One link of a chain of listeners solving a conjunction of goals G1,G2,...,GN: on each solution to the previous goal,
+ * solves the next goal against the next link. The chain is stateless hence built once per conjunction and shared by all
+ * its solvings: the downstream listener and the cut level are held by the context, see
+ * {@link UnifyContext#enterConjunction(SolutionListener, int)}. The last link exits the conjunction so that solutions
+ * to GN go to the listener of the context that entered it.
+ *
+ * @param <T> Type of the goals, as solved by a {@link Step}
+ */
+public final class ConjunctionListener<T> implements SolutionListener {
+  private static final Logger logger = LoggerFactory.getLogger(ConjunctionListener.class);
+
+  /**
+   * How to solve one goal of a conjunction.
+   *
+   * @param <T> Type of the goals
+   */
+  @FunctionalInterface
+  public interface Step<T> {
+    int solve(T goal, UnifyContext currentVars, int cutLevel);
+  }
+
+  private final T nextGoal;
+  private final ConjunctionListener<T> nextListener; // null for the last goal of the chain
+  private final Step<T> step;
+
+  private ConjunctionListener(T nextGoal, ConjunctionListener<T> nextListener, Step<T> step) {
+    this.nextGoal = nextGoal;
+    this.nextListener = nextListener;
+    this.step = step;
+  }
+
+  /**
+   * Build the chain for a conjunction of at least 2 goals.
+   *
+   * @param conjunctions
+   * @param step
+   * @return The listener to handle the solutions to the first goal
+   */
+  public static <T> SolutionListener chain(T[] conjunctions, Step<T> step) {
+    if (conjunctions.length < 2) {
+      throw new IllegalArgumentException("A chain of listeners needs at least 2 goals, got " + conjunctions.length);
+    }
+    // Build from the end: solutions to the last goal go to the listener of the context that entered the conjunction
+    ConjunctionListener<T> next = null;
+    for (int i = conjunctions.length - 1; i >= 1; i--) {
+      next = new ConjunctionListener<>(conjunctions[i], next, step);
+    }
+    return next;
+  }
+
+  @Override
+  public int onSolution(UnifyContext currentVars) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}: onSolution() called; will now solve rhs={}", this, nextGoal);
+    }
+    final int cutLevel = currentVars.getConjunctionCutLevel();
+    final UnifyContext nextVars = (this.nextListener != null) ? currentVars.withListener(this.nextListener) : currentVars.exitConjunction();
+    return this.step.solve(this.nextGoal, nextVars, cutLevel);
+  }
+
+  @Override
+  public String toString() {
+    return "AND chained listener to " + nextGoal;
+  }
+}
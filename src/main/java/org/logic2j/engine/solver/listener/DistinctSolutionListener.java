@@ -0,0 +1,130 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.listener;
+
+import org.logic2j.engine.solver.extractor.SolutionExtractor;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+/**
+ * A {@link SolutionListener} that will collect distinct solutions, in the order of their first occurrence.
+ * Duplicates are dropped as soon as they are extracted, so memory is proportional to the number of distinct solutions.
+ * The range of the number of solutions (see {@link RangeSolutionListener}) applies to distinct solutions.
+ * Solutions that are arrays (see {@link org.logic2j.engine.solver.extractor.ArrayExtractor}) are compared by content.
+ */
+public class DistinctSolutionListener<T> extends RangeSolutionListener<T> {
+
+  private final SolutionExtractor<T> extractor;
+
+  /**
+   * Keys of the distinct solutions, in order of first occurrence, see {@link #keyOf(Object)}.
+   */
+  private final Set<Object> distinct = new LinkedHashSet<>();
+
+  private final boolean collectResults;
+
+  /**
+   * @param extractor      To obtain individual solutions
+   * @param collectResults false to only count distinct solutions, see {@link #getNbSolutions()}
+   */
+  public DistinctSolutionListener(SolutionExtractor<T> extractor, boolean collectResults) {
+    this.extractor = extractor;
+    this.collectResults = collectResults;
+  }
+
+  public DistinctSolutionListener(SolutionExtractor<T> extractor) {
+    this(extractor, true);
+  }
+
+  @Override
+  public int onSolution(UnifyContext currentVars) {
+    final T solution = extractor.extractSolution(currentVars);
+    if (!distinct.add(keyOf(solution))) {
+      // Already seen, neither kept nor counted
+      return CONTINUE;
+    }
+    return super.onSolution(currentVars);
+  }
+
+  /**
+   * @return The solution itself, or for an array a view comparing by content
+   */
+  private static Object keyOf(Object solution) {
+    if (solution instanceof Object[] array) {
+      return new ArrayKey(array);
+    }
+    return solution;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T solutionOf(Object key) {
+    return (T) ((key instanceof ArrayKey arrayKey) ? arrayKey.array : key);
+  }
+
+  /**
+   * An array as a key of a set: equal by content. The array is not copied, it is returned as the solution.
+   */
+  private static final class ArrayKey {
+    private final Object[] array;
+    private final List<Object> content;
+
+    ArrayKey(Object[] array) {
+      this.array = array;
+      this.content = Arrays.asList(array);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof ArrayKey that && this.content.equals(that.content);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.content.hashCode();
+    }
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @return Distinct solutions in order of first occurrence
+   * @throws IllegalStateException When only counting distinct solutions
+   */
+  @Override
+  public List<T> getResults() {
+    if (!collectResults) {
+      throw new IllegalStateException("Distinct solutions were only counted, not collected");
+    }
+    final List<T> results = new ArrayList<>(distinct.size());
+    for (Object key : distinct) {
+      results.add(solutionOf(key));
+    }
+    return results;
+  }
+
+}
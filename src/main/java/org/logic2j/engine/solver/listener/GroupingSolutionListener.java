@@ -0,0 +1,76 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.listener;
+
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+/**
+ * A {@link SolutionListener} that folds the value of a term into one {@link Accumulator} per distinct value of a key term.
+ * Only the accumulators are kept, not the solutions.
+ */
+public class GroupingSolutionListener implements SolutionListener {
+
+  private final Object keyTerm;
+
+  private final Object valueTerm;
+
+  private final Supplier<Accumulator> accumulatorFactory;
+
+  /**
+   * Accumulators per key, in order of first occurrence of the key.
+   */
+  private final Map<Object, Accumulator> groups = new LinkedHashMap<>();
+
+  /**
+   * @param keyTerm            The term whose value identifies the group
+   * @param valueTerm          The term whose value is accumulated
+   * @param accumulatorFactory To create the accumulator of each new group
+   */
+  public GroupingSolutionListener(Object keyTerm, Object valueTerm, Supplier<Accumulator> accumulatorFactory) {
+    this.keyTerm = keyTerm;
+    this.valueTerm = valueTerm;
+    this.accumulatorFactory = accumulatorFactory;
+  }
+
+  @Override
+  public int onSolution(UnifyContext currentVars) {
+    final Object key = currentVars.reify(keyTerm);
+    Accumulator accumulator = groups.get(key);
+    if (accumulator == null) {
+      accumulator = accumulatorFactory.get();
+      groups.put(key, accumulator);
+    }
+    accumulator.accept(currentVars.reify(valueTerm));
+    return CONTINUE;
+  }
+
+  /**
+   * @return The accumulator of each group, in order of first occurrence of the key.
+   */
+  public Map<Object, Accumulator> getGroups() {
+    return groups;
+  }
+
+}
@@ -28,7 +28,10 @@ import static org.logic2j.engine.solver.Continuation.CONTINUE;
  * A {@link SolutionListener} that allows the caller of the inference engine to enumerates solutions to his goal, like all Prolog APIs do.
  * This uses synchronization between two threads, the Prolog engine being the producer thread that calls back this implementation of
  * {@link SolutionListener#onSolution(UnifyContext)}, which in turn notifies the consumer thread (the caller) of a solution.
+ * @deprecated Two monitor handoffs per solution, and the producer thread is never stopped if the consumer quits early.
+ * Use {@link org.logic2j.engine.solver.holder.SolutionIterator}, obtained from {@link org.logic2j.engine.solver.holder.SolutionHolder#iterator()}.
  */
+@Deprecated
 public class IterableSolutionListener<T> implements SolutionListener {
   private final SolutionExtractor<T> extractor;
 
@@ -0,0 +1,41 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.listener;
+
+import org.logic2j.engine.solver.Continuation;
+import org.logic2j.engine.unify.UnifyContext;
+
+/**
+ * Receives the solutions of a batch, see {@link org.logic2j.engine.solver.Solver#solveBatch(org.logic2j.engine.solver.CompiledGoal,
+ * org.logic2j.engine.model.Var[], java.util.Iterator, RowSolutionListener)}: the same goal solved once per row of input values.
+ */
+@FunctionalInterface
+public interface RowSolutionListener {
+
+  /**
+   * A solution of the goal for one row was proven, the values must be retrieved from currentVars before returning.
+   *
+   * @param rowIndex    Index of the row in the input, from 0
+   * @param currentVars
+   * @return {@link Continuation#CONTINUE} for the other solutions of the same row, or {@link Continuation#USER_ABORT}
+   * to skip them and proceed to the next row. Never return a positive number.
+   */
+  int onSolution(long rowIndex, UnifyContext currentVars);
+
+}
@@ -34,9 +34,7 @@ public class SingleVarSolutionListener<T> extends RangeSolutionListener<T> {
    */
   private final SolutionExtractor<T> extractor;
 
-  // Implementation note: there is an opportunity to improve the extraction of distinct Sets.
-  // TODO In this implementation, "results" is a List and we do the set operation later on after all results
-  // have been extracted. This is quite inefficient.
+  // Distinct solutions are collected by DistinctSolutionListener
   private final List<T> results;
 
   /**
@@ -0,0 +1,94 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A {@link SolveMetricsSink} that emits one JDK Flight Recorder event "org.logic2j.Solve" per solving.
+ * When no recording is active, or the event is disabled, the cost is negligible.
+ */
+public class JfrSolveMetricsSink implements SolveMetricsSink {
+
+  @Override
+  public void onSolveCompleted(Object goal, SolveMetrics metrics) {
+    final SolveEvent event = new SolveEvent();
+    if (!event.isEnabled()) {
+      return;
+    }
+    event.goal = String.valueOf(goal);
+    event.inferences = metrics.getInferences();
+    event.bindings = metrics.getBindings();
+    event.dereferenceHops = metrics.getDereferenceHops();
+    event.maxVarSlot = metrics.getMaxVarSlot();
+    event.resizes = metrics.getResizes();
+    event.cuts = metrics.getCuts();
+    event.aborts = metrics.getAborts();
+    event.tableHits = metrics.getTableHits();
+    event.tableMisses = metrics.getTableMisses();
+    event.wallTime = metrics.getWallTimeNanos();
+    event.commit();
+  }
+
+  @Name("org.logic2j.Solve")
+  @Label("Solve")
+  @Category("logic2j")
+  @Description("Metrics of one solving session")
+  static class SolveEvent extends Event {
+    @Label("Goal")
+    String goal;
+
+    @Label("Inferences")
+    long inferences;
+
+    @Label("Bindings")
+    long bindings;
+
+    @Label("Dereference Hops")
+    long dereferenceHops;
+
+    @Label("Max Var Slot")
+    int maxVarSlot;
+
+    @Label("Resizes")
+    int resizes;
+
+    @Label("Cuts")
+    long cuts;
+
+    @Label("Aborts")
+    long aborts;
+
+    @Label("Table Hits")
+    long tableHits;
+
+    @Label("Table Misses")
+    long tableMisses;
+
+    @Label("Wall Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long wallTime;
+  }
+
+}
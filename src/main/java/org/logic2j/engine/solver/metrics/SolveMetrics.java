@@ -0,0 +1,180 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.metrics;
+
+/**
+ * Instrumentation of one solving session: counters are collected while the goal is being solved,
+ * then published to a {@link SolveMetricsSink} when solving completes.
+ * One instance is created by {@link org.logic2j.engine.solver.Solver#solveGoal(Object, org.logic2j.engine.solver.listener.SolutionListener)}
+ * and held in the state of variables, so it is reachable via {@link org.logic2j.engine.unify.UnifyContext#getMetrics()}.
+ * <p/>
+ * Counters are plain fields incremented by the (single) solving thread: this is cheap enough to leave on in production.
+ * Instances are not thread-safe, read them only once solving has completed, typically from the sink.
+ */
+public class SolveMetrics {
+
+  private long inferences;
+  private long bindings;
+  private long dereferenceHops;
+  private int maxVarSlot = -1;
+  private int resizes;
+  private long cuts;
+  private long aborts;
+  private long tableHits;
+  private long tableMisses;
+  private final long startNanos;
+  private long wallTimeNanos = -1;
+
+  public SolveMetrics() {
+    this.startNanos = System.nanoTime();
+  }
+
+  // ---------------------------------------------------------------------------
+  // Counting, invoked by the engine
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @return The number of inferences so far, including this one.
+   */
+  public long countInference() {
+    return ++this.inferences;
+  }
+
+  public void countBinding(int slot) {
+    this.bindings++;
+    if (slot > this.maxVarSlot) {
+      this.maxVarSlot = slot;
+    }
+  }
+
+  public void countDereferenceHop() {
+    this.dereferenceHops++;
+  }
+
+  public void countResize() {
+    this.resizes++;
+  }
+
+  public void countCut() {
+    this.cuts++;
+  }
+
+  public void countAbort() {
+    this.aborts++;
+  }
+
+  public void countTableHit() {
+    this.tableHits++;
+  }
+
+  public void countTableMiss() {
+    this.tableMisses++;
+  }
+
+  /**
+   * Mark the end of solving, freezes the wall time.
+   */
+  public void stop() {
+    if (this.wallTimeNanos < 0) {
+      this.wallTimeNanos = System.nanoTime() - this.startNanos;
+    }
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @return Number of goals entered by the solver (each invocation of the resolution, including sub-goals of AND, OR, etc.)
+   */
+  public long getInferences() {
+    return inferences;
+  }
+
+  /**
+   * @return Number of variables bound
+   */
+  public long getBindings() {
+    return bindings;
+  }
+
+  /**
+   * @return Number of var-to-var links followed while dereferencing variables
+   */
+  public long getDereferenceHops() {
+    return dereferenceHops;
+  }
+
+  /**
+   * @return The highest slot (variable index) ever bound, or -1 if none
+   */
+  public int getMaxVarSlot() {
+    return maxVarSlot;
+  }
+
+  /**
+   * @return Number of times the storage of variables had to be enlarged
+   */
+  public int getResizes() {
+    return resizes;
+  }
+
+  /**
+   * @return Number of CUTs executed
+   */
+  public long getCuts() {
+    return cuts;
+  }
+
+  /**
+   * @return Number of goals (including sub-goals of first-order predicates) whose solving was aborted by a listener
+   */
+  public long getAborts() {
+    return aborts;
+  }
+
+  /**
+   * @return Number of tabled goals answered from the table, see {@link org.logic2j.engine.solver.table.AnswerTable}
+   */
+  public long getTableHits() {
+    return tableHits;
+  }
+
+  /**
+   * @return Number of tabled goals that had to be evaluated
+   */
+  public long getTableMisses() {
+    return tableMisses;
+  }
+
+  /**
+   * @return Elapsed time of solving in nanoseconds, or the elapsed time so far if solving has not completed
+   */
+  public long getWallTimeNanos() {
+    return wallTimeNanos >= 0 ? wallTimeNanos : System.nanoTime() - startNanos;
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "(inferences=" + inferences + ", bindings=" + bindings + ", dereferenceHops=" + dereferenceHops +
+        ", maxVarSlot=" + maxVarSlot + ", resizes=" + resizes + ", cuts=" + cuts + ", aborts=" + aborts + ", tableHits=" + tableHits +
+        ", tableMisses=" + tableMisses + ", wallTimeNanos=" +
+        getWallTimeNanos() + ')';
+  }
+}
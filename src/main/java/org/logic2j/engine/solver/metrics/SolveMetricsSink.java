@@ -0,0 +1,38 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.metrics;
+
+/**
+ * Receives the {@link SolveMetrics} of each completed solving session, for example to log them,
+ * aggregate them in a monitoring system, or emit JFR events (see {@link JfrSolveMetricsSink}).
+ * Register with {@link org.logic2j.engine.solver.Solver#withMetricsSink(SolveMetricsSink)}.
+ * Implementations may be invoked concurrently from several solving threads.
+ */
+@FunctionalInterface
+public interface SolveMetricsSink {
+
+  /**
+   * Called once per solving, after the last solution was produced (or solving failed).
+   *
+   * @param goal    The goal that was solved
+   * @param metrics The metrics of that solving, no longer modified
+   */
+  void onSolveCompleted(Object goal, SolveMetrics metrics);
+
+}
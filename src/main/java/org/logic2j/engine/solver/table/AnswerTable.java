@@ -0,0 +1,244 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.table;
+
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+/**
+ * Memoization of the solutions of goals during one solving ("tabling"), see {@link TabledPredicate}.
+ * <p/>
+ * The table is keyed by the variant of the reified goal: free variables are numbered in order of appearance,
+ * so that p(X, 1, Y) and p(A, 1, B) share one entry. An entry holds, for every solution, the values of these
+ * variables. On a hit, the solutions are replayed by unifying the variables of the current goal with the stored values.
+ * <p/>
+ * On a miss, solutions are notified as they are evaluated, and recorded at the same time; the entry is only kept
+ * when the enumeration of solutions completed.
+ * Memory is bounded: the least recently used entries are evicted beyond the capacity.
+ * Goals with solutions that leave a variable unbound, and goals re-entered while their entry is being computed,
+ * are not tabled but solved normally.
+ * An instance is created for each solving and is not thread-safe.
+ */
+public class AnswerTable {
+
+  private final int capacity;
+
+  private final SolveMetrics metrics;
+
+  /**
+   * Created on first use, since most solvings will not involve any tabled goal.
+   */
+  private Map<List<Object>, List<Object[]>> entries = null;
+
+  /**
+   * Keys of the entries being computed, created on first use.
+   */
+  private Set<List<Object>> inProgress = null;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param capacity Maximal number of goals (entries) held in the table
+   * @param metrics  Where to count hits and misses, or null
+   */
+  public AnswerTable(int capacity, SolveMetrics metrics) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity of AnswerTable must be positive, was " + capacity);
+    }
+    this.capacity = capacity;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Solve goal from the table, or via evaluation then record its solutions.
+   *
+   * @param goal        The goal used to key the table, its variables receive the solutions
+   * @param currentVars
+   * @param evaluation  Solves the goal against the specified context, notifying its listener
+   * @return The {@link org.logic2j.engine.solver.Continuation} from the listener of currentVars
+   */
+  public int solve(Object goal, UnifyContext currentVars, ToIntFunction<UnifyContext> evaluation) {
+    final GoalKey variant = GoalKey.variantOf(goal, currentVars);
+    final List<Object> key = variant.key();
+    final Var<?>[] vars = variant.vars();
+
+    final List<Object[]> tabled = (this.entries != null) ? this.entries.get(key) : null;
+    if (tabled != null) {
+      this.hits++;
+      if (this.metrics != null) {
+        this.metrics.countTableHit();
+      }
+      return replay(tabled, vars, currentVars);
+    }
+    this.misses++;
+    if (this.metrics != null) {
+      this.metrics.countTableMiss();
+    }
+    if (this.inProgress == null) {
+      this.inProgress = new HashSet<>();
+    }
+    if (!this.inProgress.add(key)) {
+      // Re-entrant variant: no fixpoint computation here, just solve it
+      return evaluation.applyAsInt(currentVars);
+    }
+    final AnswerRecorder recorder = new AnswerRecorder(vars, currentVars.getSolutionListener());
+    final int result;
+    try {
+      result = evaluation.applyAsInt(currentVars.withListener(recorder));
+    } finally {
+      this.inProgress.remove(key);
+    }
+    if (result == CONTINUE && recorder.complete && recorder.ground) {
+      store(key, recorder.answers);
+    }
+    return result;
+  }
+
+  private void store(List<Object> key, List<Object[]> answers) {
+    if (this.entries == null) {
+      this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, List<Object[]>> eldest) {
+          final boolean evict = size() > AnswerTable.this.capacity;
+          if (evict) {
+            AnswerTable.this.evictions++;
+          }
+          return evict;
+        }
+      };
+    }
+    this.entries.put(key, answers);
+  }
+
+  private static int replay(List<Object[]> answers, Var<?>[] vars, UnifyContext currentVars) {
+    final SolutionListener listener = currentVars.getSolutionListener();
+    for (final Object[] answer : answers) {
+      UnifyContext afterUnification = currentVars;
+      for (int i = 0; i < vars.length && afterUnification != null; i++) {
+        afterUnification = afterUnification.unify(vars[i], answer[i]);
+      }
+      if (afterUnification != null) {
+        final int continuation = listener.onSolution(afterUnification);
+        if (continuation != CONTINUE) {
+          return continuation;
+        }
+      }
+    }
+    return CONTINUE;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  /**
+   * @return Number of goals answered from the table
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return Number of goals that had to be evaluated
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return Number of entries removed to keep within capacity
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * @return Number of entries currently held
+   */
+  public int size() {
+    return (this.entries != null) ? this.entries.size() : 0;
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "(size=" + size() + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ')';
+  }
+
+  // ---------------------------------------------------------------------------
+  // Support classes
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Records the values of the variables of the goal for every solution, while notifying it downstream.
+   */
+  private static final class AnswerRecorder implements SolutionListener {
+    private final Var<?>[] vars;
+    private final SolutionListener downstream;
+    final List<Object[]> answers = new ArrayList<>();
+    /**
+     * False as soon as a solution leaves a variable unbound: answers are no longer recorded.
+     */
+    boolean ground = true;
+    /**
+     * False when downstream stopped the enumeration of solutions: what was recorded may not be all answers.
+     */
+    boolean complete = true;
+
+    AnswerRecorder(Var<?>[] vars, SolutionListener downstream) {
+      this.vars = vars;
+      this.downstream = downstream;
+    }
+
+    @Override
+    public int onSolution(UnifyContext currentVars) {
+      if (ground) {
+        final Object[] answer = new Object[vars.length];
+        for (int i = 0; i < vars.length && ground; i++) {
+          answer[i] = currentVars.reify(vars[i]);
+          ground = currentVars.isGround(answer[i]);
+        }
+        if (ground) {
+          answers.add(answer);
+        } else {
+          answers.clear();
+        }
+      }
+      final int continuation = downstream.onSolution(currentVars.withListener(downstream));
+      if (continuation != CONTINUE) {
+        complete = false;
+      }
+      return continuation;
+    }
+  }
+
+}
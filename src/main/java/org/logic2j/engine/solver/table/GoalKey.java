@@ -0,0 +1,134 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.table;
+
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.internal.SolverPredicate;
+import org.logic2j.engine.unify.ReifiedTermVisitor;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical key of a reified goal: the term flattened depth-first, where structures are identified by their class,
+ * name and arity, and free variables are numbered in order of first appearance (so that variants share the same key).
+ */
+final class GoalKey implements ReifiedTermVisitor {
+
+  /**
+   * Identifies a structure; the class distinguishes predicates of same name and arity.
+   */
+  private record Functor(Class<?> type, String name, int arity) {
+  }
+
+  /**
+   * The n-th distinct free variable.
+   */
+  private record VarNumber(int number) {
+  }
+
+  private final boolean groundAndPure;
+
+  private final List<Object> key = new ArrayList<>();
+
+  private Map<Var<?>, VarNumber> numbers = null;
+
+  private final List<Var<?>> vars = new ArrayList<>();
+
+  private boolean valid = true;
+
+  private GoalKey(boolean groundAndPure) {
+    this.groundAndPure = groundAndPure;
+  }
+
+  /**
+   * @param goal
+   * @param currentVars
+   * @return The key of the variant of goal, with its free variables
+   */
+  static GoalKey variantOf(Object goal, UnifyContext currentVars) {
+    final GoalKey goalKey = new GoalKey(false);
+    currentVars.visitReified(goal, goalKey);
+    return goalKey;
+  }
+
+  /**
+   * @param goal
+   * @param currentVars
+   * @return The key of goal, or null if goal is not ground, or contains a structure that is neither a {@link PurePredicate}
+   * nor a control construct of the solver (e.g. a conjunction): such a structure may be a goal solved against clauses or
+   * data (e.g. exists(row(1))), whose solutions change with them.
+   */
+  static GoalKey groundPureOf(Object goal, UnifyContext currentVars) {
+    final GoalKey goalKey = new GoalKey(true);
+    currentVars.visitReified(goal, goalKey);
+    return goalKey.valid ? goalKey : null;
+  }
+
+  List<Object> key() {
+    return key;
+  }
+
+  /**
+   * @return The free variables of the goal, in order of first appearance
+   */
+  Var<?>[] vars() {
+    return vars.toArray(new Var<?>[0]);
+  }
+
+  @Override
+  public boolean enterStruct(Struct<?> struct) {
+    if (groundAndPure && !(struct instanceof PurePredicate) && !(struct instanceof SolverPredicate)) {
+      valid = false;
+      return false;
+    }
+    key.add(new Functor(struct.getClass(), struct.getName(), struct.getArity()));
+    return true;
+  }
+
+  @Override
+  public boolean freeVar(Var<?> var) {
+    if (groundAndPure) {
+      valid = false;
+      return false;
+    }
+    if (numbers == null) {
+      numbers = new IdentityHashMap<>();
+    }
+    VarNumber number = numbers.get(var);
+    if (number == null) {
+      number = new VarNumber(vars.size());
+      numbers.put(var, number);
+      vars.add(var);
+    }
+    key.add(number);
+    return true;
+  }
+
+  @Override
+  public boolean value(Object value) {
+    key.add(value);
+    return true;
+  }
+
+}
@@ -0,0 +1,289 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.table;
+
+import org.logic2j.engine.solver.listener.CountingSolutionListener;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+/**
+ * Results of ground goals of {@link PurePredicate}s, reused across solvings, see
+ * {@link org.logic2j.engine.solver.Solver#withResultCache(GoalResultCache)}.
+ * <p/>
+ * A ground goal binds no variable, so its result is fully described by its number of solutions: that is what is
+ * stored, keyed by the canonical form of the reified goal. On a hit, as many solutions are notified without
+ * invoking the predicate.
+ * <p/>
+ * Entries are evicted in least-recently-used order beyond the maximal size, and expire after a time-to-live.
+ * Goals solved against clauses or data facts are never cached, see {@link PurePredicate}; but a pure predicate whose result
+ * depends on state outside of the solver must be invalidated by the application when that state changes,
+ * see {@link #invalidateAll()} and {@link #invalidateIf(Predicate)}.
+ * This class is thread-safe, so that one cache can be shared by solvings on several threads. A goal missing from the cache
+ * is evaluated once: other threads needing the same goal meanwhile wait for that evaluation rather than repeating it.
+ */
+public class GoalResultCache {
+
+  private record Entry(String goal, int solutions, long expiresAtNanos) {
+  }
+
+  /**
+   * Evaluation of a goal in progress on the owner thread.
+   */
+  private record InFlight(Thread owner, CompletableFuture<Integer> solutions) {
+  }
+
+  private final int maxSize;
+
+  private final long ttlNanos;
+
+  private final LongSupplier clock;
+
+  private final Map<List<Object>, Entry> entries;
+
+  private final Map<List<Object>, InFlight> inFlight = new HashMap<>();
+
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long expirations;
+
+  /**
+   * @param maxSize Maximal number of goals cached
+   * @param ttl     Time-to-live of each result, or null for no expiration
+   */
+  public GoalResultCache(int maxSize, Duration ttl) {
+    this(maxSize, ttl, System::nanoTime);
+  }
+
+  GoalResultCache(int maxSize, Duration ttl, LongSupplier clock) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Size of GoalResultCache must be positive, was " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.ttlNanos = (ttl != null) ? ttl.toNanos() : Long.MAX_VALUE;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+        final boolean evict = size() > GoalResultCache.this.maxSize;
+        if (evict) {
+          GoalResultCache.this.evictions++;
+        }
+        return evict;
+      }
+    };
+  }
+
+  /**
+   * Solve goal from the cache when it is ground and pure, otherwise via evaluation.
+   *
+   * @param goal        A {@link PurePredicate}
+   * @param currentVars
+   * @param evaluation  Solves the goal against the specified context, notifying its listener
+   * @return The {@link org.logic2j.engine.solver.Continuation} from the listener of currentVars
+   */
+  public int solve(Object goal, UnifyContext currentVars, ToIntFunction<UnifyContext> evaluation) {
+    final GoalKey goalKey = GoalKey.groundPureOf(goal, currentVars);
+    if (goalKey == null) {
+      return evaluation.applyAsInt(currentVars);
+    }
+    final int solutions = solutionsOf(goalKey.key(), goal, currentVars, evaluation);
+    final SolutionListener listener = currentVars.getSolutionListener();
+    for (int i = 0; i < solutions; i++) {
+      final int continuation = listener.onSolution(currentVars);
+      if (continuation != CONTINUE) {
+        return continuation;
+      }
+    }
+    return CONTINUE;
+  }
+
+  /**
+   * @return The number of solutions of goal: cached, evaluated by another thread in the meantime, or evaluated now.
+   */
+  private int solutionsOf(List<Object> key, Object goal, UnifyContext currentVars, ToIntFunction<UnifyContext> evaluation) {
+    final InFlight awaited;
+    final CompletableFuture<Integer> evaluating;
+    synchronized (this) {
+      final Integer cached = lookup(key);
+      if (cached != null) {
+        this.hits++;
+        return cached;
+      }
+      final InFlight other = this.inFlight.get(key);
+      if (other == null) {
+        awaited = null;
+        evaluating = new CompletableFuture<>();
+        this.inFlight.put(key, new InFlight(Thread.currentThread(), evaluating));
+        this.misses++;
+      } else if (other.owner != Thread.currentThread()) {
+        awaited = other;
+        evaluating = null;
+        this.hits++;
+      } else {
+        // The goal is needed again while evaluating it on this thread: waiting would never end
+        awaited = null;
+        evaluating = null;
+        this.misses++;
+      }
+    }
+    if (awaited != null) {
+      try {
+        return awaited.solutions.get();
+      } catch (InterruptedException e) {
+        // Our solving is being cancelled, see ParallelOr: evaluate without waiting, this checks for cancellation
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        // The failure was reported to the thread that evaluated, see if it happens again here
+      }
+      return count(currentVars, evaluation);
+    }
+    if (evaluating == null) {
+      return count(currentVars, evaluation);
+    }
+    try {
+      final int solutions = count(currentVars, evaluation);
+      store(key, String.valueOf(currentVars.reify(goal)), solutions);
+      evaluating.complete(solutions);
+      return solutions;
+    } catch (RuntimeException | Error e) {
+      evaluating.completeExceptionally(e);
+      throw e;
+    } finally {
+      synchronized (this) {
+        this.inFlight.remove(key);
+      }
+    }
+  }
+
+  private static int count(UnifyContext currentVars, ToIntFunction<UnifyContext> evaluation) {
+    final CountingSolutionListener counter = new CountingSolutionListener();
+    evaluation.applyAsInt(currentVars.withListener(counter));
+    return counter.count();
+  }
+
+  /**
+   * Invoked while holding the lock.
+   *
+   * @return The number of solutions if cached and not expired, otherwise null.
+   */
+  private Integer lookup(List<Object> key) {
+    final Entry entry = this.entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (this.clock.getAsLong() - entry.expiresAtNanos >= 0) {
+      this.entries.remove(key);
+      this.expirations++;
+      return null;
+    }
+    return entry.solutions;
+  }
+
+  private synchronized void store(List<Object> key, String goal, int solutions) {
+    final long now = this.clock.getAsLong();
+    final long expiresAt = (this.ttlNanos == Long.MAX_VALUE) ? now + (Long.MAX_VALUE >> 1) : now + this.ttlNanos;
+    this.entries.put(key, new Entry(goal, solutions, expiresAt));
+  }
+
+  // ---------------------------------------------------------------------------
+  // Invalidation
+  // ---------------------------------------------------------------------------
+
+  /**
+   * Remove all entries, statistics are kept.
+   */
+  public synchronized void invalidateAll() {
+    this.entries.clear();
+  }
+
+  /**
+   * Remove entries selectively.
+   *
+   * @param goalMatcher Receives the textual form of each cached goal, with the values its variables had, e.g. "exists(lookup(1))"
+   * @return Number of entries removed
+   */
+  public synchronized int invalidateIf(Predicate<String> goalMatcher) {
+    int removed = 0;
+    for (final Iterator<Entry> iter = this.entries.values().iterator(); iter.hasNext(); ) {
+      if (goalMatcher.test(iter.next().goal)) {
+        iter.remove();
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  // ---------------------------------------------------------------------------
+  // Accessors
+  // ---------------------------------------------------------------------------
+
+  public synchronized int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * @return Number of goals answered from the cache, including those answered by an evaluation in progress on another thread
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return Number of cacheable goals that had to be evaluated, including expired ones
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return Number of entries removed because the maximal size was reached
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * @return Number of entries removed because their time-to-live was over
+   */
+  public synchronized long getExpirations() {
+    return expirations;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return this.getClass().getSimpleName() + "(size=" + entries.size() + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions +
+        ", expirations=" + expirations + ')';
+  }
+
+}
@@ -0,0 +1,29 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.table;
+
+/**
+ * Marks a {@link org.logic2j.engine.predicates.impl.FOPredicate} whose solutions depend only on its class, functor and
+ * arguments, and which has no side effect. When all its arguments are ground, and all structures nested in them are
+ * also pure predicates, its number of solutions may be reused across solvings, see {@link GoalResultCache}.
+ * First-order predicates such as exists() are pure only as long as the goals they solve are: a nested structure that is
+ * not a pure predicate (e.g. a goal solved against clauses or data facts, or a plain data structure) prevents caching.
+ */
+public interface PurePredicate {
+}
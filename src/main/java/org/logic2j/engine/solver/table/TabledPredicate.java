@@ -0,0 +1,31 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.table;
+
+/**
+ * Marks a {@link org.logic2j.engine.predicates.impl.FOPredicate} whose solutions may be memoized during one solving,
+ * see {@link AnswerTable}. Repeated invocations with a variant of the same arguments are then answered from the table
+ * instead of invoking the predicate again.
+ * <p/>
+ * Only mark predicates whose solutions are fully determined by their class, functor and arguments,
+ * with no side effect, and that produce a finite number of solutions: the table is filled
+ * by enumerating all of them before the first one is notified.
+ */
+public interface TabledPredicate {
+}
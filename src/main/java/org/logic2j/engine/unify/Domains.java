@@ -0,0 +1,119 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.engine.unify;
+
+import org.logic2j.engine.model.Var;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * The domains of free variables: for each, the set of values it may still take, see {@link UnifyContext#restrictDomain(Var, java.util.Collection)}.
+ * Immutable and copied on write, since every {@link UnifyContext} holds its own; there are very few of them
+ * so a linear lookup by index of variable is all that is needed.
+ */
+final class Domains {
+
+  private final Var<?>[] vars;
+
+  private final Set<Object>[] values;
+
+  private Domains(Var<?>[] vars, Set<Object>[] values) {
+    this.vars = vars;
+    this.values = values;
+  }
+
+  @SuppressWarnings("unchecked") // No generic array creation, the array only ever holds Set<Object>
+  static Domains of(Var<?> var, Set<Object> domain) {
+    return new Domains(new Var<?>[]{var}, (Set<Object>[]) new Set<?>[]{domain});
+  }
+
+  private int indexOf(Var<?> var) {
+    final int index = var.getIndex();
+    for (int i = 0; i < vars.length; i++) {
+      if (vars[i].getIndex() == index) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param var A free var
+   * @return Its domain, or null if it has none
+   */
+  Set<Object> get(Var<?> var) {
+    final int i = indexOf(var);
+    return (i >= 0) ? values[i] : null;
+  }
+
+  /**
+   * @return A copy where var has the specified domain
+   */
+  Domains with(Var<?> var, Set<Object> domain) {
+    final int i = indexOf(var);
+    if (i >= 0) {
+      final Set<Object>[] newValues = values.clone();
+      newValues[i] = domain;
+      return new Domains(vars, newValues);
+    }
+    final Var<?>[] newVars = Arrays.copyOf(vars, vars.length + 1);
+    final Set<Object>[] newValues = Arrays.copyOf(values, values.length + 1);
+    newVars[vars.length] = var;
+    newValues[values.length] = domain;
+    return new Domains(newVars, newValues);
+  }
+
+  /**
+   * @return A copy where var has no domain, or null if none is left
+   */
+  Domains without(Var<?> var) {
+    final int i = indexOf(var);
+    if (i < 0) {
+      return this;
+    }
+    if (vars.length == 1) {
+      return null;
+    }
+    final Var<?>[] newVars = new Var<?>[vars.length - 1];
+    final Set<Object>[] newValues = Arrays.copyOf(values, values.length - 1);
+    System.arraycopy(vars, 0, newVars, 0, i);
+    System.arraycopy(vars, i + 1, newVars, i, vars.length - i - 1);
+    System.arraycopy(values, i + 1, newValues, i, values.length - i - 1);
+    return new Domains(newVars, newValues);
+  }
+
+  /**
+   * @return Any var having a domain
+   */
+  Var<?> first() {
+    return vars[0];
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < vars.length; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(vars[i]).append(" in ").append(values[i]);
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.unify;
+
+/**
+ * Decides by how much the storage of variables grows when a variable's slot exceeds its current capacity.
+ * See {@link org.logic2j.engine.solver.Solver#withStoreGrowthPolicy(GrowthPolicy)}.
+ */
+@FunctionalInterface
+public interface GrowthPolicy {
+
+  /**
+   * Double the capacity (the default).
+   */
+  GrowthPolicy DOUBLING = factor(2.0);
+
+  /**
+   * @param currentCapacity Current number of slots
+   * @param requiredSlot    The slot that must fit, always >= currentCapacity
+   * @return The new number of slots; values lower or equal than requiredSlot will be raised to requiredSlot+1.
+   */
+  int newCapacity(int currentCapacity, int requiredSlot);
+
+  /**
+   * @param factor Multiplier of the current capacity, must be > 1
+   * @return A policy growing geometrically
+   */
+  static GrowthPolicy factor(double factor) {
+    if (factor <= 1.0) {
+      throw new IllegalArgumentException("Growth factor must be greater than 1, was " + factor);
+    }
+    return (currentCapacity, requiredSlot) -> (int) Math.min(Integer.MAX_VALUE - 8, Math.ceil(Math.max(1, currentCapacity) * factor));
+  }
+
+  /**
+   * @param increment Number of slots to add
+   * @return A policy growing linearly, by steps of increment slots
+   */
+  static GrowthPolicy increment(int increment) {
+    if (increment <= 0) {
+      throw new IllegalArgumentException("Growth increment must be positive, was " + increment);
+    }
+    return (currentCapacity, requiredSlot) -> currentCapacity + increment;
+  }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.unify;
+
+import org.logic2j.engine.exception.SolverException;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Storage of variables where the state of each slot is packed into a single long: the transaction number at which
+ * the slot was bound in the high 32 bits, and in the low 32 bits either the slot of the variable it is bound to,
+ * or a negative tag when it is bound to a literal.
+ * Literals are kept as the instances that were bound, so dereferencing never allocates (no boxing of numbers).
+ * Following a chain of variables only reads {@link #words}.
+ * See {@link StoreLayout#PACKED}.
+ */
+class PackedUnifyState implements UnifyState {
+  private static final Logger logger = LoggerFactory.getLogger(PackedUnifyState.class);
+
+  /**
+   * Word of a slot never bound, or cleared: transaction -1.
+   */
+  private static final long FREE = -1L;
+
+  /**
+   * Low 32 bits of a word when not bound to another var.
+   */
+  private static final int TAG_LITERAL = -1;
+
+  private long[] words;
+  private Object[] literal;
+  private Var<?>[] var;
+  private int[] logOfWrittenSlots;  // Indexed by transaction number
+  private int logWatermark;
+
+  private GrowthPolicy growthPolicy;
+
+  private SolveMetrics metrics;
+
+  PackedUnifyState(int initialCapacity, GrowthPolicy growthPolicy, SolveMetrics metrics) {
+    this.metrics = metrics;
+    this.growthPolicy = growthPolicy;
+    final int capacity = Math.max(1, initialCapacity);
+    words = new long[capacity];
+    Arrays.fill(words, FREE);
+    literal = new Object[capacity];
+    var = new Var<?>[capacity];
+    logOfWrittenSlots = new int[capacity];
+    logWatermark = 0;
+  }
+
+  private static long word(int transactionNumber, int low) {
+    return ((long) transactionNumber << 32) | (low & 0xFFFFFFFFL);
+  }
+
+  private static int transactionOf(long word) {
+    return (int) (word >> 32);
+  }
+
+  private static int lowOf(long word) {
+    return (int) word;
+  }
+
+  private void resizeArrays(int requiredSlot) {
+    final int newLength = Math.max(growthPolicy.newCapacity(words.length, requiredSlot), requiredSlot + 1);
+    if (logger.isDebugEnabled()) {
+      logger.debug("Resizing packed UnifyState arrays to {} elements", newLength);
+    }
+    if (metrics != null) {
+      metrics.countResize();
+    }
+    growTo(newLength);
+  }
+
+  private void growTo(int newLength) {
+    final int initialLength = words.length;
+    words = Arrays.copyOf(words, newLength);
+    Arrays.fill(words, initialLength, newLength, FREE);
+    literal = Arrays.copyOf(literal, newLength);
+    var = Arrays.copyOf(var, newLength);
+    logOfWrittenSlots = Arrays.copyOf(logOfWrittenSlots, newLength);
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    if (capacity > words.length) {
+      growTo(capacity);
+    }
+  }
+
+  @Override
+  public UnifyContext bind(UnifyContext currentVars, Var<?> theVar, Object theRef) {
+    if (logger.isDebugEnabled()) {
+      logger.debug(" bind {}->{}", theVar, theRef);
+    }
+    final int transactionNumber = currentVars.currentTransaction;
+    if (theVar == Var.anon()) {
+      final Object finalRef = (theRef instanceof Var) ? dereference((Var<?>) theRef, transactionNumber) : theRef;
+      if (finalRef instanceof Var && finalRef != Var.anon()) {
+        return bind(currentVars, (Var<?>) theRef, theVar);
+      }
+      return currentVars;
+    }
+    cleanupTo(transactionNumber);
+    final Object finalRef = (theRef instanceof Var) ? dereference((Var<?>) theRef, transactionNumber) : theRef;
+    if (finalRef == theVar) {
+      // Binding a Var to itself (after its ref was dereferenced): no change, and nothing written
+      return currentVars;
+    }
+    final int slot = theVar.getIndex();
+    if (slot >= words.length) {
+      resizeArrays(slot);
+    }
+    var[slot] = theVar;
+    final int low;
+    if (finalRef instanceof Var<?> finalVar && finalRef != Var.anon()) {
+      final int finalVarIndex = finalVar.getIndex();
+      if (finalVarIndex >= words.length) {
+        // The target var was free beyond capacity, it must now be reachable
+        resizeArrays(finalVarIndex);
+      }
+      var[finalVarIndex] = finalVar;
+      low = finalVarIndex;
+    } else {
+      literal[slot] = finalRef;
+      low = TAG_LITERAL;
+    }
+    words[slot] = word(transactionNumber, low);
+    logOfWrittenSlots[logWatermark++] = slot;
+    if (metrics != null) {
+      metrics.countBinding(slot);
+    }
+    return new UnifyContext(currentVars, 1);
+  }
+
+  @Override
+  public Object dereference(Var<?> theVar, int transactionNumber) {
+    if (theVar.isAnon()) {
+      return theVar;
+    }
+    int slot = theVar.getIndex();
+    if (slot < 0) {
+      throw new SolverException("Cannot dereference variable " + theVar + " whose index is not set. Goals must be normalized before solving");
+    }
+    if (slot >= words.length) {
+      // Never bound since beyond capacity (targets of bindings always fit)
+      return theVar;
+    }
+    final long[] words = this.words;
+    boolean first = true;
+    int limiter = Integer.MAX_VALUE;
+    while (--limiter >= 0) {
+      final long word = words[slot];
+      final int slotTrans = transactionOf(word);
+      if (slotTrans == -1 || slotTrans >= transactionNumber) {
+        // Not bound or bound in the future: the Var object is only needed now
+        return first ? theVar : var[slot];
+      }
+      final int low = lowOf(word);
+      if (low == TAG_LITERAL) {
+        return literal[slot];
+      }
+      first = false;
+      slot = low;
+      if (metrics != null) {
+        metrics.countDereferenceHop();
+      }
+    }
+    throw new IllegalStateException("Infinite loop detected during dereferencing of variable \"" + theVar + '"');
+  }
+
+  /**
+   * Full copy, O(capacity): allocates all arrays at the current capacity, then replays the log up to transactionNumber.
+   */
+  @Override
+  public UnifyState snapshot(int transactionNumber, SolveMetrics newMetrics) {
+    final PackedUnifyState copy = new PackedUnifyState(words.length, growthPolicy, newMetrics);
+    for (int entry = 0; entry < transactionNumber; entry++) {
+      final int slot = logOfWrittenSlots[entry];
+      final long word = words[slot];
+      copy.words[slot] = word;
+      copy.literal[slot] = literal[slot];
+      copy.var[slot] = var[slot];
+      final int low = lowOf(word);
+      if (low >= 0) {
+        // The target of a binding to a var is not logged
+        copy.var[low] = var[low];
+      }
+      copy.logOfWrittenSlots[entry] = slot;
+    }
+    copy.logWatermark = transactionNumber;
+    return copy;
+  }
+
+  @Override
+  public SolveMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public void reset(SolveMetrics newMetrics, GrowthPolicy newGrowthPolicy) {
+    cleanupTo(0);
+    this.metrics = newMetrics;
+    this.growthPolicy = newGrowthPolicy;
+  }
+
+  @Override
+  public int capacity() {
+    return words.length;
+  }
+
+  @Override
+  public StoreLayout layout() {
+    return StoreLayout.PACKED;
+  }
+
+  private void cleanupTo(int transactionNumber) {
+    while (logWatermark > transactionNumber) {
+      final int slotToCleanup = logOfWrittenSlots[--logWatermark];
+      words[slotToCleanup] = FREE;
+      literal[slotToCleanup] = null; // Don't retain values beyond their lifetime
+    }
+  }
+
+  public String toString() {
+    final TreeMap<Integer, String> sorted = new TreeMap<>();
+    for (int slot = 0; slot < words.length; slot++) {
+      final long word = words[slot];
+      if (word == FREE) {
+        continue;
+      }
+      final int low = lowOf(word);
+      final Object value = low == TAG_LITERAL ? literal[slot] : var[low];
+      sorted.put(transactionOf(word), transactionOf(word) + ":" + var[slot] + "->" + value);
+    }
+    return sorted.values().toString();
+  }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.unify;
+
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+
+/**
+ * Read-only traversal of the reified value of a term, see {@link UnifyContext#visitReified(Object, ReifiedTermVisitor)}.
+ * Variables are dereferenced as they are reached, the term is never cloned.
+ * All methods have defaults so that implementations only override what they need.
+ * <p/>
+ * This only suits consumers that inspect a term while its variables are bound, such as the keys of tabled goals.
+ * Solution extractors keep values after the bindings are undone, and Format or Log need the textual form of terms
+ * as written by the term API: those still need {@link UnifyContext#reify(Object)}.
+ */
+public interface ReifiedTermVisitor {
+
+  /**
+   * @param struct A structure, whose arguments are not yet reified.
+   * @return true to visit the arguments, false to skip them.
+   */
+  default boolean enterStruct(Struct<?> struct) {
+    return true;
+  }
+
+  /**
+   * @param struct The structure which arguments were all visited, or skipped.
+   */
+  default void exitStruct(Struct<?> struct) {
+    // Nothing
+  }
+
+  /**
+   * @param var A variable that is not bound.
+   * @return true to continue the traversal, false to stop it.
+   */
+  default boolean freeVar(Var<?> var) {
+    return true;
+  }
+
+  /**
+   * @param value Any other value, possibly null.
+   * @return true to continue the traversal, false to stop it.
+   */
+  default boolean value(Object value) {
+    return true;
+  }
+
+}
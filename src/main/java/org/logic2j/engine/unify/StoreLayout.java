@@ -0,0 +1,45 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.unify;
+
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+
+/**
+ * Memory layout of the storage of variables, see {@link org.logic2j.engine.solver.Solver#withStoreLayout(StoreLayout)}.
+ */
+public enum StoreLayout {
+  /**
+   * Five parallel arrays indexed by variable slot; literals are stored as objects. The default.
+   */
+  LOOKUP,
+
+  /**
+   * The transaction number and the link to another variable are packed into a single long per slot, so that
+   * dereferencing chains of variables only reads one array. Values are kept as bound, never boxed again.
+   * Favours numeric-heavy goals and long chains of variables.
+   */
+  PACKED;
+
+  UnifyState newState(int initialCapacity, GrowthPolicy growthPolicy, SolveMetrics metrics) {
+    return switch (this) {
+      case LOOKUP -> new UnifyStateByLookup(initialCapacity, growthPolicy, metrics);
+      case PACKED -> new PackedUnifyState(initialCapacity, growthPolicy, metrics);
+    };
+  }
+}
@@ -20,10 +20,19 @@ package org.logic2j.engine.unify;
 import org.logic2j.engine.model.DataFact;
 import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.model.Var;
+import org.logic2j.engine.solver.Continuation;
 import org.logic2j.engine.solver.Solver;
 import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+import org.logic2j.engine.solver.table.AnswerTable;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.ToIntFunction;
 
 import static org.logic2j.engine.model.TermApiLocator.termApi;
 
@@ -32,7 +41,7 @@ import static org.logic2j.engine.model.TermApiLocator.termApi;
  * or to set values of free variables (and return a new UnifyContext).
  * This is a lightweight object that is very frequently instantiated.
  * It contains logic to bind variables, unify structures, and reify variables to their effective current
- * values. The real data store for variable's values is the more complex {@link UnifyStateByLookup} object.
+ * values. The real data store for variable's values is the more complex {@link UnifyState} object.
  * <p/>
  * In the early phases of logic2j we needed to unify (bind) variables, then undo the work explicitly while backtracking.
  * This required cumbersome programming. Now UnifyContext is like a state monad or value object: it is immutable, and
@@ -51,7 +60,7 @@ public class UnifyContext {
    * Holds the state of all variables. Immutable and shared by all various {@link UnifyContext}s
    * returned during the solving of a goal.
    */
-  private final UnifyStateByLookup stateStorage;
+  private final UnifyState stateStorage;
 
   /**
    * Hold the solver algorithm currently in use.
@@ -77,6 +86,26 @@ public class UnifyContext {
    */
   private int topVarIndex;
 
+  /**
+   * Memoization of tabled goals for the current solving, or null when tabling is disabled.
+   */
+  private AnswerTable answerTable;
+
+  /**
+   * Sets of values that free variables may still take, or null when none has a domain, see {@link #restrictDomain(Var, Collection)}.
+   */
+  private Domains domains;
+
+  /**
+   * The context from which the conjunction currently being solved was entered, or null outside of any, see {@link #enterConjunction(SolutionListener, int)}.
+   */
+  private UnifyContext conjunctionEntry;
+
+  /**
+   * The cut level of the conjunction currently being solved.
+   */
+  private int conjunctionCutLevel;
+
   /**
    * Create initial {@link UnifyContext} with all empty vars.
    *
@@ -84,7 +113,46 @@ public class UnifyContext {
    * @param solutionListener
    */
   public UnifyContext(Solver solver, SolutionListener solutionListener) {
-    this(new UnifyStateByLookup(), solver, solutionListener);
+    this(solver, solutionListener, null);
+  }
+
+  /**
+   * Create initial {@link UnifyContext} with all empty vars, collecting instrumentation.
+   *
+   * @param solver
+   * @param solutionListener
+   * @param metrics Where to collect instrumentation of the solving, or null for none
+   */
+  public UnifyContext(Solver solver, SolutionListener solutionListener, SolveMetrics metrics) {
+    this(solver, solutionListener, metrics, UnifyStateByLookup.DEFAULT_CAPACITY, GrowthPolicy.DOUBLING);
+  }
+
+  /**
+   * Create initial {@link UnifyContext} with all empty vars, with a storage of variables sized for the goal to solve.
+   *
+   * @param solver
+   * @param solutionListener
+   * @param metrics Where to collect instrumentation of the solving, or null for none
+   * @param initialCapacity Number of variables that can be stored before growing
+   * @param growthPolicy How to grow the storage of variables
+   */
+  public UnifyContext(Solver solver, SolutionListener solutionListener, SolveMetrics metrics, int initialCapacity, GrowthPolicy growthPolicy) {
+    this(solver, solutionListener, metrics, initialCapacity, growthPolicy, StoreLayout.LOOKUP);
+  }
+
+  /**
+   * Create initial {@link UnifyContext} with all empty vars, with a storage of variables of the specified layout.
+   *
+   * @param solver
+   * @param solutionListener
+   * @param metrics Where to collect instrumentation of the solving, or null for none
+   * @param initialCapacity Number of variables that can be stored before growing
+   * @param growthPolicy How to grow the storage of variables
+   * @param layout Memory layout of the storage of variables
+   */
+  public UnifyContext(Solver solver, SolutionListener solutionListener, SolveMetrics metrics, int initialCapacity, GrowthPolicy growthPolicy,
+                      StoreLayout layout) {
+    this(layout.newState(initialCapacity, growthPolicy, metrics), solver, solutionListener);
   }
 
 
@@ -95,7 +163,7 @@ public class UnifyContext {
    * @param solver
    * @param solutionListener
    */
-  private UnifyContext(UnifyStateByLookup stateStorage, Solver solver, SolutionListener solutionListener) {
+  UnifyContext(UnifyState stateStorage, Solver solver, SolutionListener solutionListener) {
     this.stateStorage = stateStorage;
     this.solver = solver;
     this.solutionListener = solutionListener;
@@ -115,10 +183,41 @@ public class UnifyContext {
     this.solver = original.solver;
     this.solutionListener = original.solutionListener;
     this.topVarIndex = original.topVarIndex;
+    this.answerTable = original.answerTable;
+    this.domains = original.domains;
+    this.conjunctionEntry = original.conjunctionEntry;
+    this.conjunctionCutLevel = original.conjunctionCutLevel;
     this.currentTransaction = original.currentTransaction + newTransaction;
   }
 
 
+  /**
+   * Same bindings as original, in another storage.
+   */
+  private UnifyContext(UnifyState stateStorage, UnifyContext original) {
+    this.stateStorage = stateStorage;
+    this.solver = original.solver;
+    this.solutionListener = original.solutionListener;
+    this.topVarIndex = original.topVarIndex;
+    this.domains = original.domains;
+    this.conjunctionEntry = original.conjunctionEntry;
+    this.conjunctionCutLevel = original.conjunctionCutLevel;
+    this.currentTransaction = original.currentTransaction;
+  }
+
+  /**
+   * Snapshot the bindings of this context into a new storage of variables, so that a sub-goal can be solved from the
+   * returned context (typically on another thread) without affecting this context nor any other context of the solving,
+   * and the other way round. This is a full copy of the storage, O(capacity) (see {@link UnifyState#snapshot(int, SolveMetrics)}),
+   * not a copy on write; it does not depend on the size of the values bound.
+   * The snapshot collects no metrics and has no {@link AnswerTable}, as these are not thread-safe.
+   *
+   * @return An independent context with the same values of variables
+   */
+  public UnifyContext fork() {
+    return new UnifyContext(this.stateStorage.snapshot(this.currentTransaction, null), this);
+  }
+
   /**
    * Copy and set a new {@link SolutionListener}
    *
@@ -131,6 +230,61 @@ public class UnifyContext {
     return copy;
   }
 
+  /**
+   * Copy and set the {@link SolutionListener} that handles the solutions to the first goal of a conjunction, remembering this
+   * context so that {@link #exitConjunction()} can later deliver the solutions of the whole conjunction to the listener of this context.
+   * This allows the listeners of a conjunction to be built once and shared by all its solvings, whatever their downstream listener,
+   * see {@link org.logic2j.engine.predicates.internal.And}. Conjunctions nest: each entry must be matched by an exit.
+   *
+   * @param firstListener
+   * @param cutLevel The cut level for solving the goals of the conjunction, see {@link #getConjunctionCutLevel()}
+   * @return A copy with the specified {@link SolutionListener}
+   */
+  public UnifyContext enterConjunction(SolutionListener firstListener, int cutLevel) {
+    final UnifyContext copy = new UnifyContext(this, 0);
+    copy.solutionListener = firstListener;
+    copy.conjunctionEntry = this;
+    copy.conjunctionCutLevel = cutLevel;
+    return copy;
+  }
+
+  /**
+   * Copy with the bindings of this context, and the listener and enclosing conjunction of the context from which the current
+   * conjunction was entered, see {@link #enterConjunction(SolutionListener, int)}.
+   *
+   * @return A copy to solve the last goal of the current conjunction
+   */
+  public UnifyContext exitConjunction() {
+    final UnifyContext entry = this.conjunctionEntry;
+    if (entry == null) {
+      throw new IllegalStateException("Not solving a conjunction");
+    }
+    final UnifyContext copy = new UnifyContext(this, 0);
+    copy.solutionListener = entry.solutionListener;
+    copy.conjunctionEntry = entry.conjunctionEntry;
+    copy.conjunctionCutLevel = entry.conjunctionCutLevel;
+    return copy;
+  }
+
+  /**
+   * @return The cut level of the conjunction currently being solved, as specified to {@link #enterConjunction(SolutionListener, int)}
+   */
+  public int getConjunctionCutLevel() {
+    return this.conjunctionCutLevel;
+  }
+
+  /**
+   * Copy and set the table of memoized goals of the current solving
+   *
+   * @param newAnswerTable
+   * @return A copy with the specified {@link AnswerTable}
+   */
+  public UnifyContext withAnswerTable(AnswerTable newAnswerTable) {
+    final UnifyContext copy = new UnifyContext(this, 0);
+    copy.answerTable = newAnswerTable;
+    return copy;
+  }
+
   /**
    * Increment and obtain new top variable index.
    *
@@ -162,9 +316,45 @@ public class UnifyContext {
       return this;
     }
     //        audit.info("Bind   {} -> {} at t=" + this.currentTransaction, var, ref);
+    if (this.domains != null) {
+      return bindWithinDomain(var, ref);
+    }
     return stateStorage.bind(this, var, ref);
   }
 
+  /**
+   * Bind when some vars have a domain: a value must belong to the domain of var, and binding var to another free var
+   * moves the domain onto the latter.
+   */
+  private UnifyContext bindWithinDomain(Var<?> var, Object ref) {
+    final Set<Object> domain = this.domains.get(var);
+    if (domain == null) {
+      return stateStorage.bind(this, var, ref);
+    }
+    Domains remaining = this.domains.without(var);
+    final Object target = dereference(ref);
+    if (termApi().isFreeVar(target)) {
+      final Var<?> targetVar = (Var<?>) target;
+      final Set<Object> targetDomain = this.domains.get(targetVar);
+      Set<Object> merged = domain;
+      if (targetDomain != null) {
+        merged = new LinkedHashSet<>(targetDomain);
+        merged.retainAll(domain);
+        if (merged.isEmpty()) {
+          return null;
+        }
+        merged = Collections.unmodifiableSet(merged);
+      }
+      remaining = (remaining != null) ? remaining.with(targetVar, merged) : Domains.of(targetVar, merged);
+    } else if (!domain.contains(target)) {
+      return null;
+    }
+    final UnifyContext result = stateStorage.bind(this, var, ref);
+    // Binding always returns a new context, not yet shared
+    result.domains = remaining;
+    return result;
+  }
+
 
   /**
    * Unify two terms. The most optimal invocation is Var against non-Var.
@@ -303,9 +493,26 @@ public class UnifyContext {
     return this.stateStorage.dereference(theVar, this.currentTransaction);
   }
 
+  /**
+   * Shallow reification: resolve a {@link Var}iable to the first value that is not a var, without recursing
+   * into structures. A Struct is returned as is, its vars may be bound.
+   * This is all that predicates working on scalars need, and it never allocates.
+   *
+   * @param term
+   * @return The value of term if it was a bound var, the last free var of the chain if it was not bound, or term itself
+   */
+  public Object dereference(Object term) {
+    if (termApi().isFreeVar(term)) {
+      return reifiedVar((Var<?>) term);
+    }
+    return term;
+  }
+
   /**
    * Recursively resolve one {@link Var}iable, or a structure containing variables,
    * until a constant, or free variable is reached, and return it.
+   * Structures are only cloned when at least one of their variables is bound, otherwise the original is returned.
+   * To only inspect a term, prefer {@link #visitReified(Object, ReifiedTermVisitor)} which never allocates.
    *
    * @param term
    * @return The dereferenced content of term, or theVar if it was free, or null if term is null
@@ -321,20 +528,199 @@ public class UnifyContext {
         // Structure is an atom or a constant term - no need to further transform
         return term;
       }
-      // Structure has arguments
-      final Object[] reifiedArgs = Arrays.stream(s.getArgs()).map(this::reify).toArray(Object[]::new);
-      final Struct<?> res = s.cloneWithNewArguments(reifiedArgs);
-      if (s.getIndex() > 0) {
-        // The original structure had variables, maybe the cloned one will still have (if those were free)
-        // We need to reassign indexes. It's costly, unfortunately.
-        termApi().assignIndexes(res, 0);
+      // Structure has arguments, copy them only once one of them changes
+      final Object[] args = s.getArgs();
+      Object[] reifiedArgs = null;
+      for (int i = 0; i < args.length; i++) {
+        final Object reifiedArg = reify(args[i]);
+        if (reifiedArgs == null && reifiedArg != args[i]) {
+          reifiedArgs = Arrays.copyOf(args, args.length);
+        }
+        if (reifiedArgs != null) {
+          reifiedArgs[i] = reifiedArg;
+        }
+      }
+      if (reifiedArgs == null) {
+        // All vars are free: the original is the reified term
+        return s;
       }
+      final Struct<?> res = s.cloneWithNewArguments(reifiedArgs);
+      // The original structure had variables, maybe the cloned one will still have (if those were free)
+      // We need to reassign indexes.
+      termApi().assignIndexes(res, 0);
       //            audit.info("               yields {}", res);
       return res;
     }
     return term;
   }
 
+  /**
+   * Traverse the reified value of term depth-first, dereferencing variables on access, without cloning
+   * nor allocating anything.
+   *
+   * @param term
+   * @param visitor
+   * @return false if the visitor stopped the traversal, true if it went to its end
+   */
+  public boolean visitReified(Object term, ReifiedTermVisitor visitor) {
+    if (termApi().isFreeVar(term)) {
+      term = reifiedVar((Var<?>) term);
+      if (termApi().isFreeVar(term)) {
+        return visitor.freeVar((Var<?>) term);
+      }
+    }
+    if (term instanceof Struct<?> s) {
+      if (visitor.enterStruct(s)) {
+        for (final Object arg : s.getArgs()) {
+          if (!visitReified(arg, visitor)) {
+            return false;
+          }
+        }
+      }
+      visitor.exitStruct(s);
+      return true;
+    }
+    return visitor.value(term);
+  }
+
+  /**
+   * @param term
+   * @return true if the reified value of term contains no free variable.
+   */
+  public boolean isGround(Object term) {
+    return visitReified(term, GROUND_CHECK);
+  }
+
+  private static final ReifiedTermVisitor GROUND_CHECK = new ReifiedTermVisitor() {
+    @Override
+    public boolean enterStruct(Struct<?> struct) {
+      // Only structures with vars need to be looked at
+      return struct.getIndex() != 0;
+    }
+
+    @Override
+    public boolean freeVar(Var<?> var) {
+      return false;
+    }
+  };
+
+
+  // --------------------------------------------------------------------------
+  // Domains of variables, for set-at-a-time solving
+  // --------------------------------------------------------------------------
+
+  /**
+   * Restrict the values that a free variable may take, without binding it: unifying the variable later on
+   * only succeeds with a value of its domain. This allows predicates to process a whole set of values at once,
+   * see {@link org.logic2j.engine.solver.SetAwarePredicate}, instead of being solved once per value.
+   * If var is bound, this only checks that its value belongs to values.
+   *
+   * @param var
+   * @param values
+   * @return A context where the domain of var is the intersection of its previous domain, if any, and of values;
+   * a context where var is bound if only one value remains, or null if none remains
+   */
+  public UnifyContext restrictDomain(Var<?> var, Collection<?> values) {
+    final Object value = dereference(var);
+    if (!termApi().isFreeVar(value)) {
+      return values.contains(value) ? this : null;
+    }
+    final Var<?> freeVar = (Var<?>) value;
+    if (freeVar.isAnon()) {
+      return this;
+    }
+    final Set<Object> previous = (this.domains != null) ? this.domains.get(freeVar) : null;
+    final Set<Object> domain;
+    if (previous != null) {
+      // Keep the order of the previous domain
+      domain = new LinkedHashSet<>(previous);
+      domain.retainAll(values instanceof Set<?> ? values : new HashSet<>(values));
+    } else {
+      domain = new LinkedHashSet<>(values);
+    }
+    if (domain.isEmpty()) {
+      return null;
+    }
+    if (domain.size() == 1) {
+      return bind(freeVar, domain.iterator().next());
+    }
+    final UnifyContext copy = new UnifyContext(this, 0);
+    final Set<Object> unmodifiable = Collections.unmodifiableSet(domain);
+    copy.domains = (this.domains != null) ? this.domains.with(freeVar, unmodifiable) : Domains.of(freeVar, unmodifiable);
+    return copy;
+  }
+
+  /**
+   * @param term
+   * @return The values that term may take if it is a free variable with a domain, null otherwise
+   */
+  public Set<Object> domainOf(Object term) {
+    if (this.domains == null) {
+      return null;
+    }
+    final Object value = dereference(term);
+    return termApi().isFreeVar(value) ? this.domains.get((Var<?>) value) : null;
+  }
+
+  /**
+   * @return true if at least one free variable has a domain
+   */
+  public boolean hasDomains() {
+    return this.domains != null;
+  }
+
+  /**
+   * @param term
+   * @return true if a free variable of term has a domain
+   */
+  public boolean hasDomainIn(Object term) {
+    return varWithDomain(term) != null;
+  }
+
+  /**
+   * Enumerate the values of the domains of the variables found in term, by binding them: solving is invoked once per
+   * combination of values, or once with this context if no variable of term has a domain.
+   * This is how values are supplied to what cannot process a whole domain at once.
+   *
+   * @param term The term whose variables must be bound, or null for all variables having a domain
+   * @param solving
+   * @return The first result of solving that is not {@link Continuation#CONTINUE}, or CONTINUE
+   */
+  public int fanOutDomains(Object term, ToIntFunction<UnifyContext> solving) {
+    final Var<?> var = (term != null) ? varWithDomain(term) : (this.domains != null ? this.domains.first() : null);
+    if (var == null) {
+      return solving.applyAsInt(this);
+    }
+    for (final Object value : this.domains.get(var)) {
+      final int result = bind(var, value).fanOutDomains(term, solving);
+      if (result != Continuation.CONTINUE) {
+        return result;
+      }
+    }
+    return Continuation.CONTINUE;
+  }
+
+  /**
+   * @return The first free variable of term that has a domain, or null
+   */
+  private Var<?> varWithDomain(Object term) {
+    if (this.domains == null) {
+      return null;
+    }
+    final Var<?>[] found = new Var<?>[1];
+    visitReified(term, new ReifiedTermVisitor() {
+      @Override
+      public boolean freeVar(Var<?> var) {
+        if (domains.get(var) != null) {
+          found[0] = var;
+          return false;
+        }
+        return true;
+      }
+    });
+    return found[0];
+  }
+
 
   // ------------------------------------------------------
   // Accessors
@@ -348,9 +734,27 @@ public class UnifyContext {
     return this.solutionListener;
   }
 
+  /**
+   * @return The instrumentation of the current solving, or null when the solver is not profiling.
+   */
+  public SolveMetrics getMetrics() {
+    return this.stateStorage.getMetrics();
+  }
+
+  /**
+   * @return The table of memoized goals of the current solving, or null when tabling is disabled.
+   */
+  public AnswerTable getAnswerTable() {
+    return this.answerTable;
+  }
+
+  UnifyState getStateStorage() {
+    return this.stateStorage;
+  }
+
   @Override
   public String toString() {
-    return "vars#" + this.currentTransaction + stateStorage.toString();
+    return "vars#" + this.currentTransaction + stateStorage.toString() + (this.domains != null ? this.domains.toString() : "");
   }
 
 }
@@ -0,0 +1,94 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.unify;
+
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+
+/**
+ * The storage of the values of all variables during one solving, shared by all {@link UnifyContext}s derived
+ * from the initial one. Implementations differ by their memory layout, see {@link StoreLayout}.
+ * <p/>
+ * Every slot written must be logged so that backtracking to an earlier transaction (and {@link #reset(SolveMetrics, GrowthPolicy)})
+ * can clear it: the transaction number of a {@link UnifyContext} is the number of entries in that log.
+ */
+interface UnifyState {
+
+  /**
+   * Binding theVar to theRef; theVar will further appear "modified" in
+   * the resulting UnifyContext; theRef is not altered.
+   *
+   * @param currentVars
+   * @param theVar
+   * @param theRef
+   * @return The resulting context after modification or currentVars if unchanged.
+   */
+  UnifyContext bind(UnifyContext currentVars, Var<?> theVar, Object theRef);
+
+  /**
+   * @param theVar
+   * @param transactionNumber
+   * @return The value of theVar as seen at transactionNumber: a literal, a Struct, or the last free Var of a chain.
+   */
+  Object dereference(Var<?> theVar, int transactionNumber);
+
+  /**
+   * Copy the bindings visible at a transaction into a new storage of the same layout, sharing nothing with this one:
+   * the log of written slots up to transactionNumber is replayed, keeping the same transaction numbers, so that
+   * a {@link UnifyContext} at transactionNumber sees the same values in both.
+   * This is a full copy, O(capacity): the arrays of the copy are allocated (and initialized) at the capacity of this
+   * storage, then the log is replayed, O(transactionNumber). Nothing is shared, hence nothing is copied on write.
+   *
+   * @param transactionNumber
+   * @param newMetrics Instrumentation of the copy, or null
+   * @return The independent copy
+   */
+  UnifyState snapshot(int transactionNumber, SolveMetrics newMetrics);
+
+  /**
+   * @return Instrumentation of the current solving, or null when not profiling.
+   */
+  SolveMetrics getMetrics();
+
+  /**
+   * Bring this storage back to its initial state (all vars free), for reuse by another solving.
+   *
+   * @param newMetrics      Instrumentation of the next solving, or null
+   * @param newGrowthPolicy How to grow during the next solving
+   */
+  void reset(SolveMetrics newMetrics, GrowthPolicy newGrowthPolicy);
+
+  /**
+   * Make sure slots 0..capacity-1 fit, without going through the growth policy.
+   *
+   * @param capacity
+   */
+  void ensureCapacity(int capacity);
+
+  /**
+   * @return Current capacity in number of variable slots.
+   */
+  int capacity();
+
+  /**
+   * @return The layout implemented.
+   */
+  StoreLayout layout();
+
+}
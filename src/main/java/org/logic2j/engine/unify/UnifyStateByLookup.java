@@ -19,6 +19,7 @@ package org.logic2j.engine.unify;
 
 import org.logic2j.engine.exception.SolverException;
 import org.logic2j.engine.model.Var;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,10 +32,15 @@ import java.util.TreeMap;
  * values of all variables of a goal.
  * The monadic view of the current state of variables is visible through the lightweight
  * facade object {@link UnifyContext}.
+ * See {@link StoreLayout#LOOKUP}.
  */
-class UnifyStateByLookup {
+class UnifyStateByLookup implements UnifyState {
   private static final Logger logger = LoggerFactory.getLogger(UnifyStateByLookup.class);
-  private static final int INITIAL_SIZE = 500;
+
+  /**
+   * Capacity when the number of variables to solve is not known.
+   */
+  static final int DEFAULT_CAPACITY = 500;
 
   private int[] transaction;
   private Var<?>[] var;
@@ -43,28 +49,52 @@ class UnifyStateByLookup {
   private int[] logOfWrittenSlots;  // Indexed by transaction number
   private int logWatermark;
 
+  /**
+   * How to grow when a slot beyond capacity is bound.
+   */
+  private GrowthPolicy growthPolicy;
+
+  /**
+   * Instrumentation of the current solving, or null when not profiling.
+   */
+  private SolveMetrics metrics;
+
   /**
    * This object is instantiated only once at the beginning of solving a goal.
+   *
+   * @param initialCapacity Number of variable slots, ideally the number of vars of the goal plus some headroom
+   * @param growthPolicy    How to grow when needed
+   * @param metrics         Where to count bindings, dereferencing and resizing, or null
    */
-  UnifyStateByLookup() {
-    transaction = new int[INITIAL_SIZE];
+  UnifyStateByLookup(int initialCapacity, GrowthPolicy growthPolicy, SolveMetrics metrics) {
+    this.metrics = metrics;
+    this.growthPolicy = growthPolicy;
+    final int capacity = Math.max(1, initialCapacity);
+    transaction = new int[capacity];
     Arrays.fill(transaction, -1);
-    var = new Var[INITIAL_SIZE];
-    literal = new Object[INITIAL_SIZE];
-    boundVarIndex = new int[INITIAL_SIZE];
-    logOfWrittenSlots = new int[INITIAL_SIZE];
+    var = new Var[capacity];
+    literal = new Object[capacity];
+    boundVarIndex = new int[capacity];
+    logOfWrittenSlots = new int[capacity];
     logWatermark = 0;
   }
 
   /**
    * Increase the size of all the arrays and copy existing data
    * plus initialize extra space according to needs.
+   *
+   * @param requiredSlot The slot that must fit after resizing
    */
-  private void resizeArrays() {
+  private void resizeArrays(int requiredSlot) {
     // Current and new sizing algorithm
     final int initialLength = transaction.length;
-    final int newLength = initialLength * 2;
-    logger.info("Resizing UnifyState arrays to {} elements", newLength);
+    final int newLength = Math.max(growthPolicy.newCapacity(initialLength, requiredSlot), requiredSlot + 1);
+    if (logger.isDebugEnabled()) {
+      logger.debug("Resizing UnifyState arrays to {} elements", newLength);
+    }
+    if (metrics != null) {
+      metrics.countResize();
+    }
     // Increase size and copy
     transaction = Arrays.copyOf(transaction, newLength);
     Arrays.fill(transaction, initialLength, newLength, -1); // Need some init (only the extra part)
@@ -74,6 +104,24 @@ class UnifyStateByLookup {
     logOfWrittenSlots = Arrays.copyOf(logOfWrittenSlots, newLength);
   }
 
+  /**
+   * Make sure slots 0..capacity-1 fit, without going through the growth policy.
+   *
+   * @param capacity
+   */
+  @Override
+  public void ensureCapacity(int capacity) {
+    if (capacity > transaction.length) {
+      final int initialLength = transaction.length;
+      transaction = Arrays.copyOf(transaction, capacity);
+      Arrays.fill(transaction, initialLength, capacity, -1);
+      var = Arrays.copyOf(var, capacity);
+      literal = Arrays.copyOf(literal, capacity);
+      boundVarIndex = Arrays.copyOf(boundVarIndex, capacity);
+      logOfWrittenSlots = Arrays.copyOf(logOfWrittenSlots, capacity);
+    }
+  }
+
   /**
    * Binding theVar to theRef; theVar will further appear "modified" in
    * the resulting UnifyContext; theRef is not altered.
@@ -84,7 +132,8 @@ class UnifyStateByLookup {
    * @param theRef
    * @return The resulting context after modification or this if unchanged.
    */
-  UnifyContext bind(UnifyContext currentVars, Var<?> theVar, Object theRef) {
+  @Override
+  public UnifyContext bind(UnifyContext currentVars, Var<?> theVar, Object theRef) {
     if (logger.isDebugEnabled()) {
       logger.debug(" bind {}->{}", theVar, theRef);
     }
@@ -100,21 +149,26 @@ class UnifyStateByLookup {
       }
     }
     cleanupTo(transactionNumber);
+    final Object finalRef = (theRef instanceof Var) ? dereference((Var<?>) theRef, transactionNumber) : theRef;
+    if (finalRef == theVar) {
+      // OOps, trying to bind Var to same Var (after its ref was dereferenced)
+      // Return before writing anything: every write to the slots must be logged, see cleanupTo() and reset().
+      return currentVars; // So no change
+    }
     final int slot = theVar.getIndex();
     // Handle array sizing overflow
-    while (slot >= transaction.length) {
-      resizeArrays();
+    if (slot >= transaction.length) {
+      resizeArrays(slot);
     }
     transaction[slot] = transactionNumber;
     var[slot] = theVar;
 
-    final Object finalRef = (theRef instanceof Var) ? dereference((Var<?>) theRef, transactionNumber) : theRef;
     if (finalRef instanceof Var<?> finalVar && finalRef != Var.anon()) {
-      if (finalRef == theVar) {
-        // OOps, trying to bind Var to same Var (after its ref was dereferenced)
-        return currentVars; // So no change
-      }
       final int finalVarIndex = finalVar.getIndex();
+      if (finalVarIndex >= transaction.length) {
+        // The target var was free beyond capacity, it must now be reachable
+        resizeArrays(finalVarIndex);
+      }
       var[finalVarIndex] = finalVar;
       literal[slot] = null; // Not a literal!
       boundVarIndex[slot] = finalVarIndex;
@@ -122,14 +176,15 @@ class UnifyStateByLookup {
       literal[slot] = finalRef;
     }
     logOfWrittenSlots[logWatermark++] = slot;
-    //        if (slot > ProfilingInfo.max1) {
-    //            ProfilingInfo.max1 = slot;
-    //        }
+    if (metrics != null) {
+      metrics.countBinding(slot);
+    }
     return new UnifyContext(currentVars, 1);
   }
 
 
-  Object dereference(Var<?> theVar, int transactionNumber) {
+  @Override
+  public Object dereference(Var<?> theVar, int transactionNumber) {
     if (theVar.isAnon()) {
       return theVar;
     }
@@ -141,9 +196,9 @@ class UnifyStateByLookup {
     }
     int limiter = Integer.MAX_VALUE;
     while (--limiter >= 0) {
-      // Handle array sizing overflow
-      while (slot >= transaction.length) {
-        resizeArrays();
+      if (slot >= transaction.length) {
+        // Never bound since beyond capacity: no need to grow
+        return runningVar;
       }
       final int slotTrans = transaction[slot];
       if (slotTrans == -1 || slotTrans >= transactionNumber) {
@@ -156,17 +211,75 @@ class UnifyStateByLookup {
       }
       slot = boundVarIndex[slot];
       runningVar = var[slot];
+      if (metrics != null) {
+        metrics.countDereferenceHop();
+      }
     }
     throw new IllegalStateException("Infinite loop detected during dereferencing of variable \"" + theVar + '"');
   }
 
 
+  /**
+   * Full copy, O(capacity): allocates all arrays at the current capacity, then replays the log up to transactionNumber.
+   */
+  @Override
+  public UnifyState snapshot(int transactionNumber, SolveMetrics newMetrics) {
+    final UnifyStateByLookup copy = new UnifyStateByLookup(transaction.length, growthPolicy, newMetrics);
+    for (int entry = 0; entry < transactionNumber; entry++) {
+      final int slot = logOfWrittenSlots[entry];
+      copy.transaction[slot] = transaction[slot];
+      copy.var[slot] = var[slot];
+      copy.literal[slot] = literal[slot];
+      copy.boundVarIndex[slot] = boundVarIndex[slot];
+      if (literal[slot] == null) {
+        // The target of a binding to a var is not logged
+        copy.var[boundVarIndex[slot]] = var[boundVarIndex[slot]];
+      }
+      copy.logOfWrittenSlots[entry] = slot;
+    }
+    copy.logWatermark = transactionNumber;
+    return copy;
+  }
+
+  @Override
+  public SolveMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Bring this storage back to its initial state (all vars free), for reuse by another solving.
+   * Only the slots written so far are cleared, from the log, which is far cheaper than allocating and filling arrays.
+   *
+   * @param newMetrics Instrumentation of the next solving, or null
+   * @param newGrowthPolicy How to grow during the next solving
+   */
+  @Override
+  public void reset(SolveMetrics newMetrics, GrowthPolicy newGrowthPolicy) {
+    cleanupTo(0);
+    this.metrics = newMetrics;
+    this.growthPolicy = newGrowthPolicy;
+  }
+
+  /**
+   * @return Current capacity in number of variable slots.
+   */
+  @Override
+  public int capacity() {
+    return transaction.length;
+  }
+
+  @Override
+  public StoreLayout layout() {
+    return StoreLayout.LOOKUP;
+  }
+
   private void cleanupTo(int transactionNumber) {
     if (logWatermark > transactionNumber) {
       // UnifyContext.audit.info("Cleanup  {} up to {}", logWatermark, transactionNumber);
       while (logWatermark > transactionNumber) {
         int slotToCleanup = logOfWrittenSlots[--logWatermark];
         transaction[slotToCleanup] = -1;
+        literal[slotToCleanup] = null; // Don't retain values beyond their lifetime
       }
       // UnifyContext.audit.info(" after, watermark={}", logWatermark);
     }
@@ -175,7 +288,7 @@ class UnifyStateByLookup {
   public String toString() {
     final TreeMap<Integer, String> sorted = new TreeMap<>();
     final StringBuilder sb = new StringBuilder();
-    for (int slot = 0; slot < INITIAL_SIZE; slot++) {
+    for (int slot = 0; slot < transaction.length; slot++) {
       final int transactionNumber = transaction[slot];
       if (transactionNumber == -1) {
         continue;
@@ -0,0 +1,125 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.unify;
+
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Per-thread pool of storages of variables, to avoid allocating and initializing a new one for every solving,
+ * which dominates the cost of solving tiny goals.
+ * A few storages are kept per thread since solvings may be nested (e.g. a {@link SolutionListener} solving another goal).
+ * Storages are reset from their log of written slots when released, only the slots actually used are cleared.
+ * <p/>
+ * Contract: {@link #release(UnifyContext)} must be invoked on the same thread, once solving is over and
+ * no {@link UnifyContext} derived from the acquired one is used anymore.
+ * See {@link Solver#withStatePooling(boolean)}.
+ */
+public final class UnifyStatePool {
+
+  /**
+   * Max number of idle storages kept per thread.
+   */
+  private static final int MAX_POOLED_PER_THREAD = 4;
+
+  /**
+   * Storages that have grown beyond this number of slots are not kept.
+   */
+  private static final int MAX_POOLED_CAPACITY = 1 << 16;
+
+  private static final ThreadLocal<ArrayDeque<UnifyState>> pool = ThreadLocal.withInitial(ArrayDeque::new);
+
+  private UnifyStatePool() {
+    // Forbid instantiation
+  }
+
+  /**
+   * Obtain an initial {@link UnifyContext} with all vars free, backed by a pooled storage of the {@link StoreLayout#LOOKUP} layout
+   * if one is available.
+   *
+   * @param solver
+   * @param solutionListener
+   * @param metrics Where to collect instrumentation of the solving, or null for none
+   * @param initialCapacity Minimal number of variables that can be stored before growing
+   * @param growthPolicy How to grow the storage of variables
+   * @return A new initial context
+   */
+  public static UnifyContext acquire(Solver solver, SolutionListener solutionListener, SolveMetrics metrics, int initialCapacity,
+                                     GrowthPolicy growthPolicy) {
+    return acquire(solver, solutionListener, metrics, initialCapacity, growthPolicy, StoreLayout.LOOKUP);
+  }
+
+  /**
+   * Obtain an initial {@link UnifyContext} with all vars free, backed by a pooled storage of the specified layout if one is available.
+   *
+   * @param solver
+   * @param solutionListener
+   * @param metrics Where to collect instrumentation of the solving, or null for none
+   * @param initialCapacity Minimal number of variables that can be stored before growing
+   * @param growthPolicy How to grow the storage of variables
+   * @param layout Memory layout of the storage of variables
+   * @return A new initial context
+   */
+  public static UnifyContext acquire(Solver solver, SolutionListener solutionListener, SolveMetrics metrics, int initialCapacity,
+                                     GrowthPolicy growthPolicy, StoreLayout layout) {
+    final UnifyState stateStorage = pollIdle(layout);
+    if (stateStorage == null) {
+      return new UnifyContext(solver, solutionListener, metrics, initialCapacity, growthPolicy, layout);
+    }
+    stateStorage.reset(metrics, growthPolicy);
+    stateStorage.ensureCapacity(initialCapacity);
+    return new UnifyContext(stateStorage, solver, solutionListener);
+  }
+
+  private static UnifyState pollIdle(StoreLayout layout) {
+    final Iterator<UnifyState> iter = pool.get().iterator();
+    while (iter.hasNext()) {
+      final UnifyState candidate = iter.next();
+      if (candidate.layout() == layout) {
+        iter.remove();
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return the storage of a context obtained by {@link #acquire(Solver, SolutionListener, SolveMetrics, int, GrowthPolicy, StoreLayout)} to the pool
+   * of the current thread.
+   *
+   * @param initialContext
+   */
+  public static void release(UnifyContext initialContext) {
+    final UnifyState stateStorage = initialContext.getStateStorage();
+    if (stateStorage.capacity() > MAX_POOLED_CAPACITY) {
+      return;
+    }
+    final ArrayDeque<UnifyState> idle = pool.get();
+    if (idle.size() < MAX_POOLED_PER_THREAD && !idle.contains(stateStorage)) {
+      // Reset now so that we don't retain values of the previous solving
+      stateStorage.reset(null, GrowthPolicy.DOUBLING);
+      idle.addFirst(stateStorage);
+    }
+  }
+
+}
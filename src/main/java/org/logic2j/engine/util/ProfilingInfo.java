@@ -22,7 +22,11 @@ import java.util.HashMap;
 /**
  * Counters and data structures that can be used (temporarily) to instrument logic2j
  * to collect usage / profiling information
+ *
+ * @deprecated Static counters are not thread-safe and mix up concurrent solvings; they are no longer fed by the engine.
+ * Use {@link org.logic2j.engine.solver.metrics.SolveMetrics} via {@link org.logic2j.engine.solver.Solver#withMetricsSink}.
  */
+@Deprecated
 public class ProfilingInfo {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ProfilingInfo.class);
 
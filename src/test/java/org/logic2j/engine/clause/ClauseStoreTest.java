@@ -0,0 +1,246 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.clause;
+
+import org.junit.Test;
+import org.logic2j.engine.data.DataFactStore;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.math.compare.GE;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.solver.Continuation;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+import static org.logic2j.engine.model.Var.anyVar;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.model.Var.strVar;
+import static org.logic2j.engine.predicates.Predicates.cut;
+
+public class ClauseStoreTest {
+
+  private static Struct<?> parent(Object x, Object y) {
+    return new Struct<>("parent", x, y);
+  }
+
+  private static Struct<?> ancestor(Object x, Object y) {
+    return new Struct<>("ancestor", x, y);
+  }
+
+  private static ClauseStore family() {
+    final Var<String> X = strVar("X");
+    final Var<String> Y = strVar("Y");
+    final Var<String> Z = strVar("Z");
+    return new ClauseStore()
+        .add(parent("abe", "homer"))
+        .add(parent("homer", "bart"))
+        .add(parent("homer", "lisa"))
+        .add(parent("lisa", "zia"))
+        .add(ancestor(X, Y), parent(X, Y))
+        .add(ancestor(X, Y), parent(X, Z), ancestor(Z, Y));
+  }
+
+  @Test
+  public void facts() {
+    final Solver solver = new Solver().withClauseProvider(family());
+    final Var<String> C = strVar("C");
+    assertThat(solver.solve(parent("homer", C)).var(C).list()).containsExactly("bart", "lisa");
+    assertThat(solver.solve(parent("bart", C)).count()).isEqualTo(0);
+  }
+
+  @Test
+  public void recursiveRule() {
+    final Solver solver = new Solver().withClauseProvider(family());
+    final Var<String> D = strVar("D");
+    assertThat(solver.solve(ancestor("abe", D)).var(D).list()).containsExactly("homer", "bart", "lisa", "zia");
+    final Var<String> A = strVar("A");
+    assertThat(solver.solve(ancestor(A, "zia")).var(A).list()).containsExactly("lisa", "abe", "homer");
+  }
+
+  @Test
+  public void variablesOfClausesAreRenamedAtEachResolution() {
+    // Same Var objects in the goal as in the clauses, and a clause resolved within itself
+    final Var<String> X = strVar("X");
+    final Var<String> Y = strVar("Y");
+    final Var<String> P = strVar("P");
+    final ClauseStore store = family().add(new Struct<>("sibling", X, Y), parent(P, X), parent(P, Y));
+    final Solver solver = new Solver().withClauseProvider(store);
+    final Var<String> S = strVar("S");
+    assertThat(solver.solve(new Struct<>("sibling", "bart", S)).var(S).list()).containsExactly("bart", "lisa");
+  }
+
+  @Test
+  public void structuresInHeads() {
+    final Var<Object> H = anyVar("H");
+    final Var<Object> T = anyVar("T");
+    final Var<Object> L = anyVar("L");
+    final ClauseStore store = new ClauseStore()
+        .add(new Struct<>("first", new Struct<>("cons", H, T), H))
+        .add(new Struct<>("wrap", L, new Struct<>("box", L)));
+    final Solver solver = new Solver().withClauseProvider(store);
+    final Var<Object> F = anyVar("F");
+    assertThat(solver.solve(new Struct<>("first", new Struct<>("cons", 1, new Struct<>("cons", 2, "nil")), F)).var(F).list()).containsExactly(1);
+    final Var<Object> W = anyVar("W");
+    assertThat(solver.solve(new Struct<>("wrap", "gift", W)).var(W).list()).containsExactly(new Struct<>("box", "gift"));
+    assertThat(solver.solve(new Struct<>("wrap", "gift", new Struct<>("box", "other"))).count()).isEqualTo(0);
+  }
+
+  @Test
+  public void cutPrunesOtherClauses() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final ClauseStore store = new ClauseStore()
+        .add(new Struct<>("max", X, Y, X), new GE<>(X, Y), cut)
+        .add(new Struct<>("max", X, Y, Y));
+    final Solver solver = new Solver().withClauseProvider(store);
+    final Var<Integer> M = intVar("M");
+    assertThat(solver.solve(new Struct<>("max", 5, 3, M)).var(M).list()).containsExactly(5);
+    final Var<Integer> N = intVar("N");
+    assertThat(solver.solve(new Struct<>("max", 3, 5, N)).var(N).list()).containsExactly(5);
+  }
+
+  @Test
+  public void rulesOverDataFacts() {
+    final DataFactStore data = new DataFactStore().add("edge", 1, 2).add("edge", 2, 3).add("edge", 3, 4);
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final Var<Integer> Z = intVar("Z");
+    final ClauseStore rules = new ClauseStore()
+        .add(new Struct<>("path", X, Y), new Struct<>("edge", X, Y))
+        .add(new Struct<>("path", X, Y), new Struct<>("edge", X, Z), new Struct<>("path", Z, Y));
+    final Solver solver = new Solver().withClauseProvider(rules).withDataFactProvider(data);
+    final Var<Integer> T = intVar("T");
+    assertThat(solver.solve(new Struct<>("path", 1, T)).var(T).list()).containsExactly(2, 3, 4);
+  }
+
+  @Test
+  public void firstArgumentIndexing() {
+    final ClauseStore store = family().add(parent(anyVar("Someone"), "nobody"));
+    final UnifyContext context = new UnifyContext(new Solver(), null);
+    assertThat(clauses(store.listMatchingClauses(normalized(parent("homer", anyVar())), context))).extracting(Clause::toString)
+        .containsExactly("parent(homer, bart)", "parent(homer, lisa)", "parent(Someone, nobody)");
+    assertThat(clauses(store.listMatchingClauses(normalized(parent("unknown", anyVar())), context))).hasSize(1);
+    assertThat(clauses(store.listMatchingClauses(normalized(parent(anyVar(), anyVar())), context))).hasSize(5);
+    assertThat(clauses(store.listMatchingClauses(normalized(new Struct<>("undefined", 1)), context))).isEmpty();
+  }
+
+  @Test
+  public void lastCallInConstantStackDepth() {
+    // p0(X) :- p1(X).  p1(X) :- p2(X).  ...  pN(done).
+    final int depth = 100_000;
+    final ClauseStore store = new ClauseStore();
+    for (int i = 0; i < depth; i++) {
+      final Var<String> X = strVar("X");
+      store.add(new Struct<>("p" + i, X), new Struct<>("p" + (i + 1), X));
+    }
+    store.add(new Struct<>("p" + depth, "done"));
+    final Var<String> R = strVar("R");
+    assertThat(new Solver().withClauseProvider(store).solve(new Struct<>("p0", R)).var(R).list()).containsExactly("done");
+  }
+
+  @Test
+  public void tailRecursiveRuleInConstantStackDepth() {
+    // walk(nil).  walk(cons(H, T)) :- walk(T).
+    final Var<Object> H = anyVar("H");
+    final Var<Object> T = anyVar("T");
+    final ClauseStore store = new ClauseStore()
+        .add(new Struct<>("walk", "nil"))
+        .add(new Struct<>("walk", new Struct<>("cons", H, T)), new Struct<>("walk", T));
+    Object list = "nil";
+    for (int i = 0; i < 100_000; i++) {
+      list = new Struct<>("cons", i, list);
+    }
+    // The list is a value of the prepared goal, so that it is not normalized
+    final Var<Object> L = anyVar("L");
+    final Solver solver = new Solver().withClauseProvider(store);
+    assertThat(solver.prepare(new Struct<>("walk", L), L).solve(list).count()).isEqualTo(1);
+  }
+
+  @Test
+  public void sideEffectsOfConjunctiveBodyInOrder() {
+    // p(X) :- gen(X), q(X).  q(0).  q(1).  q(2).
+    final List<String> log = new ArrayList<>();
+    final Var<Integer> X = intVar("X");
+    final FOPredicate gen = new FOPredicate("gen", X) {
+      @Override
+      public int predicateLogic(UnifyContext currentVars) {
+        for (int i = 0; i < 3; i++) {
+          log.add("gen" + i);
+          final int result = unifyAndNotify(currentVars, getArg(0), i);
+          if (result != Continuation.CONTINUE) {
+            return result;
+          }
+        }
+        return Continuation.CONTINUE;
+      }
+    };
+    final Var<Integer> Y = intVar("Y");
+    final ClauseStore store = new ClauseStore()
+        .add(new Struct<>("q", 0)).add(new Struct<>("q", 1)).add(new Struct<>("q", 2))
+        .add(new Struct<>("p", X), gen, new Struct<>("q", X));
+    final Solver solver = new Solver().withClauseProvider(store);
+    final Object goal = termApi().normalize(new Struct<>("p", Y));
+    solver.solveGoal(goal, currentVars -> {
+      log.add("sol" + currentVars.reify(Y));
+      return Continuation.CONTINUE;
+    });
+    assertThat(log).containsExactly("gen0", "sol0", "gen1", "sol1", "gen2", "sol2");
+    // Aborting on the first solution: the generator takes no further step
+    log.clear();
+    solver.solveGoal(goal, currentVars -> {
+      log.add("sol" + currentVars.reify(Y));
+      return Continuation.USER_ABORT;
+    });
+    assertThat(log).containsExactly("gen0", "sol0");
+  }
+
+  @Test
+  public void lastGoalOfConjunctiveBodyKeepsOrderOfSolutions() {
+    // Each solution to the leading goals is followed by the solutions to the last goal before the next one
+    final Var<String> X = strVar("X");
+    final Var<String> Y = strVar("Y");
+    final ClauseStore store = new ClauseStore()
+        .add(new Struct<>("color", "red"))
+        .add(new Struct<>("color", "blue"))
+        .add(new Struct<>("size", "s"))
+        .add(new Struct<>("size", "l"))
+        .add(new Struct<>("item", X, Y), new Struct<>("color", X), new Struct<>("size", Y));
+    final Var<String> C = strVar("C");
+    final Var<String> S = strVar("S");
+    final Solver solver = new Solver().withClauseProvider(store);
+    assertThat(solver.solve(new Struct<>("item", C, S)).var(C).list()).containsExactly("red", "red", "blue", "blue");
+    assertThat(solver.solve(new Struct<>("item", C, S)).var(S).list()).containsExactly("s", "l", "s", "l");
+  }
+
+  private static Struct<?> normalized(Struct<?> goal) {
+    return (Struct<?>) termApi().normalize(goal);
+  }
+
+  private static List<Clause> clauses(Iterable<Clause> iterable) {
+    final List<Clause> list = new ArrayList<>();
+    iterable.forEach(list::add);
+    return list;
+  }
+
+}
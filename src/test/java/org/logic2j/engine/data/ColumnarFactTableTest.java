@@ -0,0 +1,146 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.data;
+
+import org.junit.Test;
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.DataFact;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.solver.Solver;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.data.ColumnarFactTable.ColumnType.*;
+import static org.logic2j.engine.model.Var.anyVar;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.model.Var.strVar;
+import static org.logic2j.engine.predicates.Predicates.and;
+
+public class ColumnarFactTableTest {
+  private static final int NB_ROWS = 100_000;
+
+  private final ColumnarFactTable measures = newTable();
+  private final Solver solver = new Solver().withDataFactProvider(measures);
+
+  private static ColumnarFactTable newTable() {
+    // measure(id, sensor, timestamp, value)
+    final ColumnarFactTable table = new ColumnarFactTable("measure", 4);
+    for (int i = 0; i < NB_ROWS; i++) {
+      table.add(i, "sensor" + (i % 10), 1_000_000_000_000L + i, i / 2.0);
+    }
+    return table;
+  }
+
+  @Test
+  public void columnsAreSpecialized() {
+    assertThat(measures.size()).isEqualTo(NB_ROWS);
+    assertThat(measures.columnType(0)).isEqualTo(INT);
+    assertThat(measures.columnType(1)).isEqualTo(STRING);
+    assertThat(measures.columnType(2)).isEqualTo(LONG);
+    assertThat(measures.columnType(3)).isEqualTo(DOUBLE);
+    assertThat(measures.row(3)).containsExactly(3, "sensor3", 1_000_000_000_003L, 1.5);
+  }
+
+  @Test
+  public void mixedTypesFallBackToObjects() {
+    final ColumnarFactTable table = new ColumnarFactTable("t", 1).add(1).add(2L).add("three");
+    assertThat(table.columnType(0)).isEqualTo(OBJECT);
+    assertThat(table.row(0)).containsExactly(1);
+    assertThat(table.row(1)).containsExactly(2L);
+    final Var<Object> X = anyVar("X");
+    assertThat(new Solver().withDataFactProvider(table).solve(new Struct<>("t", X)).var(X).list()).containsExactly(1, 2L, "three");
+  }
+
+  @Test
+  public void lookupByIndexedColumn() {
+    final Var<String> S = strVar("S");
+    final Var<Object> T = anyVar("T");
+    final Var<Object> V = anyVar("V");
+    assertThat(solver.solve(new Struct<>("measure", 4243, S, T, V)).var(S).list()).containsExactly("sensor3");
+    assertThat(solver.solve(new Struct<>("measure", 4243, S, T, V)).var(V).list()).containsExactly(2121.5);
+  }
+
+  @Test
+  public void severalBoundColumns() {
+    final Var<Integer> I = intVar("I");
+    final Var<Object> V = anyVar("V");
+    assertThat(solver.solve(new Struct<>("measure", I, "sensor7", 1_000_000_000_017L, V)).var(I).list()).containsExactly(17);
+    assertThat(solver.solve(new Struct<>("measure", I, "sensor7", 1_000_000_000_018L, V)).count()).isZero();
+  }
+
+  @Test
+  public void scanOfOneValue() {
+    assertThat(solver.solve(new Struct<>("measure", intVar("I"), "sensor7", anyVar("T"), anyVar("V"))).count()).isEqualTo(NB_ROWS / 10);
+  }
+
+  @Test
+  public void typesMustMatchExactly() {
+    final Var<Integer> I = intVar("I");
+    // The timestamp column holds Longs, an Integer does not unify - as with DataFacts
+    assertThat(solver.solve(new Struct<>("measure", I, anyVar("S"), 1_000_000, anyVar("V"))).count()).isZero();
+    assertThat(solver.solve(new Struct<>("measure", I, "unknownSensor", anyVar("T"), anyVar("V"))).count()).isZero();
+  }
+
+  @Test
+  public void argumentBoundByPreviousGoal() {
+    final Var<Integer> I = intVar("I");
+    final Var<String> S = strVar("S");
+    final List<String> sensors = solver.solve(and(new IntRange(5, I, 8), new Struct<>("measure", I, S, anyVar("T"), anyVar("V")))).var(S).list();
+    assertThat(sensors).containsExactly("sensor5", "sensor6", "sensor7");
+  }
+
+  @Test
+  public void indexMaintainedOnAdd() {
+    final ColumnarFactTable table = new ColumnarFactTable("city", 2).add("Geneva", "CH").add("Lyon", "FR");
+    final Solver citySolver = new Solver().withDataFactProvider(table);
+    final Var<String> C = strVar("C");
+    assertThat(citySolver.solve(new Struct<>("city", C, "FR")).count()).isEqualTo(1);
+    table.add(new DataFact("city", "Paris", "FR"));
+    assertThat(citySolver.solve(new Struct<>("city", C, "FR")).var(C).list()).containsExactly("Lyon", "Paris");
+  }
+
+  @Test
+  public void sameResultsAsDataFactStore() {
+    final ColumnarFactTable table = new ColumnarFactTable("p", 3);
+    final DataFactStore store = new DataFactStore();
+    for (int i = 0; i < 1000; i++) {
+      table.add(i % 7, "v" + (i % 13), (long) i);
+      store.add("p", i % 7, "v" + (i % 13), (long) i);
+    }
+    final Var<Object> A = anyVar("A");
+    final Var<Object> B = anyVar("B");
+    final Var<Object> C = anyVar("C");
+    final Struct<?> goal = new Struct<>("p", 3, B, C);
+    assertThat(new Solver().withDataFactProvider(table).solve(goal).var(C).list())
+        .isEqualTo(new Solver().withDataFactProvider(store).solve(goal).var(C).list());
+    final Struct<?> goal2 = new Struct<>("p", A, "v5", C);
+    assertThat(new Solver().withDataFactProvider(table).solve(goal2).var(C).list())
+        .isEqualTo(new Solver().withDataFactProvider(store).solve(goal2).var(C).list());
+    assertThat(table.listMatchingDataFacts("p", new Object[]{3, "v5", null})).hasSize(11);
+  }
+
+  @Test(expected = InvalidTermException.class)
+  public void wrongArity() {
+    measures.add(1, "x");
+  }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.data;
+
+import org.junit.Test;
+import org.logic2j.engine.model.DataFact;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.solver.Solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.Var.anyVar;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.model.Var.strVar;
+import static org.logic2j.engine.predicates.Predicates.*;
+
+public class DataFactStoreTest {
+  private static final int NB_PEOPLE = 100_000;
+
+  private final DataFactStore store = newStore();
+  private final Solver solver = new Solver().withDataFactProvider(store);
+
+  private static DataFactStore newStore() {
+    final DataFactStore store = new DataFactStore();
+    for (int i = 0; i < NB_PEOPLE; i++) {
+      // person(id, name, age)
+      store.add("person", i, "name" + i, i % 100);
+    }
+    store.add("city", "Geneva", "CH");
+    store.add("city", "Lausanne", "CH");
+    store.add("city", "Lyon", "FR");
+    return store;
+  }
+
+  @Test
+  public void scanAll() {
+    final Var<String> C = strVar("C");
+    final Var<String> K = strVar("K");
+    assertThat(solver.solve(new Struct<>("city", C, K)).var(C).list()).containsExactly("Geneva", "Lausanne", "Lyon");
+    assertThat(store.getScans()).isEqualTo(1);
+    assertThat(store.indexCount("city", 2)).isZero();
+  }
+
+  @Test
+  public void firstArgumentIndex() {
+    final Var<Object> N = anyVar("N");
+    final Var<Object> A = anyVar("A");
+    assertThat(solver.solve(new Struct<>("person", 4242, N, A)).var(N).list()).containsExactly("name4242");
+    assertThat(store.indexCount("person", 3)).isEqualTo(1);
+  }
+
+  @Test
+  public void otherArgumentIndex() {
+    final Var<String> C = strVar("C");
+    assertThat(solver.solve(new Struct<>("city", C, "CH")).var(C).list()).containsExactly("Geneva", "Lausanne");
+    assertThat(solver.solve(new Struct<>("city", C, "IT")).count()).isZero();
+  }
+
+  @Test
+  public void compositeIndex() {
+    final Var<Object> I = anyVar("I");
+    assertThat(solver.solve(new Struct<>("person", I, "name142", 42)).var(I).list()).containsExactly(142);
+    assertThat(solver.solve(new Struct<>("person", I, "name142", 43)).count()).isZero();
+    assertThat(store.indexCount("person", 3)).isEqualTo(1);
+  }
+
+  @Test
+  public void argumentBoundByPreviousGoal() {
+    final Var<Integer> I = intVar("I");
+    final Var<Object> N = anyVar("N");
+    final Var<Object> A = anyVar("A");
+    // I bound by intRange() before person() is looked up: uses the index on the first argument
+    final List<Object> names = solver.solve(and(new IntRange(10, I, 13), new Struct<>("person", I, N, A))).var(N).list();
+    assertThat(names).containsExactly("name10", "name11", "name12");
+    assertThat(store.getIndexedLookups()).isEqualTo(3);
+  }
+
+  @Test
+  public void indexMaintainedOnAdd() {
+    final Var<String> C = strVar("C");
+    assertThat(solver.solve(new Struct<>("city", C, "FR")).count()).isEqualTo(1);
+    store.add("city", "Paris", "FR");
+    assertThat(solver.solve(new Struct<>("city", C, "FR")).var(C).list()).containsExactly("Lyon", "Paris");
+  }
+
+  @Test
+  public void maxIndexesFallsBackToCoveringIndex() {
+    final DataFactStore small = new DataFactStore(1);
+    small.addAll(List.of(new DataFact("t", 1, "a", "x"), new DataFact("t", 1, "b", "y"), new DataFact("t", 2, "a", "z")));
+    final Solver smallSolver = new Solver().withDataFactProvider(small);
+    final Var<Object> Z = anyVar("Z");
+    assertThat(smallSolver.solve(new Struct<>("t", 1, anyVar("B"), Z)).count()).isEqualTo(2);
+    // Index on first arg is reused and filtered by unification
+    assertThat(smallSolver.solve(new Struct<>("t", 1, "a", Z)).var(Z).list()).containsExactly("x");
+    assertThat(small.indexCount("t", 3)).isEqualTo(1);
+  }
+
+  @Test
+  public void severalProviders() {
+    final DataFactStore other = new DataFactStore().add("city", "Milano", "IT");
+    final Var<String> C = strVar("C");
+    final Solver twoStores = new Solver().withDataFactProvider(store).withDataFactProvider(other);
+    assertThat(twoStores.solve(new Struct<>("city", C, anyVar("K"))).count()).isEqualTo(4);
+  }
+
+  @Test
+  public void wrongArity() {
+    assertThat(solver.solve(new Struct<>("city", "Geneva")).count()).isZero();
+  }
+
+  @Test
+  public void concurrentLookups() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Integer>> counts = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        final int age = t;
+        counts.add(executor.submit(() -> {
+          int count = 0;
+          for (int i = 0; i < 50; i++) {
+            for (DataFact ignored : store.listMatchingDataFacts("person", new Object[]{null, null, age})) {
+              count++;
+            }
+          }
+          return count;
+        }));
+      }
+      for (Future<Integer> count : counts) {
+        assertThat(count.get()).isEqualTo(50 * NB_PEOPLE / 100);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    // A single index was built on the third argument, despite concurrent misses
+    assertThat(store.indexCount("person", 3)).isEqualTo(1);
+    assertThat(store.getIndexedLookups()).isEqualTo(8 * 50);
+  }
+
+}
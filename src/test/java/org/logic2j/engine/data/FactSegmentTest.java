@@ -0,0 +1,170 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.DataFact;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.solver.Solver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.Var.anyVar;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.model.Var.strVar;
+
+public class FactSegmentTest {
+  private static final int NB_ROWS = 10_000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final ColumnarFactTable measures = newTable();
+
+  private FactSegment segment;
+  private Solver solver;
+
+  private static ColumnarFactTable newTable() {
+    // measure(id, sensor, timestamp, value)
+    final ColumnarFactTable table = new ColumnarFactTable("measure", 4);
+    for (int i = 0; i < NB_ROWS; i++) {
+      table.add(NB_ROWS - i, "sensor" + (i % 10), 1_000_000_000_000L + i, (i % 100) / 2.0);
+    }
+    return table;
+  }
+
+  @Before
+  public void writeAndOpen() throws IOException {
+    final Path path = folder.newFile("measure.seg").toPath();
+    FactSegment.write(measures, path);
+    segment = FactSegment.open(path);
+    solver = new Solver().withDataFactProvider(segment);
+  }
+
+  @After
+  public void close() throws IOException {
+    segment.close();
+  }
+
+  @Test
+  public void directory() {
+    assertThat(segment.getFunctor()).isEqualTo("measure");
+    assertThat(segment.arity()).isEqualTo(4);
+    assertThat(segment.size()).isEqualTo(NB_ROWS);
+  }
+
+  @Test
+  public void lookupByEachColumn() {
+    final Var<Object> S = anyVar("S");
+    assertThat(solver.solve(new Struct<>("measure", 4243, S, anyVar(), anyVar())).var(S).list()).containsExactly("sensor7");
+    assertThat(solver.solve(new Struct<>("measure", intVar(), "sensor3", anyVar(), anyVar())).count()).isEqualTo(NB_ROWS / 10);
+    final Var<Object> S2 = anyVar("S2");
+    assertThat(solver.solve(new Struct<>("measure", intVar(), S2, 1_000_000_000_005L, anyVar())).var(S2).list()).containsExactly("sensor5");
+    assertThat(solver.solve(new Struct<>("measure", intVar(), anyVar(), anyVar(), 1.5)).count()).isEqualTo(NB_ROWS / 100);
+  }
+
+  @Test
+  public void lookupBySeveralColumns() {
+    final Var<Integer> I = intVar("I");
+    final Var<Object> T = anyVar("T");
+    assertThat(solver.solve(new Struct<>("measure", I, "sensor3", T, 1.5)).var(I).list()).startsWith(NB_ROWS - 3, NB_ROWS - 103, NB_ROWS - 203)
+        .hasSize(NB_ROWS / 100);
+  }
+
+  @Test
+  public void sameSolutionsAsTheTable() {
+    final Solver onTable = new Solver().withDataFactProvider(measures);
+    final Var<String> S = strVar("S");
+    final Var<Object> V = anyVar("V");
+    final Struct<?> goal = new Struct<>("measure", intVar("I"), S, anyVar("T"), V);
+    assertThat(solver.solve(goal).var(V).list()).isEqualTo(onTable.solve(goal).var(V).list());
+    final Struct<?> bound = new Struct<>("measure", intVar("J"), "sensor9", anyVar("U"), anyVar("W"));
+    assertThat(solver.solve(bound).count()).isEqualTo(onTable.solve(bound).count());
+  }
+
+  @Test
+  public void noMatch() {
+    assertThat(solver.solve(new Struct<>("measure", intVar(), "unknown", anyVar(), anyVar())).count()).isEqualTo(0);
+    assertThat(solver.solve(new Struct<>("measure", -1, anyVar(), anyVar(), anyVar())).count()).isEqualTo(0);
+    // Integer and Long are different values
+    assertThat(solver.solve(new Struct<>("measure", 5L, anyVar(), anyVar(), anyVar())).count()).isEqualTo(0);
+    assertThat(solver.solve(new Struct<>("other", intVar(), anyVar(), anyVar(), anyVar())).count()).isEqualTo(0);
+  }
+
+  @Test
+  public void listMatchingDataFacts() {
+    final List<DataFact> facts = (List<DataFact>) segment.listMatchingDataFacts("measure", new Object[]{null, "sensor1", 1_000_000_000_001L, null});
+    assertThat(facts).hasSize(1);
+    assertThat(facts.get(0).getElements()).containsExactly("measure", NB_ROWS - 1, "sensor1", 1_000_000_000_001L, 0.5);
+  }
+
+  @Test
+  public void nonAsciiStrings() throws IOException {
+    final ColumnarFactTable table = new ColumnarFactTable("city", 1).add("Zürich").add("Genève").add("Zug").add("東京");
+    final Path path = folder.newFile("city.seg").toPath();
+    FactSegment.write(table, path);
+    try (FactSegment cities = FactSegment.open(path)) {
+      final Solver citySolver = new Solver().withDataFactProvider(cities);
+      final Var<String> C = strVar("C");
+      assertThat(citySolver.solve(new Struct<>("city", C)).var(C).list()).containsExactly("Zürich", "Genève", "Zug", "東京");
+      assertThat(citySolver.solve(new Struct<>("city", "東京")).count()).isEqualTo(1);
+      assertThat(citySolver.solve(new Struct<>("city", "Genève")).count()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void rewriteWhileMapped() throws IOException {
+    final Path path = folder.getRoot().toPath().resolve("measure.seg");
+    FactSegment.write(new ColumnarFactTable("measure", 4).add(1, "sensor1", 1L, 0.5), path);
+    // The segment opened before rewriting still reads the previous content
+    assertThat(segment.size()).isEqualTo(NB_ROWS);
+    assertThat(solver.solve(new Struct<>("measure", 4243, anyVar(), anyVar(), anyVar())).count()).isEqualTo(1);
+    try (FactSegment rewritten = FactSegment.open(path)) {
+      assertThat(rewritten.size()).isEqualTo(1);
+    }
+    // No temporary file left
+    try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+      assertThat(files).containsExactly(path);
+    }
+  }
+
+  @Test(expected = InvalidTermException.class)
+  public void mixedTypesCannotBeWritten() throws IOException {
+    FactSegment.write(new ColumnarFactTable("t", 1).add(1).add("two"), folder.newFile().toPath());
+  }
+
+  @Test(expected = IOException.class)
+  public void notASegment() throws IOException {
+    final Path path = folder.newFile().toPath();
+    Files.writeString(path, "this is not a fact segment at all");
+    FactSegment.open(path);
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.engine.predicates.internal;
+
+import org.junit.Test;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.generator.Even;
+import org.logic2j.engine.predicates.impl.generator.Odd;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.listener.SolutionListener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.*;
+
+public class AndTest {
+  private final Solver precompiled = new Solver().withPrecompiledAnd(true);
+
+  private final Var<Integer> X = intVar("X");
+  private final Var<Integer> Y = intVar("Y");
+
+  @Test
+  public void chainReusedAcrossSolvings() {
+    final And inner = and(new Even(X), ttrue);
+    final And goal = and(new Digit(X), inner);
+    final And outer = and(new Digit(Y), goal);
+    assertThat(precompiled.solve(outer).count()).isEqualTo(50);
+    final SolutionListener outerChain = goal.chain();
+    final SolutionListener innerChain = inner.chain();
+    // Other downstream listeners, and at another cut level
+    assertThat(precompiled.solve(goal).var(X).list()).containsExactly(0, 2, 4, 6, 8);
+    assertThat(precompiled.solve(goal).count()).isEqualTo(5);
+    assertThat(precompiled.solve(goal).isPresent()).isTrue();
+    assertThat(goal.chain()).isSameAs(outerChain);
+    assertThat(inner.chain()).isSameAs(innerChain);
+  }
+
+  @Test
+  public void chainSharedByNestedSolvings() {
+    final And goal = and(new Digit(X), new Even(X));
+    // The same conjunction nested within itself, each with its own downstream listener
+    assertThat(precompiled.solve(and(goal, exists(goal))).var(X).list()).containsExactly(0, 2, 4, 6, 8);
+    assertThat(precompiled.solve(and(goal, cut, goal)).var(X).list()).containsExactly(0);
+  }
+
+  @Test
+  public void cloneBuildsItsOwnChain() {
+    final And goal = and(new Digit(X), new Even(X));
+    assertThat(precompiled.solve(goal).var(X).list()).containsExactly(0, 2, 4, 6, 8);
+    final Struct<?> clone = goal.cloneWithNewArguments(new Object[]{new Digit(Y), new Odd(Y)});
+    assertThat(precompiled.solve((Term) clone).var(Y).list()).containsExactly(1, 3, 5, 7, 9);
+  }
+
+}
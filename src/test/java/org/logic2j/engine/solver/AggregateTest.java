@@ -0,0 +1,149 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver;
+
+import org.junit.Test;
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.exception.SolverException;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.firstorder.GroupBy;
+import org.logic2j.engine.predicates.impl.generator.Even;
+import org.logic2j.engine.solver.listener.Accumulator;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.Var.anyVar;
+import static org.logic2j.engine.model.Var.doubleVar;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.*;
+
+public class AggregateTest {
+  private final Solver solver = new Solver();
+
+  @Test
+  public void sumOfDigits() {
+    final Var<Integer> X = intVar("X");
+    final Var<Object> S = anyVar("S");
+    assertThat(solver.solve(sum(new Digit(X), X, S)).var(S).list()).containsExactly(45);
+  }
+
+  @Test
+  public void sumCheck() {
+    final Var<Integer> X = intVar("X");
+    assertThat(solver.solve(sum(new Digit(X), X, bind(45))).count()).isEqualTo(1);
+    assertThat(solver.solve(sum(new Digit(X), X, bind(46))).count()).isEqualTo(0);
+  }
+
+  @Test
+  public void sumOfNoSolution() {
+    final Var<Integer> X = intVar("X");
+    final Var<Object> S = anyVar("S");
+    assertThat(solver.solve(sum(and(new Digit(X), fail), X, S)).var(S).list()).containsExactly(0);
+  }
+
+  @Test
+  public void minMax() {
+    final Var<Integer> X = intVar("X");
+    final Var<Object> R = anyVar("R");
+    assertThat(solver.solve(min(new Digit(X), X, R)).var(R).list()).containsExactly(0);
+    assertThat(solver.solve(max(new Digit(X), X, R)).var(R).list()).containsExactly(9);
+  }
+
+  @Test
+  public void minOfNoSolutionFails() {
+    final Var<Integer> X = intVar("X");
+    final Var<Object> R = anyVar("R");
+    assertThat(solver.solve(min(and(new Digit(X), fail), X, R)).count()).isEqualTo(0);
+  }
+
+  @Test
+  public void avgOfEvens() {
+    final Var<Integer> X = intVar("X");
+    final Var<Double> A = doubleVar("A");
+    assertThat(solver.solve(avg(new Even(X), X, A)).var(A).list()).containsExactly(4.0);
+  }
+
+  @Test
+  public void collectEvens() {
+    final Var<Integer> X = intVar("X");
+    final Var<Object> L = anyVar("L");
+    assertThat(solver.solve(collect(new Even(X), X, L)).var(L).list()).containsExactly(List.of(0, 2, 4, 6, 8));
+  }
+
+  @Test
+  public void groupBySum() {
+    final Var<Integer> X = intVar("X");
+    final Var<Object> S = anyVar("S");
+    // Even digits are produced twice
+    final GroupBy goal = groupBy(or(new Digit(X), new Even(X)), X, X, Accumulator::count, S);
+    assertThat(solver.solve(goal).var(X).list()).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    assertThat(solver.solve(goal).var(S).list()).containsExactly(2, 1, 2, 1, 2, 1, 2, 1, 2, 1);
+  }
+
+  @Test
+  public void groupByWithBoundResult() {
+    final Var<Integer> X = intVar("X");
+    // Only the keys whose group has 2 solutions
+    final GroupBy goal = groupBy(or(new Digit(X), new Even(X)), X, X, Accumulator::count, bind(2));
+    assertThat(solver.solve(goal).var(X).list()).containsExactly(0, 2, 4, 6, 8);
+  }
+
+  @Test(expected = SolverException.class)
+  public void sumOfNonNumbers() {
+    final Var<String> X = new Var<>(String.class, "X");
+    final Var<Object> S = anyVar("S");
+    solver.solve(sum(eq(X, bind("a", "b")), X, S)).count();
+  }
+
+  @Test
+  public void maxOfMixedTypes() {
+    final Var<Object> X = anyVar("X");
+    final Var<Object> M = anyVar("M");
+    assertThatThrownBy(() -> solver.solve(max(eq(X, bind("a", 1)), X, M)).count()).isInstanceOf(InvalidTermException.class)
+        .hasMessageContaining("\"1\" and \"a\"");
+  }
+
+  @Test
+  public void sumPromotesToLongThenDouble() {
+    final Accumulator sum = Accumulator.sum();
+    sum.accept(Integer.MAX_VALUE);
+    sum.accept(1);
+    assertThat(sum.result()).isEqualTo(Integer.MAX_VALUE + 1L);
+    sum.accept(0.5);
+    assertThat(sum.result()).isEqualTo(Integer.MAX_VALUE + 1.5);
+  }
+
+  @Test
+  public void maxOfMixedNumbersAndOfStrings() {
+    final Accumulator max = Accumulator.max();
+    max.accept(3);
+    max.accept(3.5);
+    max.accept(2L);
+    assertThat(max.result()).isEqualTo(3.5);
+    final Accumulator min = Accumulator.min();
+    min.accept("b");
+    min.accept("a");
+    assertThat(min.result()).isEqualTo("a");
+  }
+
+}
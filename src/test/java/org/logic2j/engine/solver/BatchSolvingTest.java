@@ -0,0 +1,150 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver;
+
+import org.junit.Test;
+import org.logic2j.engine.clause.ClauseStore;
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.math.compare.GE;
+import org.logic2j.engine.predicates.impl.math.compare.LT;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.model.Var.strVar;
+import static org.logic2j.engine.predicates.Predicates.and;
+
+public class BatchSolvingTest {
+  private static final int NB_ROWS = 50_000;
+
+  private final Solver solver = new Solver();
+
+  private static List<Object[]> rows(Object... values) {
+    final List<Object[]> rows = new ArrayList<>();
+    for (Object value : values) {
+      rows.add(new Object[]{value});
+    }
+    return rows;
+  }
+
+  @Test
+  public void solutionsOfEachRow() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final List<String> solutions = new ArrayList<>();
+    final long nbRows = solver.solveBatch(and(new Digit(Y), new LT<>(Y, X)), new Var<?>[]{X}, rows(2, 0, 3).iterator(), (row, vars) -> {
+      solutions.add(row + ":" + vars.reify(Y));
+      return Continuation.CONTINUE;
+    });
+    assertThat(nbRows).isEqualTo(3);
+    assertThat(solutions).containsExactly("0:0", "0:1", "2:0", "2:1", "2:2");
+  }
+
+  @Test
+  public void nullLeavesInputFree() {
+    final Var<Integer> X = intVar("X");
+    final int[] counts = new int[2];
+    solver.solveBatch(new Digit(X), new Var<?>[]{X}, rows(7, null).iterator(), (row, vars) -> {
+      counts[(int) row]++;
+      return Continuation.CONTINUE;
+    });
+    assertThat(counts).containsExactly(1, 10);
+  }
+
+  @Test
+  public void abortSkipsToNextRow() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final List<Object> firsts = new ArrayList<>();
+    solver.solveBatch(and(new Digit(Y), new GE<>(Y, X)), new Var<?>[]{X}, rows(3, 5).iterator(), (row, vars) -> {
+      firsts.add(vars.reify(Y));
+      return Continuation.USER_ABORT;
+    });
+    assertThat(firsts).containsExactly(3, 5);
+  }
+
+  @Test
+  public void sameResultsAsIndividualSolvings() {
+    final Var<String> S = strVar("S");
+    final Var<Integer> A = intVar("A");
+    final ClauseStore rules = new ClauseStore()
+        .add(new Struct<>("category", A, "minor"), new LT<>(A, 18))
+        .add(new Struct<>("category", A, "adult"), new GE<>(A, 18));
+    final Solver withRules = new Solver().withClauseProvider(rules);
+    final CompiledGoal goal = withRules.compile(new Struct<>("category", A, S));
+    final Map<Long, Object> batch = new ConcurrentHashMap<>();
+    withRules.solveBatch(goal, new Var<?>[]{A}, IntStream.range(0, 40).mapToObj(i -> new Object[]{i}).iterator(), (row, vars) -> {
+      batch.put(row, vars.reify(S));
+      return Continuation.CONTINUE;
+    });
+    for (int age = 0; age < 40; age++) {
+      final Var<String> C = strVar("C");
+      assertThat(batch.get((long) age)).isEqualTo(withRules.solve(new Struct<>("category", age, C)).var(C).unique());
+    }
+  }
+
+  @Test
+  public void parallelWorkers() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final CompiledGoal goal = solver.compile(and(new Digit(Y), new LT<>(Y, X)));
+    final Map<Long, Integer> counts = new ConcurrentHashMap<>();
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final long nbRows = solver.solveBatch(goal, new Var<?>[]{X}, IntStream.range(0, NB_ROWS).mapToObj(i -> new Object[]{i % 12}).iterator(),
+          (row, vars) -> {
+            counts.merge(row, 1, Integer::sum);
+            return Continuation.CONTINUE;
+          }, executor, 4);
+      assertThat(nbRows).isEqualTo(NB_ROWS);
+    } finally {
+      executor.shutdown();
+    }
+    for (long row = 0; row < NB_ROWS; row++) {
+      assertThat(counts.getOrDefault(row, 0)).isEqualTo((int) Math.min(row % 12, 10));
+    }
+  }
+
+  @Test
+  public void metricsArePublishedOncePerWorker() {
+    final List<SolveMetrics> published = new ArrayList<>();
+    final Solver profiled = new Solver().withMetricsSink((goal, metrics) -> published.add(metrics));
+    final Var<Integer> X = intVar("X");
+    profiled.solveBatch(new Digit(X), new Var<?>[]{X}, rows(1, 2, 3).iterator(), (row, vars) -> Continuation.CONTINUE);
+    assertThat(published).hasSize(1);
+  }
+
+  @Test(expected = InvalidTermException.class)
+  public void inputMustBeInGoal() {
+    solver.solveBatch(new Digit(intVar("X")), new Var<?>[]{intVar("Other")}, Arrays.<Object[]>asList().iterator(), (row, vars) -> Continuation.CONTINUE);
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver;
+
+import org.junit.Test;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.generator.Even;
+import org.logic2j.engine.predicates.impl.generator.Odd;
+import org.logic2j.engine.predicates.internal.Call;
+import org.logic2j.engine.predicates.internal.Optional;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.*;
+
+public class CompiledGoalTest {
+  private final Solver solver = new Solver();
+
+  private final Var<Integer> X = intVar("X");
+  private final Var<Integer> Y = intVar("Y");
+
+  @Test
+  public void compiledPlanDispatchesOnce() {
+    final CompiledGoal compiled = solver.compile(new Digit(X), or(new Even(X), cut), new Call(new Odd(Y)));
+    // Call of a known goal is compiled away
+    assertThat(compiled.toString()).startsWith("CompiledGoal(AndNode[JavaNode(").contains("OrNode[JavaNode(", "CutNode(").doesNotContain("CallNode");
+    assertThat(compiled.getNbVars()).isEqualTo(2);
+  }
+
+  @Test
+  public void sameSolutionsAsInterpreted() {
+    assertSameSolutions(new Digit(X), new Even(X));
+    assertSameSolutions(new Digit(X), or(new Even(X), new Odd(X)));
+    assertSameSolutions(new Digit(X), cut, new Digit(Y));
+    assertSameSolutions(or(and(new Digit(X), cut), new Even(X)));
+    assertSameSolutions(new Digit(X), not(new Even(X)));
+    assertSameSolutions(new Digit(X), new Optional(and(new Even(X), fail)));
+    assertSameSolutions(new Struct<>("undefined", X));
+  }
+
+  @Test
+  public void callOfVariable() {
+    final Var<Term> Z = new Var<>(Term.class, "Z");
+    final CompiledGoal compiled = solver.compile(eq(Z, or(new Digit(X), new Even(X))), new Call(Z));
+    assertThat(solver.solve(compiled).var(X).list().toString()).isEqualTo("[0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 0, 2, 4, 6, 8]");
+  }
+
+  @Test
+  public void reusableAcrossSolvings() {
+    final CompiledGoal compiled = solver.compile(new Digit(X), new Even(X));
+    for (int i = 0; i < 3; i++) {
+      assertThat(solver.solve(compiled).var(X).list()).containsExactly(0, 2, 4, 6, 8);
+    }
+    assertThat(solver.solve(compiled).count()).isEqualTo(5);
+    assertThat(solver.solve(compiled).withBoundVar(X, bind(4, 5, 6)).var(X).list()).containsExactly(4, 6);
+  }
+
+  @Test
+  public void reusableConcurrently() throws Exception {
+    final CompiledGoal compiled = solver.compile(new Digit(X), new Digit(Y), new Even(Y));
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<Integer>> counts = executor.invokeAll(java.util.Collections.nCopies(20, (Callable<Integer>) () -> solver.solve(compiled).count()));
+      for (Future<Integer> count : counts) {
+        assertThat(count.get()).isEqualTo(50);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private void assertSameSolutions(Term... goals) {
+    final List<Object[]> expected = solver.solve(goals).varsArray().list();
+    final List<Object[]> actual = solver.solve(solver.compile(goals)).varsArray().list();
+    assertThat(actual).usingRecursiveFieldByFieldElementComparator().isEqualTo(expected);
+  }
+
+}
@@ -23,6 +23,7 @@ import org.logic2j.engine.model.Term;
 import org.logic2j.engine.model.Var;
 import org.logic2j.engine.predicates.impl.generator.Digit;
 import org.logic2j.engine.predicates.impl.generator.Even;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
 import org.logic2j.engine.predicates.impl.firstorder.Count;
 import org.logic2j.engine.predicates.impl.generator.Odd;
 import org.logic2j.engine.predicates.internal.And;
@@ -133,6 +134,34 @@ public class FirstOrderLogicTest {
     assertThat(solver.solve(goal).count()).isEqualTo(0);
   }
 
+  /**
+   * With a bound count, enumeration of a huge generator stops right after the expected number.
+   */
+  @Test(timeout = 5000)
+  public void countBoundStopsEarly() {
+    final Var<Integer> X = intVar("X");
+    assertThat(solver.solve(count(new IntRange(0, X, Integer.MAX_VALUE), 3)).count()).isEqualTo(0);
+    assertThat(solver.solve(count(new IntRange(0, X, 3), bind(2, 3))).count()).isEqualTo(1);
+  }
+
+  @Test(timeout = 5000)
+  public void countAtLeastStopsEarly() {
+    final Var<Integer> X = intVar("X");
+    assertThat(solver.solve(countAtLeast(new IntRange(0, X, Integer.MAX_VALUE), 1000)).count()).isEqualTo(1);
+    assertThat(solver.solve(countAtLeast(new Digit(X), 11)).count()).isEqualTo(0);
+    assertThat(solver.solve(countAtLeast(new Digit(X), 0)).count()).isEqualTo(1);
+  }
+
+  @Test(timeout = 5000)
+  public void countBetweenStopsEarly() {
+    final Var<Integer> X = intVar("X");
+    assertThat(solver.solve(countBetween(new Digit(X), 5, 10)).count()).isEqualTo(1);
+    assertThat(solver.solve(countBetween(new Digit(X), 10, 10)).count()).isEqualTo(1);
+    assertThat(solver.solve(countBetween(new Digit(X), 2, 9)).count()).isEqualTo(0);
+    assertThat(solver.solve(countBetween(new Digit(X), 11, 20)).count()).isEqualTo(0);
+    assertThat(solver.solve(countBetween(new IntRange(0, X, Integer.MAX_VALUE), 0, 100)).count()).isEqualTo(0);
+  }
+
   // --------------------------------------------------------------------------
   // Testing optional()
   // --------------------------------------------------------------------------
@@ -0,0 +1,188 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver;
+
+import org.junit.After;
+import org.junit.Test;
+import org.logic2j.engine.clause.Clause;
+import org.logic2j.engine.exception.SolverException;
+import org.logic2j.engine.model.Binding;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.generator.Even;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.predicates.impl.generator.Odd;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.*;
+
+public class ParallelOrTest {
+  private static final int TIMEOUT_SECONDS = 5;
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final Solver sequential = new Solver();
+  private final Solver deterministic = new Solver().withParallelOr(executor, ParallelOr.Ordering.DETERMINISTIC);
+  private final Solver unordered = new Solver().withParallelOr(executor, ParallelOr.Ordering.UNORDERED);
+
+  private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Unifies arg(0) with arg(1), recording the thread it ran on. If it has a barrier, only once all parties reached it.
+   */
+  private class Meet extends FOPredicate {
+    private final CyclicBarrier barrier;
+
+    Meet(Binding<Integer> value, Integer result, CyclicBarrier barrier) {
+      super("meet", value, bind(result));
+      this.barrier = barrier;
+    }
+
+    Meet(Binding<Integer> value, Integer result) {
+      this(value, result, null);
+    }
+
+    @Override
+    public int predicateLogic(UnifyContext currentVars) {
+      threads.add(Thread.currentThread());
+      if (barrier != null) {
+        try {
+          barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return Continuation.USER_ABORT;
+        } catch (BrokenBarrierException | TimeoutException e) {
+          throw new IllegalStateException("Branches did not all run concurrently", e);
+        }
+      }
+      return unifyAndNotify(currentVars, getArg(0), getArg(1));
+    }
+  }
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void deterministicOrderIsSequentialOrder() {
+    final Var<Integer> X = intVar("X");
+    assertThat(deterministic.solve(or(new Odd(X), new Digit(X), new Even(X))).var(X).list())
+        .isEqualTo(sequential.solve(or(new Odd(X), new Digit(X), new Even(X))).var(X).list());
+  }
+
+  @Test
+  public void unorderedHasSameSolutions() {
+    final Var<Integer> X = intVar("X");
+    assertThat(unordered.solve(or(new Odd(X), new Digit(X), new Even(X))).var(X).list())
+        .containsExactlyInAnyOrderElementsOf(sequential.solve(or(new Odd(X), new Digit(X), new Even(X))).var(X).list());
+  }
+
+  @Test
+  public void bindingsBeforeTheDisjunctionAreSeenByBranches() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    assertThat(deterministic.solve(and(new Digit(X), or(new Even(X), new IntRange(bind(8), X, bind(20))))).var(X).list())
+        .containsExactly(0, 2, 4, 6, 8, 8, 9);
+    assertThat(deterministic.solve(and(new IntRange(bind(1), X, bind(3)), or(new Meet(Y, 10), new Meet(Y, 20)), new Even(X))).count())
+        .isEqualTo(2);
+  }
+
+  @Test
+  public void branchesRunConcurrently() {
+    final Var<Integer> X = intVar("X");
+    // Solved one after the other, the first branch would wait for the others until the timeout
+    final CyclicBarrier barrier = new CyclicBarrier(4);
+    assertThat(deterministic.solve(or(new Meet(X, 1, barrier), new Meet(X, 2, barrier), new Meet(X, 3, barrier), new Meet(X, 4, barrier))).var(X).list())
+        .containsExactly(1, 2, 3, 4);
+    assertThat(threads).hasSize(4).doesNotContain(Thread.currentThread());
+  }
+
+  @Test(timeout = 10_000)
+  public void abortCancelsOtherBranches() {
+    final Var<Integer> X = intVar("X");
+    assertThat(unordered.solve(or(new IntRange(bind(0), X, bind(Integer.MAX_VALUE)), new IntRange(bind(0), X, bind(Integer.MAX_VALUE)))).isPresent())
+        .isTrue();
+  }
+
+  @Test(timeout = 10_000)
+  public void abortStopsBranchThatHasNoSolution() throws InterruptedException {
+    // spin :- spin.  Each resolution counts down.
+    final CountDownLatch spun = new CountDownLatch(1000);
+    final List<Clause> spinClauses = List.of(new Clause(new Struct<>("spin"), new Struct<>("spin")));
+    // Platform threads: a spinning virtual thread would not give its carrier back to the other branch
+    final ExecutorService platformExecutor = Executors.newFixedThreadPool(2);
+    final Solver solver = new Solver().withParallelOr(platformExecutor, ParallelOr.Ordering.DETERMINISTIC)
+        .withClauseProvider((goal, currentVars) -> {
+          spun.countDown();
+          return spinClauses;
+        });
+    // Succeeds once the other branch is spinning
+    final FOPredicate spinning = new FOPredicate("spinning") {
+      @Override
+      public int predicateLogic(UnifyContext currentVars) {
+        try {
+          return spun.await(TIMEOUT_SECONDS, TimeUnit.SECONDS) ? notifySolution(currentVars) : Continuation.CONTINUE;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return Continuation.USER_ABORT;
+        }
+      }
+    };
+    assertThat(solver.solve(or(spinning, new Struct<>("spin"))).isPresent()).isTrue();
+    // The spinning branch is interrupted, and stops at its next inference: the executor has nothing left to run
+    platformExecutor.shutdown();
+    assertThat(platformExecutor.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void cutIsSolvedSequentially() {
+    final Var<Integer> X = intVar("X");
+    assertThat(deterministic.solve(or(new Meet(X, 10), and(new Digit(X), cut))).var(X).list())
+        .isEqualTo(sequential.solve(or(new Meet(X, 10), and(new Digit(X), cut))).var(X).list());
+    assertThat(threads).containsOnly(Thread.currentThread());
+  }
+
+  @Test(expected = SolverException.class)
+  public void failureOfBranchIsRethrown() {
+    final Var<Integer> X = intVar("X");
+    deterministic.solve(or(new Digit(X), new FOPredicate("boom", X) {
+      @Override
+      public int predicateLogic(UnifyContext currentVars) {
+        throw new IllegalStateException("boom");
+      }
+    })).count();
+  }
+
+}
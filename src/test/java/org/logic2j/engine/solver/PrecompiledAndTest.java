@@ -0,0 +1,95 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver;
+
+import org.junit.Test;
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.generator.Even;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.predicates.impl.generator.Odd;
+import org.logic2j.engine.predicates.internal.And;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.*;
+
+/**
+ * Solving with {@link Solver#withPrecompiledAnd(boolean)} must yield exactly the same solutions,
+ * in the same order, as the default allocation of listeners.
+ */
+public class PrecompiledAndTest {
+  private final Solver solver = new Solver();
+  private final Solver precompiled = new Solver().withPrecompiledAnd(true);
+
+  private final Var<Integer> X = intVar("X");
+  private final Var<Integer> Y = intVar("Y");
+
+  @Test
+  public void flatConjunction() {
+    assertSameSolutions(and(new Digit(X), new Even(X), new IntRange(0, X, 5)), X);
+  }
+
+  @Test
+  public void nestedConjunctions() {
+    assertSameSolutions(and(new Digit(X), and(new Digit(Y), and(new Even(Y), new Odd(X)))), Y);
+  }
+
+  @Test
+  public void conjunctionInDisjunction() {
+    assertSameSolutions(and(new Digit(X), or(and(new Even(X), ttrue), and(new Odd(X), fail))), X);
+  }
+
+  @Test
+  public void conjunctionWithCut() {
+    assertSameSolutions(and(new Digit(X), cut, new Digit(Y)), Y);
+    assertSameSolutions(and(new Digit(X), new Digit(Y), cut), Y);
+  }
+
+  @Test
+  public void conjunctionInFirstOrderPredicates() {
+    assertSameSolutions(and(new Digit(X), not(and(new Even(X), new IntRange(0, X, 5)))), X);
+    assertSameSolutions(and(new Digit(X), exists(and(new Digit(Y), new Even(Y), eq(X, Y)))), X);
+  }
+
+  @Test
+  public void singleGoal() {
+    assertSameSolutions(and(new Digit(X)), X);
+  }
+
+  @Test
+  public void sameSolutionsAcrossSolvings() {
+    final And goal = and(new Digit(X), and(new Even(X), ttrue));
+    for (int i = 0; i < 3; i++) {
+      assertThat(precompiled.solve(goal).var(X).list()).containsExactly(0, 2, 4, 6, 8);
+    }
+    assertThat(precompiled.solve(goal).count()).isEqualTo(5);
+    assertThat(precompiled.solve(goal).isPresent()).isTrue();
+  }
+
+  private void assertSameSolutions(Term goal, Var<Integer> var) {
+    final List<Integer> expected = solver.solve(goal).var(var).list();
+    final List<Integer> actual = precompiled.solve(goal).var(var).list();
+    assertThat(actual).isEqualTo(expected);
+  }
+
+}
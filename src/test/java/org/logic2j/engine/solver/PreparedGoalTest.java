@@ -0,0 +1,128 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.engine.solver;
+
+import org.junit.Test;
+import org.logic2j.engine.exception.InvalidTermException;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.math.compare.LT;
+import org.logic2j.engine.solver.holder.GoalHolder;
+import org.logic2j.engine.solver.listener.CountingSolutionListener;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.and;
+
+public class PreparedGoalTest {
+  private final Solver solver = new Solver();
+
+  @Test
+  public void solveWithParameterValues() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final PreparedGoal prepared = solver.prepare(and(new Digit(Y), new LT<>(Y, X)), X);
+    assertThat(prepared.solve(3).var(Y).list()).containsExactly(0, 1, 2);
+    assertThat(prepared.solve(1).var(Y).list()).containsExactly(0);
+    assertThat(prepared.solve(0).count()).isEqualTo(0);
+  }
+
+  @Test
+  public void goalIsNotNormalizedAgain() {
+    final Var<Integer> X = intVar("X");
+    final PreparedGoal prepared = solver.prepare(new Digit(X), X);
+    final GoalHolder holder = prepared.solve(5);
+    assertThat(holder.effectiveGoal()).isSameAs(prepared.getCompiledGoal().getGoal());
+    assertThat(holder.var(X).unique()).isEqualTo(5);
+  }
+
+  @Test
+  public void nullLeavesParameterFree() {
+    final Var<Integer> X = intVar("X");
+    final PreparedGoal prepared = solver.prepare(new Digit(X), X);
+    assertThat(prepared.solve((Object) null).count()).isEqualTo(10);
+  }
+
+  @Test
+  public void valueNotUnifyingHasNoSolution() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final PreparedGoal prepared = solver.prepare(and(new Digit(X), new Digit(Y), new LT<>(X, Y)), X, Y);
+    assertThat(prepared.solve(2, 7).isPresent()).isTrue();
+    assertThat(prepared.solve(7, 2).isPresent()).isFalse();
+    assertThat(prepared.solve(12, 15).isPresent()).isFalse();
+  }
+
+  @Test
+  public void lowLevelSolving() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final PreparedGoal prepared = solver.prepare(and(new Digit(Y), new LT<>(Y, X)), X);
+    final CountingSolutionListener listener = new CountingSolutionListener();
+    prepared.solveGoal(listener, 4);
+    assertThat(listener.count()).isEqualTo(4);
+  }
+
+  @Test
+  public void combinedWithBoundVar() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final PreparedGoal prepared = solver.prepare(and(new Digit(Y), new LT<>(Y, X)), X);
+    final List<Integer> list = prepared.solve(5).withBoundVar(Y, bind(1, 3, 5, 7)).var(Y).list();
+    assertThat(list).containsExactly(1, 3);
+  }
+
+  @Test
+  public void unknownParameter() {
+    assertThatThrownBy(() -> solver.prepare(new Digit(intVar("X")), intVar("Z"))).isInstanceOf(InvalidTermException.class);
+  }
+
+  @Test
+  public void wrongNumberOfValues() {
+    final Var<Integer> X = intVar("X");
+    final PreparedGoal prepared = solver.prepare(new Digit(X), X);
+    assertThatThrownBy(() -> prepared.solve(1, 2)).isInstanceOf(InvalidTermException.class);
+  }
+
+  @Test
+  public void concurrentReuse() throws Exception {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final PreparedGoal prepared = solver.prepare(and(new Digit(Y), new LT<>(Y, X)), X);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<Boolean>> futures = IntStream.range(0, 2000)
+          .mapToObj(i -> executor.submit(() -> prepared.solve(i % 11).count() == Math.min(i % 11, 10)))
+          .toList();
+      for (Future<Boolean> future : futures) {
+        assertThat(future.get()).isTrue();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.logic2j.engine.solver;
+
+import org.junit.Test;
+import org.logic2j.engine.clause.ClauseStore;
+import org.logic2j.engine.data.DataFactStore;
+import org.logic2j.engine.model.Binding;
+import org.logic2j.engine.model.Constant;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.predicates.impl.generator.Even;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.predicates.impl.math.compare.GE;
+import org.logic2j.engine.predicates.impl.math.compare.LT;
+import org.logic2j.engine.predicates.impl.math.function.Square;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.model.Var.strVar;
+import static org.logic2j.engine.predicates.Predicates.and;
+import static org.logic2j.engine.predicates.Predicates.eq;
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+public class SetAtATimeTest {
+  private static final int NB_VALUES = 10_000;
+
+  private final Solver solver = new Solver().withSetAtATimeBoundVars(true);
+
+  /**
+   * Counts its invocations and succeeds once.
+   */
+  private static class Probe extends FOPredicate {
+    int invocations = 0;
+
+    Probe(Binding<?> arg) {
+      super("probe", arg);
+    }
+
+    @Override
+    public int predicateLogic(UnifyContext currentVars) {
+      invocations++;
+      return notifySolution(currentVars);
+    }
+  }
+
+  private static class SetAwareProbe extends Probe implements SetAwarePredicate {
+    SetAwareProbe(Binding<?> arg) {
+      super(arg);
+    }
+  }
+
+  private static Constant<Integer> values() {
+    return bind(IntStream.range(0, NB_VALUES).boxed().toList());
+  }
+
+  private List<Integer> solutions(Solver solver, Var<Integer> var, Term... goals) {
+    return solver.solve(goals).withBoundVar(var, values()).var(var).list();
+  }
+
+  @Test
+  public void setAwarePredicatesReceiveTheWholeDomain() {
+    final Var<Integer> X = intVar("X");
+    final SetAwareProbe first = new SetAwareProbe(X);
+    final Probe last = new Probe(X);
+    final List<Integer> list = solutions(solver, X, first, new GE<>(X, 20), new LT<>(X, 25), last);
+    assertThat(list).containsExactly(20, 21, 22, 23, 24);
+    assertThat(first.invocations).isEqualTo(1);
+    // Only the values that passed are fed, one at a time, to the predicate that needs scalars
+    assertThat(last.invocations).isEqualTo(5);
+  }
+
+  @Test
+  public void sameSolutionsAsOneValueAtATime() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final Term[] goal = {new IntRange(100, X, 200), new Square(X, Y), new LT<>(Y, 12_000)};
+    final Probe probe = new SetAwareProbe(X);
+    final List<Integer> setAtATime = solutions(solver, X, and(goal), probe);
+    final List<Integer> oneAtATime = solutions(new Solver().withSetAtATimeBoundVars(false), X, and(goal), probe);
+    assertThat(setAtATime).hasSize(10).startsWith(100, 101).isEqualTo(oneAtATime);
+    assertThat(probe.invocations).isEqualTo(10 + 10);
+  }
+
+  @Test
+  public void perValueWhenDisabled() {
+    final Var<Integer> X = intVar("X");
+    final SetAwareProbe first = new SetAwareProbe(X);
+    solutions(new Solver().withSetAtATimeBoundVars(false), X, first, new LT<>(X, 3));
+    assertThat(first.invocations).isEqualTo(NB_VALUES);
+  }
+
+  @Test
+  public void providersReceiveValuesOfTheDomain() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final ClauseStore store = new ClauseStore();
+    for (int i = 1; i <= 5; i++) {
+      store.add(new Struct<>("p", i));
+    }
+    final Solver withStore = new Solver().withSetAtATimeBoundVars(true).withClauseProvider(store);
+    assertThat(solutions(withStore, X, new Struct<>("p", X))).containsExactly(1, 2, 3, 4, 5);
+    // Through another var: one value at a time, in the order of the domain
+    final List<Integer> list = withStore.solve(eq(X, Y), new Struct<>("p", Y)).withBoundVar(X, bind(4, 7, 2)).var(X).list();
+    assertThat(list).containsExactly(4, 2);
+  }
+
+  @Test
+  public void providersProbeTheirIndexPerValue() {
+    final DataFactStore facts = new DataFactStore();
+    for (int i = 0; i < NB_VALUES; i++) {
+      facts.add("person", i, "name" + i);
+    }
+    final Var<Integer> X = intVar("X");
+    final Var<String> N = strVar("N");
+    final List<String> names = new Solver().withSetAtATimeBoundVars(true).withDataFactProvider(facts)
+        .solve(new Struct<>("person", X, N)).withBoundVar(X, bind(3, 5, 7)).var(N).list();
+    assertThat(names).containsExactly("name3", "name5", "name7");
+    assertThat(facts.getScans()).isZero();
+  }
+
+  @Test
+  public void disabledByDefault() {
+    assertThat(new Solver().isSetAtATimeBoundVars()).isFalse();
+  }
+
+  @Test
+  public void countAndCrossProduct() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final int count = solver.solve(new LT<>(X, Y)).withBoundVar(X, bind(1, 2, 3)).withBoundVar(Y, bind(2, 3, 4)).count();
+    assertThat(count).isEqualTo(6);
+    final int all = solver.solve(new Even(X)).withBoundVar(X, values()).withBoundVar(Y, bind(1, 2, 3)).count();
+    assertThat(all).isEqualTo(5 * 3);
+  }
+
+  @Test
+  public void preparedGoalWithDomain() {
+    final Var<Integer> X = intVar("X");
+    final PreparedGoal prepared = solver.prepare(and(new LT<>(X, 5), new Even(X)), X);
+    assertThat(prepared.solve(values()).var(X).list()).containsExactly(0, 2, 4);
+    assertThat(prepared.solve(bind(7, 8)).count()).isEqualTo(0);
+  }
+
+  @Test
+  public void stopsAtUserAbort() {
+    final Var<Integer> X = intVar("X");
+    final List<Integer> list = solver.solve(new GE<>(X, 100)).withBoundVar(X, values()).var(X).list();
+    assertThat(list).hasSize(NB_VALUES - 100);
+    assertThat(solver.solve(new GE<>(X, 100)).withBoundVar(X, values()).isPresent()).isTrue();
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.holder;
+
+import org.junit.Test;
+import org.logic2j.engine.exception.TooManySolutionsException;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.extractor.ArrayExtractor;
+import org.logic2j.engine.solver.listener.DistinctSolutionListener;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.eq;
+
+public class DistinctSolutionTest {
+
+  private final Solver solver = new Solver();
+
+  private final Var<Integer> Q = intVar("Q");
+
+  private final Var<Integer> R = intVar("R");
+
+  @Test
+  public void set() {
+    assertThat(solver.solve(new Digit(Q), new Digit(R)).var(Q).set()).containsExactlyElementsOf(
+        IntStream.range(0, 10).boxed().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void distinctCount() {
+    assertThat(solver.solve(new Digit(Q), new Digit(R)).var(Q).distinctCount()).isEqualTo(10);
+    assertThat(solver.solve(new Digit(Q), new Digit(R)).varsArray(Q, R).distinctCount()).isEqualTo(100);
+  }
+
+  @Test
+  public void distinctList() {
+    assertThat(solver.solve(new Digit(Q), new Digit(R)).var(R).distinct().list()).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+  }
+
+  @Test
+  public void arraysComparedByContent() {
+    assertThat(solver.solve(new Digit(Q), new Digit(R)).varsArray(Q).distinct().list()).hasSize(10);
+    assertThat(solver.solve(new Digit(Q), new Digit(R)).varsArray(Q).set()).hasSize(10);
+  }
+
+  @Test
+  public void cardinalityAppliesToDistinct() {
+    assertThat(solver.solve(new Digit(R), eq(Q, bind(5))).var(Q).distinct().unique()).isEqualTo(5);
+    assertThatThrownBy(() -> solver.solve(new Digit(R), eq(Q, bind(5))).var(Q).unique()).isInstanceOf(TooManySolutionsException.class);
+  }
+
+  @Test
+  public void arraysReturnedAsExtracted() {
+    final DistinctSolutionListener<Object[]> listener = new DistinctSolutionListener<>(new ArrayExtractor(Q, R));
+    solver.solve(new Digit(Q), new Digit(R), new Digit(Q)).solve(listener);
+    assertThat(listener.getResults()).hasSize(100);
+    assertThat(listener.getResults().get(12)).containsExactly(1, 2);
+  }
+
+  @Test
+  public void countOnlyHasNoResults() {
+    final DistinctSolutionListener<Object[]> listener = new DistinctSolutionListener<>(new ArrayExtractor(Q), false);
+    solver.solve(new Digit(Q), new Digit(R)).solve(listener);
+    assertThat(listener.getNbSolutions()).isEqualTo(10);
+    assertThatThrownBy(listener::getResults).isInstanceOf(IllegalStateException.class);
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.holder;
+
+import org.junit.Test;
+import org.logic2j.engine.exception.SolverException;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.solver.Solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.fail;
+import static org.logic2j.engine.predicates.Predicates.filter;
+
+public class SolutionIteratorTest {
+
+  private final Solver solver = new Solver();
+
+  @Test
+  public void iterateAllSolutions() {
+    final Var<Integer> Q = intVar("Q");
+    final List<Integer> values = new ArrayList<>();
+    try (SolutionIterator<Integer> iter = solver.solve(new IntRange(0, Q, 1000)).var(Q).iterator()) {
+      iter.forEachRemaining(values::add);
+    }
+    assertThat(values).isEqualTo(IntStream.range(0, 1000).boxed().toList());
+  }
+
+  @Test
+  public void noSolution() {
+    final SolutionIterator<Object> iter = solver.solve(fail).solution().iterator();
+    assertThat(iter.hasNext()).isFalse();
+    assertThat(iter.hasNext()).isFalse();
+    assertThatThrownBy(iter::next).isInstanceOf(NoSuchElementException.class);
+  }
+
+  @Test
+  public void nextWithoutHasNext() {
+    final Var<Integer> Q = intVar("Q");
+    final SolutionIterator<Integer> iter = solver.solve(new Digit(Q)).var(Q).iterator(1);
+    for (int i = 0; i < 10; i++) {
+      assertThat(iter.next()).isEqualTo(i);
+    }
+    assertThat(iter.hasNext()).isFalse();
+  }
+
+  @Test
+  public void closeAbortsSolving() throws InterruptedException {
+    final CountDownLatch solvingDone = new CountDownLatch(1);
+    final Solver abortable = new Solver().withMetricsSink((goal, metrics) -> solvingDone.countDown());
+    final Var<Integer> Q = intVar("Q");
+    try (SolutionIterator<Integer> iter = abortable.solve(new IntRange(0, Q, Integer.MAX_VALUE)).var(Q).iterator()) {
+      for (int i = 0; i < 10; i++) {
+        assertThat(iter.next()).isEqualTo(i);
+      }
+    }
+    assertThat(solvingDone.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void exceptionWhileSolvingIsRethrown() {
+    final Var<Integer> Q = intVar("Q");
+    final SolutionIterator<Integer> iter = solver.solve(new Digit(Q), filter(Q, v -> {
+      if (v == 5) {
+        throw new IllegalStateException("Boom at " + v);
+      }
+      return true;
+    })).var(Q).iterator();
+    final List<Integer> values = new ArrayList<>();
+    assertThatThrownBy(() -> iter.forEachRemaining(values::add)).isInstanceOf(SolverException.class)
+        .hasRootCauseInstanceOf(IllegalStateException.class).hasRootCauseMessage("Boom at 5");
+    assertThat(values).containsExactly(0, 1, 2, 3, 4);
+  }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.holder;
+
+import org.junit.Test;
+import org.logic2j.engine.model.Term;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.solver.Solver;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.and;
+import static org.logic2j.engine.predicates.Predicates.filter;
+
+public class SolutionStreamTest {
+
+  private final Solver solver = new Solver();
+
+  @Test
+  public void collectAllOnCallingThread() {
+    final Var<Integer> Q = intVar("Q");
+    final Thread caller = Thread.currentThread();
+    final List<Integer> values = solver.solve(new Digit(Q), filter(Q, v -> Thread.currentThread() == caller)).var(Q).stream()
+        .filter(v -> v % 2 == 0)
+        .map(v -> v * 10)
+        .toList();
+    assertThat(values).containsExactly(0, 20, 40, 60, 80);
+  }
+
+  @Test
+  public void count() {
+    final Var<Integer> Q = intVar("Q");
+    assertThat(solver.solve(new IntRange(0, Q, 1000)).var(Q).stream().count()).isEqualTo(1000);
+  }
+
+  @Test
+  public void multipleVars() {
+    final Var<Integer> Q = intVar("Q");
+    final Var<Integer> R = intVar("R");
+    final String pairs = solver.solve(new IntRange(0, Q, 2), new IntRange(0, R, 2)).varsArray(Q, R).stream()
+        .map(arr -> arr[0] + "-" + arr[1])
+        .collect(Collectors.joining(","));
+    assertThat(pairs).isEqualTo("0-0,0-1,1-0,1-1");
+  }
+
+  @Test
+  public void shortCircuit() {
+    final Var<Integer> Q = intVar("Q");
+    try (Stream<Integer> stream = solver.solve(new IntRange(0, Q, Integer.MAX_VALUE)).var(Q).stream()) {
+      assertThat(stream.filter(v -> v > 5).findFirst()).isEqualTo(Optional.of(6));
+    }
+    try (Stream<Integer> stream = solver.solve(new IntRange(0, Q, Integer.MAX_VALUE)).var(Q).stream()) {
+      assertThat(stream.anyMatch(v -> v == 100)).isTrue();
+    }
+    try (Stream<Integer> stream = solver.solve(new IntRange(0, Q, Integer.MAX_VALUE)).var(Q).stream()) {
+      assertThat(stream.limit(3).toList()).containsExactly(0, 1, 2);
+    }
+  }
+
+  @Test
+  public void shortCircuitWithoutCloseLeavesNothingRunning() {
+    final Var<Integer> Q = intVar("Q");
+    final Set<Thread> solvingThreads = ConcurrentHashMap.newKeySet();
+    final Term goal = and(new IntRange(0, Q, Integer.MAX_VALUE), filter(Q, v -> {
+      solvingThreads.add(Thread.currentThread());
+      return true;
+    }));
+    assertThat(solver.solve(goal).var(Q).stream().findFirst()).isEqualTo(Optional.of(0));
+    assertThat(solver.solve(goal).var(Q).stream().filter(v -> v > 5).findFirst()).isEqualTo(Optional.of(6));
+    assertThat(solver.solve(goal).var(Q).stream().anyMatch(v -> v == 100)).isTrue();
+    assertThat(solvingThreads).containsOnly(Thread.currentThread());
+  }
+
+  @Test
+  public void pullBeyondSolvingOnCallingThread() {
+    final Var<Integer> Q = intVar("Q");
+    try (Stream<Integer> stream = solver.solve(new IntRange(0, Q, Integer.MAX_VALUE)).var(Q).stream()) {
+      assertThat(stream.limit(2000).toList()).isEqualTo(IntStream.range(0, 2000).boxed().toList());
+    }
+    try (Stream<Integer> stream = solver.solve(new IntRange(0, Q, 20)).var(Q).stream()) {
+      final Iterator<Integer> iterator = stream.iterator();
+      assertThat(iterator.next()).isEqualTo(0);
+      assertThat(iterator.next()).isEqualTo(1);
+      final List<Integer> rest = new ArrayList<>();
+      iterator.forEachRemaining(rest::add);
+      assertThat(rest).isEqualTo(IntStream.range(2, 20).boxed().toList());
+    }
+  }
+
+  @Test
+  public void closeAbortsSolving() throws InterruptedException {
+    final CountDownLatch solvingDone = new CountDownLatch(1);
+    final Solver abortable = new Solver().withMetricsSink((goal, metrics) -> solvingDone.countDown());
+    final Var<Integer> Q = intVar("Q");
+    try (Stream<Integer> stream = abortable.solve(new IntRange(0, Q, Integer.MAX_VALUE)).var(Q).stream()) {
+      assertThat(stream.limit(10).count()).isEqualTo(10);
+    }
+    assertThat(solvingDone.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void emptyStream() {
+    final Var<Integer> Q = intVar("Q");
+    assertThat(solver.solve(new IntRange(5, Q, 5)).var(Q).stream().findFirst()).isEmpty();
+  }
+
+}
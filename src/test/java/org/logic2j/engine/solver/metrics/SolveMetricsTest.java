@@ -0,0 +1,136 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.metrics;
+
+import org.junit.Test;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.listener.CountingSolutionListener;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.*;
+
+public class SolveMetricsTest {
+
+  private final List<SolveMetrics> published = new ArrayList<>();
+
+  private final Solver solver = new Solver().withMetricsSink((goal, metrics) -> published.add(metrics));
+
+  @Test
+  public void noMetricsByDefault() {
+    final AtomicReference<SolveMetrics> seen = new AtomicReference<>();
+    final CountingSolutionListener listener = new CountingSolutionListener() {
+      @Override
+      public int onSolution(UnifyContext currentVars) {
+        seen.set(currentVars.getMetrics());
+        return super.onSolution(currentVars);
+      }
+    };
+    new Solver().solveGoal(termApi().normalize(new Digit(intVar("Q"))), listener);
+    assertThat(listener.count()).isEqualTo(10);
+    assertThat(seen.get()).isNull();
+  }
+
+  @Test
+  public void countInferencesAndBindings() {
+    final Var<Integer> Q = intVar("Q");
+    final int nbr = solver.solve(new Digit(Q)).count();
+    assertThat(nbr).isEqualTo(10);
+    assertThat(published).hasSize(1);
+    final SolveMetrics metrics = published.getFirst();
+    assertThat(metrics.getInferences()).isEqualTo(1);
+    assertThat(metrics.getBindings()).isEqualTo(10);
+    assertThat(metrics.getMaxVarSlot()).isEqualTo(0);
+    assertThat(metrics.getCuts()).isEqualTo(0);
+    assertThat(metrics.getAborts()).isEqualTo(0);
+    assertThat(metrics.getResizes()).isEqualTo(0);
+    assertThat(metrics.getWallTimeNanos()).isPositive();
+  }
+
+  @Test
+  public void countDereferenceHops() {
+    final Var<Integer> Q = intVar("Q");
+    final Var<Integer> R = intVar("R");
+    final int nbr = solver.solve(eq(Q, R), new Digit(R), new IntRange(0, Q, 5)).count();
+    assertThat(nbr).isEqualTo(5);
+    assertThat(published.getFirst().getDereferenceHops()).isPositive();
+  }
+
+  @Test
+  public void countCut() {
+    final Var<Integer> Q = intVar("Q");
+    final int nbr = solver.solve(new Digit(Q), cut).count();
+    assertThat(nbr).isEqualTo(1);
+    assertThat(published.getFirst().getCuts()).isEqualTo(1);
+  }
+
+  @Test
+  public void countAborts() {
+    final Var<Integer> Q = intVar("Q");
+    assertThat(solver.solve(new Digit(Q)).isPresent()).isTrue();
+    assertThat(published.getFirst().getAborts()).isEqualTo(1);
+    assertThat(published.getFirst().getBindings()).isEqualTo(1);
+  }
+
+  @Test
+  public void oneMetricsPerSolve() throws InterruptedException {
+    final Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> new Solver().withMetricsSink((goal, metrics) -> {
+        synchronized (published) {
+          published.add(metrics);
+        }
+      }).solve(new IntRange(0, intVar("Q"), 1000)).count());
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(published).hasSize(threads.length);
+    assertThat(published).allMatch(metrics -> metrics.getBindings() == 1000);
+  }
+
+  @Test
+  public void storeSizedToGoalNeedsNoResize() {
+    final Var<Integer> Q = intVar("Q");
+    final Var<Integer> R = intVar("R");
+    final int nbr = solver.withStoreHeadroom(0).solve(new Digit(Q), new Digit(R)).count();
+    assertThat(nbr).isEqualTo(100);
+    assertThat(published.getFirst().getMaxVarSlot()).isEqualTo(1);
+    assertThat(published.getFirst().getResizes()).isZero();
+  }
+
+  @Test
+  public void jfrSinkDoesNotFailWithoutRecording() {
+    final int nbr = new Solver().withMetricsSink(new JfrSolveMetricsSink()).solve(new Digit(intVar("Q"))).count();
+    assertThat(nbr).isEqualTo(10);
+  }
+
+}
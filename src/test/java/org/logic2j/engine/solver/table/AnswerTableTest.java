@@ -0,0 +1,197 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.table;
+
+import org.junit.Test;
+import org.logic2j.engine.model.Binding;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.internal.Or;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.solver.listener.SolutionListener;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.*;
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+import static org.logic2j.engine.solver.Continuation.USER_ABORT;
+
+public class AnswerTableTest {
+  private final List<SolveMetrics> published = new ArrayList<>();
+  private final Solver solver = new Solver().withTableCapacity(Solver.DEFAULT_TABLE_CAPACITY).withMetricsSink((goal, metrics) -> published.add(metrics));
+
+  /**
+   * Succeeds for the values from 0 to arg(0) excluded, unifying them with arg(1); counts its invocations.
+   */
+  private static class Below extends FOPredicate implements TabledPredicate {
+    int invocations = 0;
+
+    Below(Binding<Integer> max, Binding<Integer> value) {
+      super("below", max, value);
+    }
+
+    @Override
+    public int predicateLogic(UnifyContext currentVars) {
+      invocations++;
+      final int max = toInt(currentVars.dereference(getArg(0)));
+      for (int i = 0; i < max; i++) {
+        final int continuation = unifyAndNotify(currentVars, i, getArg(1));
+        if (continuation != CONTINUE) {
+          return continuation;
+        }
+      }
+      return CONTINUE;
+    }
+  }
+
+  @Test
+  public void repeatedInvocationIsAnsweredFromTable() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final Below below = new Below(bind(3), Y);
+    assertThat(solver.solve(and(new Digit(X), below)).count()).isEqualTo(30);
+    assertThat(below.invocations).isEqualTo(1);
+    assertThat(published.get(0).getTableHits()).isEqualTo(9);
+    assertThat(published.get(0).getTableMisses()).isEqualTo(1);
+  }
+
+  @Test
+  public void replayedSolutionsAreSameAsEvaluated() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final List<Integer> values = solver.solve(and(new Digit(X), new Below(bind(3), Y))).var(Y).list();
+    final List<Integer> expected = new Solver().withTableCapacity(0).solve(and(new Digit(X), new Below(bind(3), Y))).var(Y).list();
+    assertThat(values).isEqualTo(expected);
+  }
+
+  @Test
+  public void differentArgumentsAreDifferentEntries() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final Below below = new Below(X, Y);
+    assertThat(solver.solve(and(new Digit(X), below)).count()).isEqualTo(45);
+    assertThat(below.invocations).isEqualTo(10);
+    assertThat(published.get(0).getTableHits()).isZero();
+  }
+
+  @Test
+  public void boundVarFiltersReplayedSolutions() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final Below below = new Below(bind(5), Y);
+    // Y is bound to X before the tabled goal is invoked: the variant differs for every X
+    assertThat(solver.solve(and(new Digit(X), eq(Y, X), below)).var(Y).list()).containsExactly(0, 1, 2, 3, 4);
+    // Y free: one evaluation, then the answers are filtered by unification with X
+    final Below below2 = new Below(bind(5), Y);
+    assertThat(solver.solve(and(new Digit(X), below2, eq(Y, X))).var(Y).list()).containsExactly(0, 1, 2, 3, 4);
+    assertThat(below2.invocations).isEqualTo(1);
+  }
+
+  @Test
+  public void disabledTabling() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final Below below = new Below(bind(3), Y);
+    assertThat(new Solver().withTableCapacity(0).solve(and(new Digit(X), below)).count()).isEqualTo(30);
+    assertThat(below.invocations).isEqualTo(10);
+  }
+
+  @Test
+  public void tabledWrapperOfExists() {
+    final Var<Integer> X = intVar("X");
+    // Ground, so that the wrapper is tabled; the enumeration of below() is stopped by exists() hence not tabled
+    final Below below = new Below(bind(1000), bind(999));
+    assertThat(solver.solve(and(new Digit(X), tabled(exists(below)))).count()).isEqualTo(10);
+    assertThat(below.invocations).isEqualTo(1);
+  }
+
+  @Test
+  public void capacityBoundsTheTable() {
+    final Var<Integer> Y = intVar("Y");
+    final Or goal = or(new Below(bind(2), Y), new Below(bind(3), Y), new Below(bind(2), Y));
+    // A single entry: below(3, Y) evicts below(2, Y)
+    new Solver().withTableCapacity(1).withMetricsSink((g, metrics) -> published.add(metrics)).solve(goal).count();
+    assertThat(published.get(0).getTableMisses()).isEqualTo(3);
+    assertThat(published.get(0).getTableHits()).isZero();
+    new Solver().withTableCapacity(2).withMetricsSink((g, metrics) -> published.add(metrics)).solve(goal).count();
+    assertThat(published.get(1).getTableMisses()).isEqualTo(2);
+    assertThat(published.get(1).getTableHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void disabledByDefault() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final Below below = new Below(bind(3), Y);
+    assertThat(new Solver().solve(and(new Digit(X), below)).count()).isEqualTo(30);
+    assertThat(below.invocations).isEqualTo(10);
+  }
+
+  @Test
+  public void solutionsStreamedWhileRecorded() {
+    final Var<Integer> Y = intVar("Y");
+    final List<Integer> notified = new ArrayList<>();
+    // Loops forever unless solutions of the tabled goal reach the listener before its enumeration completes
+    final Below below = new Below(bind(Integer.MAX_VALUE), Y);
+    solver.solveGoal(termApi().normalize(below), new SolutionListener() {
+      @Override
+      public int onSolution(UnifyContext currentVars) {
+        notified.add((Integer) currentVars.reify(Y));
+        return notified.size() < 3 ? CONTINUE : USER_ABORT;
+      }
+    });
+    assertThat(notified).containsExactly(0, 1, 2);
+  }
+
+  @Test
+  public void incompleteEnumerationIsNotTabled() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final Below below = new Below(bind(3), Y);
+    // exists() stops the enumeration of below(3, Y) at its first solution, for every X
+    assertThat(solver.solve(and(new Digit(X), exists(below))).count()).isEqualTo(10);
+    assertThat(below.invocations).isEqualTo(10);
+  }
+
+  @Test
+  public void nonGroundAnswersEvaluatedOnce() {
+    final Var<Integer> X = intVar("X");
+    final Var<Integer> Y = intVar("Y");
+    final Var<Integer> Z = intVar("Z");
+    final Below below = new Below(bind(3), Y) {
+      @Override
+      public int predicateLogic(UnifyContext currentVars) {
+        invocations++;
+        // Leaves Y free
+        return currentVars.getSolutionListener().onSolution(currentVars);
+      }
+    };
+    assertThat(solver.solve(and(new Digit(X), below, eq(Z, X))).count()).isEqualTo(10);
+    assertThat(below.invocations).isEqualTo(10);
+  }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.solver.table;
+
+import org.junit.Test;
+import org.logic2j.engine.data.DataFactStore;
+import org.logic2j.engine.model.Binding;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.FOPredicate;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.solver.Solver;
+import org.logic2j.engine.unify.UnifyContext;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.SimpleBindings.bind;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.*;
+import static org.logic2j.engine.solver.Continuation.CONTINUE;
+
+public class GoalResultCacheTest {
+  private final AtomicLong clock = new AtomicLong();
+  private final GoalResultCache cache = new GoalResultCache(10, Duration.ofSeconds(60), clock::get);
+  private final Solver solver = new Solver().withResultCache(cache);
+
+  /**
+   * Notifies as many solutions as its argument; counts its invocations.
+   */
+  private static class ImpureTimes extends FOPredicate {
+    int invocations = 0;
+
+    ImpureTimes(Binding<Integer> n) {
+      super("times", n);
+    }
+
+    @Override
+    public int predicateLogic(UnifyContext currentVars) {
+      invocations++;
+      final int n = toInt(currentVars.dereference(getArg(0)));
+      for (int i = 0; i < n; i++) {
+        final int continuation = notifySolution(currentVars);
+        if (continuation != CONTINUE) {
+          return continuation;
+        }
+      }
+      return CONTINUE;
+    }
+  }
+
+  private static class Times extends ImpureTimes implements PurePredicate {
+    Times(Binding<Integer> n) {
+      super(n);
+    }
+  }
+
+  @Test
+  public void groundGoalIsReusedAcrossSolvings() {
+    final Times times = new Times(bind(3));
+    assertThat(solver.solve(times).count()).isEqualTo(3);
+    assertThat(solver.solve(times).count()).isEqualTo(3);
+    assertThat(times.invocations).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void concurrentMissesEvaluateOnce() throws Exception {
+    final CountDownLatch evaluating = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Times times = new Times(bind(3)) {
+      @Override
+      public int predicateLogic(UnifyContext currentVars) {
+        evaluating.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+        return super.predicateLogic(currentVars);
+      }
+    };
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<Integer> first = executor.submit(() -> solver.solve(times).count());
+      assertThat(evaluating.await(10, TimeUnit.SECONDS)).isTrue();
+      final Future<Integer> second = executor.submit(() -> solver.solve(times).count());
+      // The second solving waits for the evaluation in progress
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (cache.getHits() == 0 && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+      release.countDown();
+      assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(3);
+      assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(3);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(times.invocations).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void equalGoalsShareTheirEntry() {
+    assertThat(solver.solve(new Times(bind(3))).count()).isEqualTo(3);
+    final Times other = new Times(bind(3));
+    assertThat(solver.solve(other).count()).isEqualTo(3);
+    assertThat(other.invocations).isZero();
+  }
+
+  @Test
+  public void boundVarsMakeGoalsGround() {
+    final Var<Integer> X = intVar("X");
+    final Times times = new Times(X);
+    assertThat(solver.solve(and(new Digit(X), times)).count()).isEqualTo(45);
+    assertThat(solver.solve(and(new Digit(X), times)).count()).isEqualTo(45);
+    assertThat(times.invocations).isEqualTo(10);
+    assertThat(cache.getHits()).isEqualTo(10);
+  }
+
+  @Test
+  public void nestedPureGoal() {
+    final Times times = new Times(bind(2));
+    assertThat(solver.solve(exists(times)).count()).isEqualTo(1);
+    assertThat(solver.solve(exists(times)).count()).isEqualTo(1);
+    // exists(times(2)) was answered from the cache, its goal not solved
+    assertThat(times.invocations).isEqualTo(1);
+  }
+
+  @Test
+  public void nonGroundGoalIsNotCached() {
+    final Var<Integer> X = intVar("X");
+    assertThat(solver.solve(exists(new Digit(X))).count()).isEqualTo(1);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void impureNestedGoalIsNotCached() {
+    final ImpureTimes impure = new ImpureTimes(bind(2));
+    assertThat(solver.solve(exists(impure)).count()).isEqualTo(1);
+    assertThat(solver.solve(exists(impure)).count()).isEqualTo(1);
+    assertThat(impure.invocations).isEqualTo(2);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void expiration() {
+    final Times times = new Times(bind(1));
+    solver.solve(times).count();
+    clock.addAndGet(Duration.ofSeconds(59).toNanos());
+    solver.solve(times).count();
+    assertThat(times.invocations).isEqualTo(1);
+    clock.addAndGet(Duration.ofSeconds(2).toNanos());
+    solver.solve(times).count();
+    assertThat(times.invocations).isEqualTo(2);
+    assertThat(cache.getExpirations()).isEqualTo(1);
+  }
+
+  @Test
+  public void eviction() {
+    final Solver tiny = new Solver().withResultCache(new GoalResultCache(1, null));
+    tiny.solve(new Times(bind(1))).count();
+    tiny.solve(new Times(bind(2))).count();
+    assertThat(tiny.getResultCache().size()).isEqualTo(1);
+    assertThat(tiny.getResultCache().getEvictions()).isEqualTo(1);
+  }
+
+  @Test
+  public void invalidation() {
+    solver.solve(new Times(bind(1))).count();
+    solver.solve(new Times(bind(2))).count();
+    assertThat(cache.invalidateIf(goal -> goal.contains("2"))).isEqualTo(1);
+    assertThat(cache.size()).isEqualTo(1);
+    cache.invalidateAll();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void goalOnDataIsNotCached() {
+    final DataFactStore data = new DataFactStore().add("row", 2);
+    final Solver withData = new Solver().withResultCache(cache).withDataFactProvider(data);
+    final Struct<?> row1 = new Struct<>("row", 1);
+    assertThat(withData.solve(exists(row1)).count()).isZero();
+    data.add("row", 1);
+    assertThat(withData.solve(exists(row1)).count()).isEqualTo(1);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void invalidationMatchesBoundValues() {
+    final Var<Integer> X = intVar("X");
+    solver.solve(and(new Digit(X), new Times(X))).count();
+    assertThat(cache.size()).isEqualTo(10);
+    assertThat(cache.invalidateIf(goal -> goal.equals("times(7)"))).isEqualTo(1);
+    assertThat(cache.size()).isEqualTo(9);
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.unify;
+
+import org.junit.Test;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.predicates.impl.generator.Digit;
+import org.logic2j.engine.predicates.impl.generator.IntRange;
+import org.logic2j.engine.solver.Solver;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.Var.anyVar;
+import static org.logic2j.engine.model.Var.intVar;
+import static org.logic2j.engine.predicates.Predicates.eq;
+
+public class PackedUnifyStateTest {
+
+  private static UnifyContext initial() {
+    return new UnifyContext(null, null, null, 4, GrowthPolicy.DOUBLING, StoreLayout.PACKED);
+  }
+
+  private static Var<?> varAt(int index) {
+    final Var<?> var = anyVar("V" + index);
+    var.setIndex(index);
+    return var;
+  }
+
+  @Test
+  public void numbersKeepTheirType() {
+    final List<Object> values = List.of(12, -5000, 1L << 40, 3.14, -0.0, Double.NaN, "text", Struct.valueOf("f", "a"));
+    UnifyContext context = initial();
+    for (int i = 0; i < values.size(); i++) {
+      context = context.unify(varAt(i), values.get(i));
+    }
+    for (int i = 0; i < values.size(); i++) {
+      final Object value = context.reify(varAt(i));
+      assertThat(value).isEqualTo(values.get(i));
+      assertThat(value.getClass()).isEqualTo(values.get(i).getClass());
+      // Not boxed again
+      assertThat(value).isSameAs(values.get(i));
+    }
+  }
+
+  @Test
+  public void chainOfVars() {
+    final Var<?> X = varAt(0);
+    final Var<?> Y = varAt(1);
+    final Var<?> Z = varAt(2);
+    final UnifyContext yz = initial().unify(Y, Z);
+    final UnifyContext xy = yz.unify(X, Y);
+    final Object root = xy.reify(X);
+    assertThat(root).isInstanceOf(Var.class);
+    assertThat(xy.reify(Y)).isSameAs(root);
+    assertThat(xy.reify(Z)).isSameAs(root);
+    final UnifyContext bound = xy.unify(X, 7);
+    assertThat(bound.reify(X)).isEqualTo(7);
+    assertThat(bound.reify(Y)).isEqualTo(7);
+    assertThat(bound.reify(Z)).isEqualTo(7);
+    // Earlier contexts do not see later bindings
+    assertThat(xy.reify(Z)).isSameAs(root);
+    assertThat(yz.reify(X)).isSameAs(X);
+  }
+
+  @Test
+  public void backtrackingOverwritesSlots() {
+    final Var<?> X = varAt(0);
+    final UnifyContext initial = initial();
+    assertThat(initial.unify(X, 1).reify(X)).isEqualTo(1);
+    assertThat(initial.unify(X, "one").reify(X)).isEqualTo("one");
+    assertThat(initial.reify(X)).isSameAs(X);
+  }
+
+  @Test
+  public void sameToStringAsLookup() {
+    final Var<?> X = varAt(5);
+    final Var<?> Y = varAt(6);
+    final UnifyContext lookup = new UnifyContext(null, null).unify(X, Y).unify(Y, 2.5);
+    final UnifyContext packed = initial().unify(X, Y).unify(Y, 2.5);
+    assertThat(packed.toString()).isEqualTo(lookup.toString());
+  }
+
+  @Test
+  public void solveWithPackedLayout() {
+    final Var<Integer> Q = intVar("Q");
+    final Var<Integer> R = intVar("R");
+    final Solver solver = new Solver().withStoreLayout(StoreLayout.PACKED);
+    assertThat(solver.solve(new Digit(Q), eq(Q, R), new IntRange(3, R, 6)).var(Q).list()).containsExactly(3, 4, 5);
+  }
+
+  @Test
+  public void pooledByLayout() {
+    final UnifyContext packed = UnifyStatePool.acquire(null, null, null, 4, GrowthPolicy.DOUBLING, StoreLayout.PACKED);
+    UnifyStatePool.release(packed);
+    final UnifyContext lookup = UnifyStatePool.acquire(null, null, null, 4, GrowthPolicy.DOUBLING, StoreLayout.LOOKUP);
+    assertThat(lookup.getStateStorage().layout()).isEqualTo(StoreLayout.LOOKUP);
+    final UnifyContext packedAgain = UnifyStatePool.acquire(null, null, null, 4, GrowthPolicy.DOUBLING, StoreLayout.PACKED);
+    assertThat(packedAgain.getStateStorage()).isSameAs(packed.getStateStorage());
+    UnifyStatePool.release(packedAgain);
+    UnifyStatePool.release(lookup);
+  }
+
+}
@@ -21,9 +21,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.logic2j.engine.model.Struct;
 import org.logic2j.engine.model.Var;
+import org.logic2j.engine.solver.Continuation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.logic2j.engine.model.TermApiLocator.termApi;
 import static org.logic2j.engine.model.Var.anyVar;
@@ -211,4 +215,150 @@ public class UnifyContextTest {
   }
 
 
+
+  @Test
+  public void reifyWithoutBindingReturnsOriginal() {
+    assertThat(initialContext.reify(f_XY)).isSameAs(f_XY);
+    assertThat(initialContext.bind(Z, "c").reify(f_XY)).isSameAs(f_XY);
+  }
+
+  @Test
+  public void reifyClonesOnlyWhenBound() {
+    final Object g = termApi().normalize(Struct.valueOf("g", f_XY, f_ab));
+    final Object reified = initialContext.bind(X, "c").reify(g);
+    assertThat(reified).isNotSameAs(g);
+    assertThat(reified).isEqualTo(Struct.valueOf("g", Struct.valueOf("f", "c", Y), Struct.valueOf("f", "a", "b")));
+    // The ground argument is shared, not cloned
+    assertThat(((Struct<?>) reified).getArg(1)).isSameAs(f_ab);
+  }
+
+  @Test
+  public void visitReified() {
+    final StringBuilder sb = new StringBuilder();
+    final ReifiedTermVisitor printer = new ReifiedTermVisitor() {
+      @Override
+      public boolean enterStruct(Struct<?> struct) {
+        sb.append(struct.getName()).append('(');
+        return true;
+      }
+
+      @Override
+      public void exitStruct(Struct<?> struct) {
+        sb.append(')');
+      }
+
+      @Override
+      public boolean freeVar(Var<?> var) {
+        sb.append('?').append(var.getName());
+        return true;
+      }
+
+      @Override
+      public boolean value(Object value) {
+        sb.append(value);
+        return true;
+      }
+    };
+    assertThat(initialContext.bind(X, "c").visitReified(f_XY, printer)).isTrue();
+    assertThat(sb.toString()).isEqualTo("f(c?Y)");
+  }
+
+  @Test
+  public void isGround() {
+    assertThat(initialContext.isGround(f_ab)).isTrue();
+    assertThat(initialContext.isGround(f_XY)).isFalse();
+    assertThat(initialContext.bind(X, "c").isGround(f_XY)).isFalse();
+    assertThat(initialContext.bind(X, "c").bind(Y, f_ab).isGround(f_XY)).isTrue();
+    assertThat(initialContext.isGround(X)).isFalse();
+    assertThat(initialContext.isGround("literal")).isTrue();
+  }
+
+  @Test
+  public void dereferenceIsShallow() {
+    final UnifyContext bound = initialContext.bind(X, "c").bind(Z, f_XY);
+    assertThat(bound.dereference(X)).isEqualTo("c");
+    assertThat(bound.dereference(Y)).isSameAs(Y);
+    // The struct is not reified, its vars remain even if bound
+    assertThat(bound.dereference(Z)).isSameAs(f_XY);
+    assertThat(bound.dereference(f_XY)).isSameAs(f_XY);
+    assertThat(bound.dereference("literal")).isEqualTo("literal");
+  }
+
+  @Test
+  public void forkHasSameBindings() {
+    for (StoreLayout layout : StoreLayout.values()) {
+      final UnifyContext bound = new UnifyContext(null, null, null, 8, GrowthPolicy.DOUBLING, layout).bind(X, Y).bind(Y, 5);
+      final UnifyContext fork = bound.fork();
+      assertThat(fork.reify(X)).isEqualTo(5);
+      assertThat(fork.reify(f_XY)).isEqualTo(bound.reify(f_XY));
+      assertThat(fork.reify(Z)).isSameAs(Z);
+    }
+  }
+
+  @Test
+  public void forkIsIndependent() {
+    for (StoreLayout layout : StoreLayout.values()) {
+      final UnifyContext parent = new UnifyContext(null, null, null, 8, GrowthPolicy.DOUBLING, layout).bind(X, "c");
+      final UnifyContext fork = parent.fork();
+      // Bindings in the fork are not seen by the parent
+      final UnifyContext forkBound = fork.bind(Y, "d");
+      assertThat(forkBound.reify(Y)).isEqualTo("d");
+      assertThat(parent.reify(Y)).isSameAs(Y);
+      // Backtracking and binding in the parent, on the same slots, does not alter the fork
+      final UnifyContext parentBound = parent.bind(Y, "e").bind(Z, "f");
+      assertThat(parentBound.reify(Z)).isEqualTo("f");
+      final UnifyContext otherBound = parent.bind(Y, "g");
+      assertThat(otherBound.reify(Y)).isEqualTo("g");
+      assertThat(forkBound.reify(X)).isEqualTo("c");
+      assertThat(forkBound.reify(Y)).isEqualTo("d");
+    }
+  }
+
+
+  @Test
+  public void restrictDomainIntersects() {
+    final UnifyContext ctx = new UnifyContext(null, null).restrictDomain(X, List.of(1, 2, 3, 4)).restrictDomain(X, List.of(4, 3, 9));
+    assertThat(ctx.reify(X)).isSameAs(X);
+    assertThat(ctx.domainOf(X)).containsExactly(3, 4);
+    assertThat(ctx.restrictDomain(X, List.of(9))).isNull();
+  }
+
+  @Test
+  public void restrictDomainToOneValueBinds() {
+    final UnifyContext ctx = new UnifyContext(null, null).restrictDomain(X, List.of(1, 2)).restrictDomain(X, List.of(2));
+    assertThat(ctx.reify(X)).isEqualTo(2);
+    assertThat(ctx.hasDomains()).isFalse();
+  }
+
+  @Test
+  public void bindWithinDomain() {
+    final UnifyContext ctx = new UnifyContext(null, null).restrictDomain(X, List.of(1, 2));
+    assertThat(ctx.unify(X, 3)).isNull();
+    assertThat(ctx.unify(X, 2).reify(X)).isEqualTo(2);
+    // Binding to another var moves the domain onto it
+    final UnifyContext linked = ctx.restrictDomain(Y, List.of(2, 3, 1)).unify(X, Y);
+    assertThat(linked.domainOf(X)).containsExactly(1, 2);
+    assertThat(linked.unify(Y, 3)).isNull();
+    // Backtracking to the original context restores the domain
+    assertThat(ctx.domainOf(X)).containsExactly(1, 2);
+  }
+
+  @Test
+  public void fanOutDomains() {
+    final UnifyContext ctx = new UnifyContext(null, null).restrictDomain(X, List.of("a", "b")).restrictDomain(Y, List.of(1, 2, 3));
+    final List<Object> values = new ArrayList<>();
+    ctx.fanOutDomains(X, vars -> {
+      values.add(vars.reify(X));
+      return Continuation.CONTINUE;
+    });
+    assertThat(values).containsExactly("a", "b");
+    values.clear();
+    ctx.fanOutDomains(null, vars -> {
+      values.add(vars.reify(f_XY));
+      return values.size() < 4 ? Continuation.CONTINUE : Continuation.USER_ABORT;
+    });
+    assertThat(values).hasSize(4);
+    assertThat(values.get(3).toString()).isEqualTo("f(b, 1)");
+  }
+
 }
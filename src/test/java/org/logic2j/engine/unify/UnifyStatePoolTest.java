@@ -0,0 +1,88 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.unify;
+
+import org.junit.Test;
+import org.logic2j.engine.model.Struct;
+import org.logic2j.engine.model.Var;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.logic2j.engine.model.TermApiLocator.termApi;
+import static org.logic2j.engine.model.Var.anyVar;
+
+public class UnifyStatePoolTest {
+
+  @Test
+  public void resetFreesAllVars() {
+    final Var<?> X = anyVar("X");
+    final Var<?> Y = anyVar("Y");
+    final Object f_XY = termApi().normalize(Struct.valueOf("f", X, Y));
+    final UnifyContext initial = new UnifyContext(null, null);
+    final UnifyContext bound = initial.unify(f_XY, Struct.valueOf("f", "a", Y)).unify(Y, "b");
+    assertThat(bound.reify(f_XY)).isEqualTo(Struct.valueOf("f", "a", "b"));
+    initial.getStateStorage().reset(null, GrowthPolicy.DOUBLING);
+    // After reset even a context at a later transaction sees free vars
+    assertThat(bound.reify(X)).isSameAs(X);
+    assertThat(bound.reify(Y)).isSameAs(Y);
+    assertThat(bound.toString()).isEqualTo("vars#2[]");
+  }
+
+  @Test
+  public void pooledStorageIsReusedOnSameThread() {
+    final UnifyContext first = UnifyStatePool.acquire(null, null, null, 10, GrowthPolicy.DOUBLING);
+    final Var<?> X = anyVar("X");
+    X.setIndex(0);
+    assertThat(first.unify(X, "a")).isNotNull();
+    UnifyStatePool.release(first);
+    final UnifyContext second = UnifyStatePool.acquire(null, null, null, 10, GrowthPolicy.DOUBLING);
+    assertThat(second.getStateStorage()).isSameAs(first.getStateStorage());
+    assertThat(second.reify(X)).isSameAs(X);
+    // Nested acquisition while the first is in use gets another storage
+    final UnifyContext nested = UnifyStatePool.acquire(null, null, null, 10, GrowthPolicy.DOUBLING);
+    assertThat(nested.getStateStorage()).isNotSameAs(second.getStateStorage());
+    UnifyStatePool.release(nested);
+    UnifyStatePool.release(second);
+  }
+
+  @Test
+  public void bindingVarToItselfLeavesNoTrace() {
+    final Var<?> X = anyVar("X");
+    final Var<?> Y = anyVar("Y");
+    final Var<?> Z = anyVar("Z");
+    X.setIndex(5);
+    Y.setIndex(6);
+    Z.setIndex(7);
+    final UnifyContext initial = new UnifyContext(null, null);
+    final UnifyContext yx = initial.bind(Y, X);
+    // X dereferences to itself through Y: no change, and nothing must be written
+    assertThat(yx.bind(X, Y)).isSameAs(yx);
+    final UnifyContext later = yx.bind(Z, "a");
+    assertThat(later.reify(X)).isSameAs(X);
+    assertThat(later.toString()).isEqualTo("vars#2[0:Y->X, 1:Z->a]");
+  }
+
+  @Test
+  public void toStringOfLargeStorage() {
+    final Var<?> X = anyVar("X");
+    X.setIndex(2000);
+    final UnifyContext bound = new UnifyContext(null, null).unify(X, "a");
+    assertThat(bound.toString()).isEqualTo("vars#1[0:X->a]");
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * logic2j - "Bring Logic to your Java" - Copyright (c) 2017 Laurent.Tettoni@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Foobar is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.logic2j.engine.unify;
+
+import org.junit.Test;
+import org.logic2j.engine.model.Var;
+import org.logic2j.engine.solver.metrics.SolveMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.logic2j.engine.model.Var.anyVar;
+
+public class UnifyStateSizingTest {
+
+  private static Var<?> varAt(int index) {
+    final Var<?> var = anyVar("V" + index);
+    var.setIndex(index);
+    return var;
+  }
+
+  @Test
+  public void storageSizedAsRequested() {
+    final UnifyContext context = new UnifyContext(null, null, null, 3, GrowthPolicy.DOUBLING);
+    assertThat(context.getStateStorage().capacity()).isEqualTo(3);
+  }
+
+  @Test
+  public void growsAndCountsResizes() {
+    final SolveMetrics metrics = new SolveMetrics();
+    UnifyContext context = new UnifyContext(null, null, metrics, 2, GrowthPolicy.DOUBLING);
+    for (int i = 0; i < 10; i++) {
+      context = context.unify(varAt(i), i);
+    }
+    // 2 -> 4 -> 8 -> 16
+    assertThat(context.getStateStorage().capacity()).isEqualTo(16);
+    assertThat(metrics.getResizes()).isEqualTo(3);
+    for (int i = 0; i < 10; i++) {
+      assertThat(context.reify(varAt(i))).isEqualTo(i);
+    }
+  }
+
+  @Test
+  public void customGrowthPolicy() {
+    UnifyContext context = new UnifyContext(null, null, null, 4, GrowthPolicy.increment(3));
+    context = context.unify(varAt(4), "a");
+    assertThat(context.getStateStorage().capacity()).isEqualTo(7);
+    // A policy not growing enough is overridden to fit the required slot
+    context = context.unify(varAt(20), "b");
+    assertThat(context.getStateStorage().capacity()).isEqualTo(21);
+  }
+
+  @Test
+  public void unboundSlotBeyondCapacityDoesNotGrow() {
+    final SolveMetrics metrics = new SolveMetrics();
+    final UnifyContext context = new UnifyContext(null, null, metrics, 2, GrowthPolicy.DOUBLING);
+    final Var<?> far = varAt(100);
+    assertThat(context.reify(far)).isSameAs(far);
+    assertThat(context.getStateStorage().capacity()).isEqualTo(2);
+    assertThat(metrics.getResizes()).isZero();
+  }
+
+  @Test
+  public void invalidPolicies() {
+    assertThatThrownBy(() -> GrowthPolicy.factor(1.0)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> GrowthPolicy.increment(0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+}